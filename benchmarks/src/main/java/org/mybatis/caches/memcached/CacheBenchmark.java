@@ -0,0 +1,164 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cache operations against an {@link EmbeddedMemcached} server, on the port of the
+ * <code>memcached.properties</code> resource, so the runs are reproducible on any machine.
+ * <p>
+ * Run with <code>-p embedded=false -jvmArgs -Dmemcached.properties.filename=daemon.properties</code> to measure against
+ * a Memcached daemon on <code>localhost:11211</code> instead, and with <code>-t</code> to set the number of concurrent
+ * threads.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+  private static final int KEYS = 1000;
+
+  private static final int EMBEDDED_PORT = 11311;
+
+  /**
+   * The embedded server, started unless the benchmarks run against a daemon.
+   */
+  @State(Scope.Benchmark)
+  public static class Server {
+
+    @Param({ "true" })
+    public boolean embedded;
+
+    EmbeddedMemcached memcached;
+
+    @Setup
+    public void start() throws IOException {
+      if (embedded) {
+        memcached = new EmbeddedMemcached(EMBEDDED_PORT, 256L * 1024 * 1024);
+      }
+    }
+
+    @TearDown
+    public void stop() {
+      if (memcached != null) {
+        memcached.close();
+      }
+    }
+
+  }
+
+  /**
+   * The cache shared by all the threads, filled before the measurements.
+   */
+  @State(Scope.Benchmark)
+  public static class SharedCache {
+
+    @Param({ "10" })
+    public int rows;
+
+    MemcachedCache cache;
+
+    CacheKey[] keys;
+
+    List<Map<String, Object>> result;
+
+    @Setup
+    public void setUp(Server server) {
+      // the server state is a parameter so it is set up first
+      cache = new MemcachedCache("org.acme.persistence.BenchmarkMapper");
+      cache.clear();
+
+      result = TranscoderBenchmark.newResult(rows);
+      keys = new CacheKey[KEYS];
+      for (int i = 0; i < KEYS; i++) {
+        keys[i] = KeyBenchmark.newCacheKey(5);
+        keys[i].update(i);
+        cache.putObject(keys[i], result);
+      }
+    }
+
+    CacheKey randomKey() {
+      return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+    }
+
+  }
+
+  /**
+   * A cache filled before each clear.
+   */
+  @State(Scope.Thread)
+  public static class ClearedCache {
+
+    @Param({ "1000" })
+    public int entries;
+
+    MemcachedCache cache;
+
+    @Setup(Level.Trial)
+    public void create(Server server) {
+      cache = new MemcachedCache("org.acme.persistence.ClearedMapper." + Thread.currentThread().getId());
+    }
+
+    @Setup(Level.Invocation)
+    public void fill() {
+      for (int i = 0; i < entries; i++) {
+        cache.putObject(i, "value-" + i);
+      }
+    }
+
+  }
+
+  @Benchmark
+  public Object get(SharedCache state) {
+    return state.cache.getObject(state.randomKey());
+  }
+
+  @Benchmark
+  public void put(SharedCache state) {
+    state.cache.putObject(state.randomKey(), state.result);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 20)
+  public void clear(ClearedCache state) {
+    state.cache.clear();
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the computation of the Memcached keys from MyBatis cache keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyBenchmark {
+
+  /**
+   * The number of statement parameters.
+   */
+  @Param({ "1", "10", "100" })
+  public int parameters;
+
+  private CacheKey cacheKey;
+
+  @Setup
+  public void setUp() {
+    cacheKey = newCacheKey(parameters);
+  }
+
+  /**
+   * The key computation of the previous versions: SHA-256 of the cache key string.
+   */
+  @Benchmark
+  public String sha256HexOfToString() {
+    return StringUtils.sha256Hex(cacheKey.toString());
+  }
+
+  @Benchmark
+  public String streamedDigestHex() {
+    return KeyFormat.HEX.encode(KeyDigester.digest(cacheKey));
+  }
+
+  @Benchmark
+  public String streamedDigestBase64() {
+    return KeyFormat.BASE64.encode(KeyDigester.digest(cacheKey));
+  }
+
+  /**
+   * Builds a cache key like the MyBatis executor does for a select.
+   *
+   * @param parameters
+   *          the number of statement parameters.
+   *
+   * @return the cache key.
+   */
+  static CacheKey newCacheKey(int parameters) {
+    StringBuilder sql = new StringBuilder("select id, name, email, created_at from users where tenant_id = ?");
+    for (int i = 1; i < parameters; i++) {
+      sql.append(" and attribute_").append(i).append(" = ?");
+    }
+
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update("org.acme.persistence.UserMapper.selectByAttributes");
+    cacheKey.update(0);
+    cacheKey.update(Integer.MAX_VALUE);
+    cacheKey.update(sql.toString());
+    for (int i = 0; i < parameters; i++) {
+      cacheKey.update(i % 2 == 0 ? (Object) (long) i : "value-" + i);
+    }
+    cacheKey.update("production");
+    return cacheKey;
+  }
+
+}
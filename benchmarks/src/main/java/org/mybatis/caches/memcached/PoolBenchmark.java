@@ -0,0 +1,106 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how the throughput of many concurrent sessions scales with the number of striped clients, against the same
+ * server as {@link CacheBenchmark}.
+ * <p>
+ * With a single client every operation goes through one I/O thread, which saturates well before the server does; the
+ * runs with a larger <code>poolSize</code> should scale until the cores or the server saturate instead.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class PoolBenchmark {
+
+  private static final int KEYS = 1000;
+
+  private static final String ID = "org.acme.persistence.PoolMapper";
+
+  /**
+   * The client shared by all the threads, filled before the measurements.
+   */
+  @State(Scope.Benchmark)
+  public static class PooledClient {
+
+    @Param({ "1", "2", "4", "8" })
+    public int poolSize;
+
+    @Param({ "10" })
+    public int rows;
+
+    MemcachedClientWrapper client;
+
+    CacheKey[] keys;
+
+    List<Map<String, Object>> result;
+
+    @Setup
+    public void setUp(CacheBenchmark.Server server) {
+      // the server state is a parameter so it is set up first
+      MemcachedConfiguration configuration = MemcachedConfigurationBuilder.getInstance().parseConfiguration();
+      configuration.setPoolSize(poolSize);
+      client = new MemcachedClientWrapper("pool-" + poolSize, configuration);
+
+      result = TranscoderBenchmark.newResult(rows);
+      keys = new CacheKey[KEYS];
+      for (int i = 0; i < KEYS; i++) {
+        keys[i] = KeyBenchmark.newCacheKey(5);
+        keys[i].update(i);
+        client.putObject(keys[i], result, ID);
+      }
+    }
+
+    CacheKey randomKey() {
+      return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+    }
+
+  }
+
+  @Benchmark
+  public Object get(PooledClient state) {
+    return state.client.getObject(state.randomKey(), ID);
+  }
+
+  @Benchmark
+  public void put(PooledClient state) {
+    state.client.putObject(state.randomKey(), state.result, ID);
+  }
+
+}
@@ -0,0 +1,129 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+import net.spy.memcached.transcoders.Transcoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding and decoding of query results, as lists of rows, with the available transcoders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TranscoderBenchmark {
+
+  /**
+   * The number of rows of the result.
+   */
+  @Param({ "1", "100", "10000" })
+  public int rows;
+
+  /**
+   * The transcoder: the spymemcached default one, the GZIP one of the previous versions, or the serializer transcoder
+   * with the JDK or the binary serializer, compressed or not.
+   */
+  @Param({ "default", "compressor", "jdk-gzip", "binary", "binary-deflate" })
+  public String transcoderName;
+
+  private Transcoder<Object> transcoder;
+
+  private List<Map<String, Object>> result;
+
+  private CachedData encoded;
+
+  @Setup
+  public void setUp() {
+    transcoder = newTranscoder(transcoderName);
+    result = newResult(rows);
+    encoded = transcoder.encode(result);
+  }
+
+  @Benchmark
+  public CachedData encode() {
+    return transcoder.encode(result);
+  }
+
+  @Benchmark
+  public Object decode() {
+    return transcoder.decode(encoded);
+  }
+
+  static Transcoder<Object> newTranscoder(String name) {
+    switch (name) {
+      case "default":
+        return new SerializingTranscoder();
+      case "compressor":
+        return new CompressorTranscoder();
+      case "jdk-gzip":
+        return new SerializerTranscoder(new JdkSerializer(), CompressionCodec.GZIP, -1, 0);
+      case "binary":
+        return new SerializerTranscoder(new BinarySerializer(), null, -1, 0);
+      case "binary-deflate":
+        return new SerializerTranscoder(new BinarySerializer(), CompressionCodec.DEFLATE, 1, 1024);
+      default:
+        throw new IllegalArgumentException("Unknown transcoder " + name);
+    }
+  }
+
+  /**
+   * Builds a query result made of map rows.
+   *
+   * @param rows
+   *          the number of rows.
+   *
+   * @return the query result.
+   */
+  static List<Map<String, Object>> newResult(int rows) {
+    List<Map<String, Object>> result = new ArrayList<Map<String, Object>>(rows);
+    for (int i = 0; i < rows; i++) {
+      Map<String, Object> row = new HashMap<String, Object>();
+      row.put("id", (long) i);
+      row.put("name", "User " + i);
+      row.put("email", "user" + i + "@example.org");
+      row.put("balance", BigDecimal.valueOf(i * 100 + 42, 2));
+      row.put("active", i % 3 != 0);
+      row.put("created_at", new Date(1700000000000L + i * 1000L));
+      result.add(row);
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,861 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compact binary {@link Serializer}, much faster than the JDK serialization for the usual MyBatis results.
+ * <p>
+ * Strings, boxed primitives, numbers, dates, byte arrays and the common JDK collections are written with a one byte
+ * tag and variable length integers. Registered classes are written as their registration id followed by their field
+ * values, without any class descriptor: they need a no-arguments constructor, and every node sharing the cache must
+ * register the same classes in the same order, which is verified on read. Shared and cyclic references are preserved.
+ * Any other {@link Serializable} object is embedded with the JDK serialization, all of them through the same object
+ * stream, so the class descriptors and the references they share are written once per value.
+ */
+public final class BinarySerializer implements Serializer {
+
+  private static final int NULL = 0;
+  private static final int REFERENCE = 1;
+  private static final int STRING = 2;
+  private static final int INTEGER = 3;
+  private static final int LONG = 4;
+  private static final int DOUBLE = 5;
+  private static final int FLOAT = 6;
+  private static final int TRUE = 7;
+  private static final int FALSE = 8;
+  private static final int SHORT = 9;
+  private static final int BYTE = 10;
+  private static final int CHARACTER = 11;
+  private static final int BIG_DECIMAL = 12;
+  private static final int BIG_INTEGER = 13;
+  private static final int DATE = 14;
+  private static final int SQL_DATE = 15;
+  private static final int SQL_TIME = 16;
+  private static final int SQL_TIMESTAMP = 17;
+  private static final int BYTES = 18;
+  private static final int ARRAY_LIST = 19;
+  private static final int LINKED_LIST = 20;
+  private static final int HASH_MAP = 21;
+  private static final int LINKED_HASH_MAP = 22;
+  private static final int HASH_SET = 23;
+  private static final int LINKED_HASH_SET = 24;
+  private static final int OBJECT_ARRAY = 25;
+  private static final int ENUM = 26;
+  private static final int OBJECT = 27;
+  private static final int JAVA = 28;
+  private static final int JAVA_SEGMENT = 29;
+
+  /**
+   * The tags of the built in types, indexed by their exact class.
+   */
+  private static final Map<Class<?>, Integer> BUILT_IN_TAGS = new HashMap<Class<?>, Integer>();
+
+  static {
+    BUILT_IN_TAGS.put(String.class, STRING);
+    BUILT_IN_TAGS.put(Integer.class, INTEGER);
+    BUILT_IN_TAGS.put(Long.class, LONG);
+    BUILT_IN_TAGS.put(Double.class, DOUBLE);
+    BUILT_IN_TAGS.put(Float.class, FLOAT);
+    BUILT_IN_TAGS.put(Boolean.class, TRUE);
+    BUILT_IN_TAGS.put(Short.class, SHORT);
+    BUILT_IN_TAGS.put(Byte.class, BYTE);
+    BUILT_IN_TAGS.put(Character.class, CHARACTER);
+    BUILT_IN_TAGS.put(BigDecimal.class, BIG_DECIMAL);
+    BUILT_IN_TAGS.put(BigInteger.class, BIG_INTEGER);
+    BUILT_IN_TAGS.put(Date.class, DATE);
+    BUILT_IN_TAGS.put(java.sql.Date.class, SQL_DATE);
+    BUILT_IN_TAGS.put(java.sql.Time.class, SQL_TIME);
+    BUILT_IN_TAGS.put(java.sql.Timestamp.class, SQL_TIMESTAMP);
+    BUILT_IN_TAGS.put(byte[].class, BYTES);
+    BUILT_IN_TAGS.put(ArrayList.class, ARRAY_LIST);
+    BUILT_IN_TAGS.put(LinkedList.class, LINKED_LIST);
+    BUILT_IN_TAGS.put(HashMap.class, HASH_MAP);
+    BUILT_IN_TAGS.put(LinkedHashMap.class, LINKED_HASH_MAP);
+    BUILT_IN_TAGS.put(HashSet.class, HASH_SET);
+    BUILT_IN_TAGS.put(LinkedHashSet.class, LINKED_HASH_SET);
+    BUILT_IN_TAGS.put(Object[].class, OBJECT_ARRAY);
+  }
+
+  private final Map<Class<?>, RegisteredClass> registeredByType = new ConcurrentHashMap<Class<?>, RegisteredClass>();
+
+  private volatile RegisteredClass[] registeredById = new RegisteredClass[0];
+
+  /**
+   * The hash of the registered class names and layouts, written with every value to detect registration mismatches,
+   * including a registered class whose fields changed between two versions of the application.
+   */
+  private volatile int registrationHash = 1;
+
+  /**
+   * A registered class along with the way to rebuild its instances.
+   */
+  private static final class RegisteredClass {
+
+    final int id;
+
+    final Class<?> type;
+
+    final Object[] enumConstants;
+
+    final Constructor<?> constructor;
+
+    final Field[] fields;
+
+    RegisteredClass(int id, Class<?> type) {
+      this.id = id;
+      this.type = type;
+
+      if (type.isEnum()) {
+        enumConstants = type.getEnumConstants();
+        constructor = null;
+        fields = null;
+        return;
+      }
+
+      enumConstants = null;
+      try {
+        constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+      } catch (NoSuchMethodException e) {
+        throw new IllegalArgumentException(
+            "Class '" + type.getName() + "' can't be registered, it has no no-arguments constructor", e);
+      }
+
+      List<Field> serializedFields = new ArrayList<Field>();
+      List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+      for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+        hierarchy.add(0, current);
+      }
+      for (Class<?> current : hierarchy) {
+        Field[] declared = current.getDeclaredFields();
+        Arrays.sort(declared, Comparator.comparing(Field::getName));
+        for (Field field : declared) {
+          if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) == 0) {
+            field.setAccessible(true);
+            serializedFields.add(field);
+          }
+        }
+      }
+      fields = serializedFields.toArray(new Field[serializedFields.size()]);
+    }
+
+    /**
+     * @return the hash of the class name and layout: its constants for an enum, otherwise its serialized fields, in
+     *         order, with their declared types.
+     */
+    int layoutHash() {
+      int hash = type.getName().hashCode();
+      if (enumConstants != null) {
+        for (Object constant : enumConstants) {
+          hash = 31 * hash + ((Enum<?>) constant).name().hashCode();
+        }
+        return hash;
+      }
+      for (Field field : fields) {
+        hash = 31 * hash + field.getName().hashCode();
+        hash = 31 * hash + field.getGenericType().getTypeName().hashCode();
+      }
+      return hash;
+    }
+
+  }
+
+  /**
+   * Registers the classes whose instances are written without class descriptors; every node sharing the cache has to
+   * register the same classes in the same order.
+   *
+   * @param types
+   *          the classes to register, in order.
+   */
+  public synchronized void register(Collection<Class<?>> types) {
+    for (Class<?> type : types) {
+      register(type);
+    }
+  }
+
+  /**
+   * Registers a class whose instances are written without class descriptor; every node sharing the cache has to
+   * register the same classes in the same order.
+   *
+   * @param type
+   *          the class to register.
+   */
+  public synchronized void register(Class<?> type) {
+    if (registeredByType.containsKey(type)) {
+      return;
+    }
+    if (BUILT_IN_TAGS.containsKey(type)) {
+      throw new IllegalArgumentException("Class '" + type.getName() + "' is built in, it can't be registered");
+    }
+
+    RegisteredClass registered = new RegisteredClass(registeredById.length, type);
+    RegisteredClass[] byId = Arrays.copyOf(registeredById, registeredById.length + 1);
+    byId[registered.id] = registered;
+    registeredByType.put(type, registered);
+    registeredById = byId;
+    registrationHash = 31 * registrationHash + registered.layoutHash();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void serialize(Object object, OutputStream output) throws IOException {
+    Writer writer = new Writer(output);
+    writer.writeInt(registrationHash);
+    writer.write(object);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object deserialize(InputStream input) throws IOException, ClassNotFoundException {
+    // the lengths read are checked against the remaining bytes, known up front
+    Reader reader = new Reader(input instanceof ByteArrayInputStream ? (ByteArrayInputStream) input
+        : new ByteArrayInputStream(input.readAllBytes()));
+    if (reader.readInt() != registrationHash) {
+      throw new StreamCorruptedException(
+          "Value written with different registered classes, check the registrations of all the nodes");
+    }
+    return reader.read();
+  }
+
+  /**
+   * The state of a single object graph serialization.
+   */
+  private final class Writer {
+
+    private final OutputStream output;
+
+    private final Map<Object, Integer> references = new IdentityHashMap<Object, Integer>();
+
+    /**
+     * The bytes written by the JDK serialization since the last segment, null until the first JDK serialized object.
+     */
+    private GrowableBuffer javaBytes;
+
+    private ObjectOutputStream javaOutput;
+
+    Writer(OutputStream output) {
+      this.output = output;
+    }
+
+    void write(Object object) throws IOException {
+      if (object == null) {
+        output.write(NULL);
+        return;
+      }
+
+      Integer tag = BUILT_IN_TAGS.get(object.getClass());
+      if (tag != null) {
+        writeBuiltIn(tag, object);
+        return;
+      }
+
+      Class<?> type = object instanceof Enum ? ((Enum<?>) object).getDeclaringClass() : object.getClass();
+      RegisteredClass registered = registeredByType.get(type);
+      if (registered != null) {
+        if (registered.enumConstants != null) {
+          output.write(ENUM);
+          writeInt(registered.id);
+          writeInt(((Enum<?>) object).ordinal());
+        } else if (!writeReference(object)) {
+          output.write(OBJECT);
+          writeInt(registered.id);
+          writeFields(registered, object);
+        }
+        return;
+      }
+
+      if (!(object instanceof Serializable)) {
+        throw new NotSerializableException(object.getClass().getName());
+      }
+      if (!writeReference(object)) {
+        writeJava(object);
+      }
+    }
+
+    /**
+     * Writes an object with the JDK serialization, as the segment of the value's single object stream holding it.
+     */
+    private void writeJava(Object object) throws IOException {
+      if (javaOutput == null) {
+        javaBytes = new GrowableBuffer();
+        javaOutput = new ObjectOutputStream(javaBytes);
+      }
+      javaOutput.writeObject(object);
+      javaOutput.flush();
+      output.write(JAVA_SEGMENT);
+      writeVarInt(javaBytes.size());
+      output.write(javaBytes.array(), 0, javaBytes.size());
+      javaBytes.reset();
+    }
+
+    private void writeBuiltIn(int tag, Object object) throws IOException {
+      switch (tag) {
+        case STRING:
+          output.write(STRING);
+          writeString((String) object);
+          break;
+        case INTEGER:
+          output.write(INTEGER);
+          writeInt((Integer) object);
+          break;
+        case LONG:
+          output.write(LONG);
+          writeLong((Long) object);
+          break;
+        case DOUBLE:
+          output.write(DOUBLE);
+          writeFixed(Double.doubleToRawLongBits((Double) object), 8);
+          break;
+        case FLOAT:
+          output.write(FLOAT);
+          writeFixed(Float.floatToRawIntBits((Float) object), 4);
+          break;
+        case TRUE:
+          output.write((Boolean) object ? TRUE : FALSE);
+          break;
+        case SHORT:
+          output.write(SHORT);
+          writeInt((Short) object);
+          break;
+        case BYTE:
+          output.write(BYTE);
+          output.write((Byte) object);
+          break;
+        case CHARACTER:
+          output.write(CHARACTER);
+          writeInt((Character) object);
+          break;
+        case BIG_DECIMAL:
+          output.write(BIG_DECIMAL);
+          writeInt(((BigDecimal) object).scale());
+          writeBytes(((BigDecimal) object).unscaledValue().toByteArray());
+          break;
+        case BIG_INTEGER:
+          output.write(BIG_INTEGER);
+          writeBytes(((BigInteger) object).toByteArray());
+          break;
+        case DATE:
+        case SQL_DATE:
+        case SQL_TIME:
+          output.write(tag);
+          writeLong(((Date) object).getTime());
+          break;
+        case SQL_TIMESTAMP:
+          output.write(SQL_TIMESTAMP);
+          writeLong(((java.sql.Timestamp) object).getTime());
+          writeInt(((java.sql.Timestamp) object).getNanos());
+          break;
+        case BYTES:
+          output.write(BYTES);
+          writeBytes((byte[]) object);
+          break;
+        case ARRAY_LIST:
+        case LINKED_LIST:
+        case HASH_SET:
+        case LINKED_HASH_SET:
+          if (!writeReference(object)) {
+            Collection<?> collection = (Collection<?>) object;
+            output.write(tag);
+            writeInt(collection.size());
+            for (Object element : collection) {
+              write(element);
+            }
+          }
+          break;
+        case HASH_MAP:
+        case LINKED_HASH_MAP:
+          if (!writeReference(object)) {
+            Map<?, ?> map = (Map<?, ?>) object;
+            output.write(tag);
+            writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+              write(entry.getKey());
+              write(entry.getValue());
+            }
+          }
+          break;
+        case OBJECT_ARRAY:
+          if (!writeReference(object)) {
+            Object[] array = (Object[]) object;
+            output.write(OBJECT_ARRAY);
+            writeInt(array.length);
+            for (Object element : array) {
+              write(element);
+            }
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unknown tag " + tag);
+      }
+    }
+
+    private void writeFields(RegisteredClass registered, Object object) throws IOException {
+      try {
+        for (Field field : registered.fields) {
+          Class<?> fieldType = field.getType();
+          if (!fieldType.isPrimitive()) {
+            write(field.get(object));
+          } else if (fieldType == int.class) {
+            writeInt(field.getInt(object));
+          } else if (fieldType == long.class) {
+            writeLong(field.getLong(object));
+          } else if (fieldType == boolean.class) {
+            output.write(field.getBoolean(object) ? 1 : 0);
+          } else if (fieldType == double.class) {
+            writeFixed(Double.doubleToRawLongBits(field.getDouble(object)), 8);
+          } else if (fieldType == float.class) {
+            writeFixed(Float.floatToRawIntBits(field.getFloat(object)), 4);
+          } else if (fieldType == short.class) {
+            writeInt(field.getShort(object));
+          } else if (fieldType == byte.class) {
+            output.write(field.getByte(object));
+          } else {
+            writeInt(field.getChar(object));
+          }
+        }
+      } catch (IllegalAccessException e) {
+        throw new IOException("Impossible to read the fields of '" + registered.type.getName() + "'", e);
+      }
+    }
+
+    /**
+     * Writes a back reference to an object already written, or records its position.
+     *
+     * @return true if a reference was written.
+     */
+    private boolean writeReference(Object object) throws IOException {
+      Integer index = references.get(object);
+      if (index != null) {
+        output.write(REFERENCE);
+        writeInt(index);
+        return true;
+      }
+      references.put(object, references.size());
+      return false;
+    }
+
+    private void writeString(String string) throws IOException {
+      int length = string.length();
+      writeInt(length);
+      for (int i = 0; i < length; i++) {
+        writeVarInt(string.charAt(i));
+      }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+      writeVarInt(bytes.length);
+      output.write(bytes);
+    }
+
+    void writeInt(int value) throws IOException {
+      writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    private void writeVarInt(int value) throws IOException {
+      while ((value & ~0x7F) != 0) {
+        output.write((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      output.write(value);
+    }
+
+    private void writeLong(long value) throws IOException {
+      long zigZag = (value << 1) ^ (value >> 63);
+      while ((zigZag & ~0x7FL) != 0) {
+        output.write((int) (zigZag & 0x7F) | 0x80);
+        zigZag >>>= 7;
+      }
+      output.write((int) zigZag);
+    }
+
+    private void writeFixed(long value, int length) throws IOException {
+      for (int shift = (length - 1) * 8; shift >= 0; shift -= 8) {
+        output.write((int) (value >>> shift));
+      }
+    }
+
+  }
+
+  /**
+   * The state of a single object graph deserialization.
+   */
+  private final class Reader {
+
+    private final ByteArrayInputStream input;
+
+    private final List<Object> references = new ArrayList<Object>();
+
+    /**
+     * The segments of the value's JDK serialization, null until the first one.
+     */
+    private Segments javaSegments;
+
+    private ObjectInputStream javaInput;
+
+    Reader(ByteArrayInputStream input) {
+      this.input = input;
+    }
+
+    Object read() throws IOException, ClassNotFoundException {
+      int tag = readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case REFERENCE:
+          int index = readInt();
+          if (index < 0 || index >= references.size()) {
+            throw new StreamCorruptedException("Unknown reference " + index);
+          }
+          return references.get(index);
+        case STRING:
+          return readString();
+        case INTEGER:
+          return readInt();
+        case LONG:
+          return readLong();
+        case DOUBLE:
+          return Double.longBitsToDouble(readFixed(8));
+        case FLOAT:
+          return Float.intBitsToFloat((int) readFixed(4));
+        case TRUE:
+          return Boolean.TRUE;
+        case FALSE:
+          return Boolean.FALSE;
+        case SHORT:
+          return (short) readInt();
+        case BYTE:
+          return (byte) readByte();
+        case CHARACTER:
+          return (char) readInt();
+        case BIG_DECIMAL:
+          int scale = readInt();
+          return new BigDecimal(new BigInteger(readBytes()), scale);
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case DATE:
+          return new Date(readLong());
+        case SQL_DATE:
+          return new java.sql.Date(readLong());
+        case SQL_TIME:
+          return new java.sql.Time(readLong());
+        case SQL_TIMESTAMP:
+          java.sql.Timestamp timestamp = new java.sql.Timestamp(readLong());
+          timestamp.setNanos(readInt());
+          return timestamp;
+        case BYTES:
+          return readBytes();
+        case ARRAY_LIST:
+          int size = readLength(readInt());
+          return readElements(new ArrayList<Object>(size), size);
+        case LINKED_LIST:
+          return readElements(new LinkedList<Object>(), readLength(readInt()));
+        case HASH_SET:
+          size = readLength(readInt());
+          return readElements(new HashSet<Object>(capacity(size)), size);
+        case LINKED_HASH_SET:
+          size = readLength(readInt());
+          return readElements(new LinkedHashSet<Object>(capacity(size)), size);
+        case HASH_MAP:
+          size = readLength(readInt());
+          return readEntries(new HashMap<Object, Object>(capacity(size)), size);
+        case LINKED_HASH_MAP:
+          size = readLength(readInt());
+          return readEntries(new LinkedHashMap<Object, Object>(capacity(size)), size);
+        case OBJECT_ARRAY:
+          Object[] array = new Object[readLength(readInt())];
+          references.add(array);
+          for (int i = 0; i < array.length; i++) {
+            array[i] = read();
+          }
+          return array;
+        case ENUM:
+          RegisteredClass enumType = registered(readInt());
+          int ordinal = readInt();
+          if (enumType.enumConstants == null || ordinal < 0 || ordinal >= enumType.enumConstants.length) {
+            throw new StreamCorruptedException("Unknown constant " + ordinal + " of '" + enumType.type.getName() + "'");
+          }
+          return enumType.enumConstants[ordinal];
+        case OBJECT:
+          RegisteredClass objectType = registered(readInt());
+          if (objectType.constructor == null) {
+            throw new StreamCorruptedException("Enum '" + objectType.type.getName() + "' written as an object");
+          }
+          return readObject(objectType);
+        case JAVA:
+          // written before the JDK serialized objects shared a stream, each with its own one
+          ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes()));
+          Object object = ois.readObject();
+          references.add(object);
+          return object;
+        case JAVA_SEGMENT:
+          object = readJava();
+          references.add(object);
+          return object;
+        default:
+          throw new StreamCorruptedException("Unknown tag " + tag);
+      }
+    }
+
+    private Collection<Object> readElements(Collection<Object> collection, int size)
+        throws IOException, ClassNotFoundException {
+      references.add(collection);
+      for (int i = 0; i < size; i++) {
+        collection.add(read());
+      }
+      return collection;
+    }
+
+    private Map<Object, Object> readEntries(Map<Object, Object> map, int size)
+        throws IOException, ClassNotFoundException {
+      references.add(map);
+      for (int i = 0; i < size; i++) {
+        map.put(read(), read());
+      }
+      return map;
+    }
+
+    private Object readObject(RegisteredClass registered) throws IOException, ClassNotFoundException {
+      Object object;
+      try {
+        object = registered.constructor.newInstance();
+      } catch (Exception e) {
+        throw new IOException("Impossible to instantiate '" + registered.type.getName() + "'", e);
+      }
+      references.add(object);
+
+      try {
+        for (Field field : registered.fields) {
+          Class<?> fieldType = field.getType();
+          if (!fieldType.isPrimitive()) {
+            field.set(object, read());
+          } else if (fieldType == int.class) {
+            field.setInt(object, readInt());
+          } else if (fieldType == long.class) {
+            field.setLong(object, readLong());
+          } else if (fieldType == boolean.class) {
+            field.setBoolean(object, readByte() != 0);
+          } else if (fieldType == double.class) {
+            field.setDouble(object, Double.longBitsToDouble(readFixed(8)));
+          } else if (fieldType == float.class) {
+            field.setFloat(object, Float.intBitsToFloat((int) readFixed(4)));
+          } else if (fieldType == short.class) {
+            field.setShort(object, (short) readInt());
+          } else if (fieldType == byte.class) {
+            field.setByte(object, (byte) readByte());
+          } else {
+            field.setChar(object, (char) readInt());
+          }
+        }
+      } catch (IllegalAccessException e) {
+        throw new IOException("Impossible to write the fields of '" + registered.type.getName() + "'", e);
+      }
+      return object;
+    }
+
+    private RegisteredClass registered(int id) throws StreamCorruptedException {
+      RegisteredClass[] byId = registeredById;
+      if (id < 0 || id >= byId.length) {
+        throw new StreamCorruptedException("Unknown registered class id " + id);
+      }
+      return byId[id];
+    }
+
+    /**
+     * Reads an object written with the JDK serialization, from the segment holding it in the value's object stream.
+     */
+    private Object readJava() throws IOException, ClassNotFoundException {
+      byte[] segment = readBytes();
+      if (javaInput == null) {
+        javaSegments = new Segments(segment);
+        javaInput = new ObjectInputStream(javaSegments);
+      } else {
+        javaSegments.next(segment);
+      }
+      return javaInput.readObject();
+    }
+
+    private String readString() throws IOException {
+      int length = readLength(readInt());
+      char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        chars[i] = (char) readVarInt();
+      }
+      return new String(chars);
+    }
+
+    private byte[] readBytes() throws IOException {
+      byte[] bytes = new byte[readLength(readVarInt())];
+      int read = 0;
+      while (read < bytes.length) {
+        int count = input.read(bytes, read, bytes.length - read);
+        if (count < 0) {
+          throw new EOFException();
+        }
+        read += count;
+      }
+      return bytes;
+    }
+
+    /**
+     * Checks a length read against the remaining input, every element taking at least one byte, so a corrupted value
+     * fails instead of allocating an arbitrary amount of memory.
+     */
+    private int readLength(int length) throws StreamCorruptedException {
+      if (length < 0 || length > input.available()) {
+        throw new StreamCorruptedException("Invalid length " + length + ", " + input.available() + " bytes left");
+      }
+      return length;
+    }
+
+    int readInt() throws IOException {
+      int zigZag = readVarInt();
+      return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private int readVarInt() throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        int b = readByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new StreamCorruptedException("Malformed variable length integer");
+    }
+
+    private long readLong() throws IOException {
+      long zigZag = 0;
+      for (int shift = 0; shift < 70; shift += 7) {
+        int b = readByte();
+        zigZag |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+      }
+      throw new StreamCorruptedException("Malformed variable length long");
+    }
+
+    private long readFixed(int length) throws IOException {
+      long value = 0;
+      for (int i = 0; i < length; i++) {
+        value = (value << 8) | readByte();
+      }
+      return value;
+    }
+
+    private int readByte() throws IOException {
+      int b = input.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      return b;
+    }
+
+  }
+
+  /**
+   * The JDK serialization of a value, fed to its object stream one segment at a time.
+   */
+  private static final class Segments extends InputStream {
+
+    private byte[] segment;
+
+    private int position;
+
+    Segments(byte[] segment) {
+      this.segment = segment;
+    }
+
+    void next(byte[] segment) {
+      this.segment = segment;
+      this.position = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() {
+      return position < segment.length ? segment[position++] & 0xFF : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      int count = Math.min(length, segment.length - position);
+      if (count <= 0) {
+        return -1;
+      }
+      System.arraycopy(segment, position, bytes, offset, count);
+      position += count;
+      return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() {
+      return segment.length - position;
+    }
+
+  }
+
+  private static int capacity(int size) {
+    return Math.max((int) (size / .75f) + 1, 16);
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2012-2022 the original author or authors.
+ *    Copyright 2012-2026 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -41,6 +41,10 @@ final class BooleanPropertySetter extends AbstractPropertySetter<Boolean> {
    */
   @Override
   protected Boolean convert(String property) throws Exception {
+    // Boolean.valueOf(null) is false, which would hide a true default
+    if (property == null) {
+      return null;
+    }
     return Boolean.valueOf(property);
   }
 
@@ -0,0 +1,87 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of reusable instances, shared by all the threads: an instance is created when none is idle, and an
+ * instance released while the pool is full is disposed of, so the number of instances kept does not grow with the
+ * number of threads.
+ *
+ * @param <T>
+ *          the type of the pooled instances.
+ */
+final class BoundedPool<T> {
+
+  /**
+   * The default number of idle instances kept, enough for every processor to compress or serialize at once.
+   */
+  static final int DEFAULT_CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+
+  private final BlockingQueue<T> idle;
+
+  private final Supplier<T> factory;
+
+  private final Consumer<T> disposer;
+
+  /**
+   * Instantiates a pool.
+   *
+   * @param capacity
+   *          the maximum number of idle instances kept.
+   * @param factory
+   *          creates the instances.
+   * @param disposer
+   *          releases the resources of the instances not kept.
+   */
+  BoundedPool(int capacity, Supplier<T> factory, Consumer<T> disposer) {
+    this.idle = new ArrayBlockingQueue<T>(capacity);
+    this.factory = factory;
+    this.disposer = disposer;
+  }
+
+  /**
+   * @return an idle instance, or a new one if none is idle.
+   */
+  T acquire() {
+    T instance = idle.poll();
+    return instance != null ? instance : factory.get();
+  }
+
+  /**
+   * Gives an instance back to the pool, or disposes of it if the pool is full.
+   *
+   * @param instance
+   *          the instance, ready to be reused.
+   */
+  void release(T instance) {
+    if (!idle.offer(instance)) {
+      disposer.accept(instance);
+    }
+  }
+
+  /**
+   * @return the number of idle instances.
+   */
+  int idle() {
+    return idle.size();
+  }
+
+}
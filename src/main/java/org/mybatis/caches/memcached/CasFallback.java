@@ -0,0 +1,39 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+/**
+ * What to do when the group of a cache id can't be updated within the CAS retry attempts.
+ */
+enum CasFallback {
+
+  /**
+   * Deletes the entries just stored, so no entry escapes the group; they are simply missing from the cache.
+   */
+  DELETE_ENTRY,
+
+  /**
+   * Deletes the entries just stored and every entry of the last read group, as if the cache was cleared; the group is
+   * kept, so the entries concurrently added to it are still tracked.
+   */
+  INVALIDATE_GROUP,
+
+  /**
+   * Leaves the entries just stored out of the group: they are not deleted when the cache is cleared, but still expire.
+   */
+  IGNORE
+
+}
@@ -0,0 +1,104 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides whether and when a group update rejected by a concurrent CAS is retried.
+ * <p>
+ * The retries wait an exponentially growing backoff with full jitter, so the contending writers spread out instead of
+ * re-reading and re-writing the group in lockstep.
+ */
+final class CasRetryPolicy {
+
+  private final int maximumAttempts;
+
+  private final long initialBackoffNanos;
+
+  private final long maximumBackoffNanos;
+
+  private final CasFallback fallback;
+
+  /**
+   * Builds a new retry policy.
+   *
+   * @param maximumAttempts
+   *          the maximum number of attempts, 0 for unlimited.
+   * @param initialBackoff
+   *          the maximum wait, in milliseconds, before the first retry, 0 to retry immediately.
+   * @param maximumBackoff
+   *          the maximum wait, in milliseconds, before any retry.
+   * @param fallback
+   *          what to do once the attempts are exhausted.
+   */
+  CasRetryPolicy(int maximumAttempts, int initialBackoff, int maximumBackoff, CasFallback fallback) {
+    this.maximumAttempts = maximumAttempts;
+    this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(initialBackoff);
+    this.maximumBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maximumBackoff);
+    this.fallback = fallback;
+  }
+
+  CasFallback getFallback() {
+    return fallback;
+  }
+
+  /**
+   * @param attempts
+   *          the number of attempts already made.
+   *
+   * @return true if another attempt is allowed.
+   */
+  boolean canRetry(int attempts) {
+    return maximumAttempts <= 0 || attempts < maximumAttempts;
+  }
+
+  /**
+   * Computes the wait before a retry: a random duration up to the initial backoff doubled for each failed attempt,
+   * capped to the maximum backoff.
+   *
+   * @param attempts
+   *          the number of attempts already made.
+   *
+   * @return the wait, in nanoseconds.
+   */
+  long backoffNanos(int attempts) {
+    if (initialBackoffNanos <= 0) {
+      return 0;
+    }
+    long ceiling = initialBackoffNanos << Math.min(attempts - 1, 30);
+    if (ceiling <= 0 || ceiling > maximumBackoffNanos) {
+      ceiling = maximumBackoffNanos;
+    }
+    return ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+
+  /**
+   * Waits before a retry.
+   *
+   * @param attempts
+   *          the number of attempts already made.
+   */
+  void backoff(int attempts) {
+    long wait = backoffNanos(attempts);
+    if (wait > 0) {
+      LockSupport.parkNanos(wait);
+    }
+  }
+
+}
@@ -0,0 +1,244 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.Transcoder;
+
+/**
+ * The Transcoder that decodes the manifests of the values split in chunks, leaving the other values to another one.
+ * <p>
+ * A value whose encoded form exceeds the chunk size is stored as chunks under keys derived from its own, and its key
+ * holds a small manifest, marked by its own bit in the stored flags, recording the number of chunks, the flags of the
+ * encoded value and its checksum. The chunks are stored as is through {@link #RAW}, and decoded once reassembled.
+ */
+final class ChunkedTranscoder implements Transcoder<Object> {
+
+  /**
+   * The chunked value manifest flag.
+   */
+  static final int CHUNKED = 0x80;
+
+  /**
+   * Stores and retrieves already encoded data as is.
+   */
+  static final Transcoder<CachedData> RAW = new Transcoder<CachedData>() {
+
+    @Override
+    public boolean asyncDecode(CachedData cachedData) {
+      return false;
+    }
+
+    @Override
+    public CachedData encode(CachedData cachedData) {
+      return cachedData;
+    }
+
+    @Override
+    public CachedData decode(CachedData cachedData) {
+      return cachedData;
+    }
+
+    @Override
+    public int getMaxSize() {
+      return CachedData.MAX_SIZE;
+    }
+
+  };
+
+  private static final int MANIFEST_SIZE = 4 * Integer.BYTES;
+
+  private final Transcoder<Object> delegate;
+
+  ChunkedTranscoder(Transcoder<Object> delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean asyncDecode(final CachedData cachedData) {
+    return delegate.asyncDecode(cachedData);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object decode(final CachedData cachedData) {
+    if ((cachedData.getFlags() & CHUNKED) == 0) {
+      return delegate.decode(cachedData);
+    }
+
+    ByteBuffer manifest = ByteBuffer.wrap(cachedData.getData());
+    return new Manifest(manifest.getInt(), manifest.getInt(), manifest.getInt(), manifest.getInt());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CachedData encode(final Object object) {
+    if (!(object instanceof Manifest)) {
+      return delegate.encode(object);
+    }
+
+    Manifest manifest = (Manifest) object;
+    byte[] data = ByteBuffer.allocate(MANIFEST_SIZE).putInt(manifest.chunks).putInt(manifest.flags)
+        .putInt(manifest.length).putInt(manifest.checksum).array();
+    return new CachedData(CHUNKED, data, getMaxSize());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getMaxSize() {
+    return delegate.getMaxSize();
+  }
+
+  /**
+   * Splits an encoded value in chunks.
+   *
+   * @param cachedData
+   *          the encoded value.
+   * @param chunkSize
+   *          the maximum size of a chunk, in bytes.
+   *
+   * @return the chunks.
+   */
+  static CachedData[] split(CachedData cachedData, int chunkSize) {
+    byte[] data = cachedData.getData();
+    CachedData[] chunks = new CachedData[(data.length + chunkSize - 1) / chunkSize];
+    for (int i = 0; i < chunks.length; i++) {
+      chunks[i] = new CachedData(0, Arrays.copyOfRange(data, i * chunkSize, Math.min(data.length, (i + 1) * chunkSize)),
+          CachedData.MAX_SIZE);
+    }
+    return chunks;
+  }
+
+  /**
+   * Derives the key of a chunk from the key of the value.
+   *
+   * @param keyString
+   *          the value key.
+   * @param chunk
+   *          the chunk index.
+   *
+   * @return the chunk key.
+   */
+  static String toChunkKeyString(String keyString, int chunk) {
+    return keyString + '/' + chunk;
+  }
+
+  private static int checksum(byte[] data) {
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * The description of a value split in chunks.
+   */
+  static final class Manifest {
+
+    private final int chunks;
+
+    private final int flags;
+
+    private final int length;
+
+    private final int checksum;
+
+    Manifest(int chunks, int flags, int length, int checksum) {
+      this.chunks = chunks;
+      this.flags = flags;
+      this.length = length;
+      this.checksum = checksum;
+    }
+
+    /**
+     * Describes an encoded value.
+     *
+     * @param cachedData
+     *          the encoded value.
+     * @param chunkSize
+     *          the maximum size of a chunk, in bytes.
+     */
+    Manifest(CachedData cachedData, int chunkSize) {
+      this((cachedData.getData().length + chunkSize - 1) / chunkSize, cachedData.getFlags(),
+          cachedData.getData().length, checksum(cachedData.getData()));
+    }
+
+    /**
+     * @param keyString
+     *          the value key.
+     *
+     * @return the keys of the chunks.
+     */
+    String[] toChunkKeyStrings(String keyString) {
+      String[] keyStrings = new String[chunks];
+      for (int i = 0; i < chunks; i++) {
+        keyStrings[i] = toChunkKeyString(keyString, i);
+      }
+      return keyStrings;
+    }
+
+    /**
+     * Reassembles the encoded value from its chunks.
+     *
+     * @param keyString
+     *          the value key.
+     * @param retrieved
+     *          the retrieved chunks, indexed by key.
+     *
+     * @return the encoded value, null if a chunk is missing or belongs to another version of the value.
+     */
+    CachedData assemble(String keyString, Map<String, CachedData> retrieved) {
+      byte[] data = new byte[length];
+      int offset = 0;
+      for (int i = 0; i < chunks; i++) {
+        CachedData chunk = retrieved.get(toChunkKeyString(keyString, i));
+        if (chunk == null || offset + chunk.getData().length > length) {
+          return null;
+        }
+        System.arraycopy(chunk.getData(), 0, data, offset, chunk.getData().length);
+        offset += chunk.getData().length;
+      }
+
+      if (offset != length || checksum(data) != checksum) {
+        return null;
+      }
+      return new CachedData(flags, data, CachedData.MAX_SIZE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+      return "Manifest [chunks=" + chunks + ", length=" + length + "]";
+    }
+
+  }
+
+}
@@ -0,0 +1,184 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Stops sending operations to a Memcached client after consecutive failures or slow calls, so a cache outage costs
+ * cache misses rather than timeouts.
+ * <p>
+ * Once open, the operations are rejected for the cool down period; then a single probe operation is let through, half
+ * open: its success closes the circuit, its failure opens it again for another cool down period.
+ */
+final class CircuitBreaker {
+
+  /**
+   * This class log.
+   */
+  private static final Log LOG = LogFactory.getLog(CircuitBreaker.class);
+
+  /**
+   * The circuit states.
+   */
+  enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final String name;
+
+  private final int failureThreshold;
+
+  private final long slowCallNanos;
+
+  private final long coolDownNanos;
+
+  private final LongSupplier clock;
+
+  private final AtomicReference<State> state = new AtomicReference<State>(State.CLOSED);
+
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+  private final LongAdder openings = new LongAdder();
+
+  private final LongAdder rejections = new LongAdder();
+
+  /**
+   * The {@link System#nanoTime()} of the last transition to open, or of the last probe let through.
+   */
+  private volatile long changedAt;
+
+  /**
+   * The {@link System#nanoTime()} of the last transition to open: the operations started since are probes.
+   */
+  private volatile long openedAt;
+
+  /**
+   * Builds a new circuit breaker.
+   *
+   * @param name
+   *          the client name, for the logs.
+   * @param failureThreshold
+   *          the number of consecutive failures opening the circuit.
+   * @param slowCall
+   *          the duration, in milliseconds, above which a successful call counts as a failure, 0 to disable.
+   * @param coolDown
+   *          the time, in milliseconds, the circuit stays open before probing the client again.
+   */
+  CircuitBreaker(String name, int failureThreshold, int slowCall, int coolDown) {
+    this(name, failureThreshold, slowCall, coolDown, System::nanoTime);
+  }
+
+  CircuitBreaker(String name, int failureThreshold, int slowCall, int coolDown, LongSupplier clock) {
+    this.name = name;
+    this.failureThreshold = failureThreshold;
+    this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCall);
+    this.coolDownNanos = TimeUnit.MILLISECONDS.toNanos(coolDown);
+    this.clock = clock;
+  }
+
+  /**
+   * Tells whether an operation can be sent: always when closed, never when open, except once the cool down period
+   * elapsed, when the caller becomes the probe. The caller has to report the outcome of the operations it sends.
+   *
+   * @return true if the operation can be sent.
+   */
+  boolean allowRequest() {
+    State current = state.get();
+    if (current == State.CLOSED) {
+      return true;
+    }
+
+    // a probe is let through per cool down period, in case the previous one never reported back
+    long now = clock.getAsLong();
+    if (now - changedAt >= coolDownNanos && state.compareAndSet(current, State.HALF_OPEN)) {
+      changedAt = now;
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Probing Memcached client '" + name + "'");
+      }
+      return true;
+    }
+
+    rejections.increment();
+    return false;
+  }
+
+  /**
+   * Reports a successful operation, counted as a failure if slower than the slow call threshold.
+   *
+   * @param startNanos
+   *          the {@link System#nanoTime()} the operation started at.
+   */
+  void recordSuccess(long startNanos) {
+    // the operations sent before the circuit opened and completing late neither close nor open it again, only the
+    // probes do
+    if (state.get() != State.CLOSED && startNanos - openedAt < 0) {
+      return;
+    }
+    if (slowCallNanos > 0 && clock.getAsLong() - startNanos > slowCallNanos) {
+      recordFailure();
+      return;
+    }
+
+    consecutiveFailures.set(0);
+    if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+      LOG.warn("Memcached client '" + name + "' recovered, closing its circuit");
+    }
+  }
+
+  /**
+   * Reports a failed operation.
+   */
+  void recordFailure() {
+    State current = state.get();
+    if (current == State.HALF_OPEN) {
+      open(current);
+    } else if (current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+      open(current);
+    }
+  }
+
+  private void open(State from) {
+    if (state.compareAndSet(from, State.OPEN)) {
+      changedAt = clock.getAsLong();
+      openedAt = changedAt;
+      consecutiveFailures.set(0);
+      openings.increment();
+      LOG.warn("Memcached client '" + name + "' is failing, bypassing it for "
+          + TimeUnit.NANOSECONDS.toMillis(coolDownNanos) + "ms");
+    }
+  }
+
+  State getState() {
+    return state.get();
+  }
+
+  long getOpenings() {
+    return openings.sum();
+  }
+
+  long getRejections() {
+    return rejections.sum();
+  }
+
+}
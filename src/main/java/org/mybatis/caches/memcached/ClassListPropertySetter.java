@@ -0,0 +1,54 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Setter from a comma separated String of class names to List&lt;Class&gt; representation.
+ */
+final class ClassListPropertySetter extends AbstractPropertySetter<List<Class<?>>> {
+
+  /**
+   * Instantiates a String to List&lt;Class&gt; setter.
+   *
+   * @param propertyKey
+   *          the Config property key.
+   * @param propertyName
+   *          the {@link MemcachedConfiguration} property name.
+   */
+  public ClassListPropertySetter(final String propertyKey, final String propertyName) {
+    super(propertyKey, propertyName, Collections.<Class<?>> emptyList());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected List<Class<?>> convert(String property) throws Exception {
+    List<Class<?>> classes = new ArrayList<Class<?>>();
+    for (String className : property.split(",")) {
+      className = className.trim();
+      if (className.length() > 0) {
+        classes.add(Class.forName(className));
+      }
+    }
+    return Collections.unmodifiableList(classes);
+  }
+
+}
@@ -0,0 +1,203 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters and latencies of the operations of a Memcached client, whatever the cache id.
+ */
+final class ClientStatistics implements ClientStatisticsMBean {
+
+  private final LongAdder timeouts = new LongAdder();
+
+  private final LongAdder errors = new LongAdder();
+
+  private final LongAdder bytesRead = new LongAdder();
+
+  private final LongAdder bytesWritten = new LongAdder();
+
+  private final LatencyHistogram retrieveLatency = new LatencyHistogram();
+
+  private final LatencyHistogram storeLatency = new LatencyHistogram();
+
+  private final LatencyHistogram addLatency = new LatencyHistogram();
+
+  private volatile WriteBehind writeBehind;
+
+  private volatile CircuitBreaker circuitBreaker;
+
+  void setWriteBehind(WriteBehind writeBehind) {
+    this.writeBehind = writeBehind;
+  }
+
+  void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  void retrieved(long startNanos) {
+    retrieveLatency.recordSince(startNanos);
+  }
+
+  void stored(long startNanos) {
+    storeLatency.recordSince(startNanos);
+  }
+
+  void added(long startNanos) {
+    addLatency.recordSince(startNanos);
+  }
+
+  void read(int bytes) {
+    bytesRead.add(bytes);
+  }
+
+  void written(int bytes) {
+    bytesWritten.add(bytes);
+  }
+
+  /**
+   * Counts a failed operation.
+   *
+   * @param cause
+   *          the failure.
+   */
+  void failed(Throwable cause) {
+    (cause instanceof TimeoutException || cause.getCause() instanceof TimeoutException ? timeouts : errors)
+        .increment();
+  }
+
+  @Override
+  public long getRetrieves() {
+    return retrieveLatency.getCount();
+  }
+
+  @Override
+  public long getStores() {
+    return storeLatency.getCount();
+  }
+
+  @Override
+  public long getAdds() {
+    return addLatency.getCount();
+  }
+
+  @Override
+  public long getTimeouts() {
+    return timeouts.sum();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return bytesWritten.sum();
+  }
+
+  @Override
+  public long getRetrieveLatencyP50() {
+    return retrieveLatency.getPercentileMicros(50);
+  }
+
+  @Override
+  public long getRetrieveLatencyP99() {
+    return retrieveLatency.getPercentileMicros(99);
+  }
+
+  @Override
+  public long getRetrieveLatencyP999() {
+    return retrieveLatency.getPercentileMicros(99.9);
+  }
+
+  @Override
+  public long getStoreLatencyP50() {
+    return storeLatency.getPercentileMicros(50);
+  }
+
+  @Override
+  public long getStoreLatencyP99() {
+    return storeLatency.getPercentileMicros(99);
+  }
+
+  @Override
+  public long getStoreLatencyP999() {
+    return storeLatency.getPercentileMicros(99.9);
+  }
+
+  @Override
+  public long getAddLatencyP50() {
+    return addLatency.getPercentileMicros(50);
+  }
+
+  @Override
+  public long getAddLatencyP99() {
+    return addLatency.getPercentileMicros(99);
+  }
+
+  @Override
+  public long getAddLatencyP999() {
+    return addLatency.getPercentileMicros(99.9);
+  }
+
+  @Override
+  public int getWriteBehindQueueDepth() {
+    WriteBehind current = writeBehind;
+    return current == null ? 0 : current.getQueueDepth();
+  }
+
+  @Override
+  public long getWriteBehindDropped() {
+    WriteBehind current = writeBehind;
+    return current == null ? 0 : current.getDroppedCount();
+  }
+
+  @Override
+  public String getCircuitState() {
+    CircuitBreaker current = circuitBreaker;
+    return current == null ? "DISABLED" : current.getState().name();
+  }
+
+  @Override
+  public long getCircuitOpenings() {
+    CircuitBreaker current = circuitBreaker;
+    return current == null ? 0 : current.getOpenings();
+  }
+
+  @Override
+  public long getCircuitRejections() {
+    CircuitBreaker current = circuitBreaker;
+    return current == null ? 0 : current.getRejections();
+  }
+
+  @Override
+  public void reset() {
+    for (LongAdder counter : new LongAdder[] { timeouts, errors, bytesRead, bytesWritten }) {
+      counter.reset();
+    }
+    for (LatencyHistogram histogram : new LatencyHistogram[] { retrieveLatency, storeLatency, addLatency }) {
+      histogram.reset();
+    }
+  }
+
+}
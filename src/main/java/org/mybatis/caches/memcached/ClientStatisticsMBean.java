@@ -0,0 +1,133 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+/**
+ * The JMX view of the operations of a Memcached client.
+ */
+public interface ClientStatisticsMBean {
+
+  /**
+   * @return the number of objects read.
+   */
+  long getRetrieves();
+
+  /**
+   * @return the number of objects written.
+   */
+  long getStores();
+
+  /**
+   * @return the number of groups created.
+   */
+  long getAdds();
+
+  /**
+   * @return the number of operations timed out.
+   */
+  long getTimeouts();
+
+  /**
+   * @return the number of operations failed for other reasons.
+   */
+  long getErrors();
+
+  /**
+   * @return the number of serialized bytes read.
+   */
+  long getBytesRead();
+
+  /**
+   * @return the number of serialized bytes written.
+   */
+  long getBytesWritten();
+
+  /**
+   * @return the median latency of the retrieves, in microseconds.
+   */
+  long getRetrieveLatencyP50();
+
+  /**
+   * @return the 99th percentile latency of the retrieves, in microseconds.
+   */
+  long getRetrieveLatencyP99();
+
+  /**
+   * @return the 99.9th percentile latency of the retrieves, in microseconds.
+   */
+  long getRetrieveLatencyP999();
+
+  /**
+   * @return the median latency of the stores, in microseconds.
+   */
+  long getStoreLatencyP50();
+
+  /**
+   * @return the 99th percentile latency of the stores, in microseconds.
+   */
+  long getStoreLatencyP99();
+
+  /**
+   * @return the 99.9th percentile latency of the stores, in microseconds.
+   */
+  long getStoreLatencyP999();
+
+  /**
+   * @return the median latency of the adds, in microseconds.
+   */
+  long getAddLatencyP50();
+
+  /**
+   * @return the 99th percentile latency of the adds, in microseconds.
+   */
+  long getAddLatencyP99();
+
+  /**
+   * @return the 99.9th percentile latency of the adds, in microseconds.
+   */
+  long getAddLatencyP999();
+
+  /**
+   * @return the number of writes waiting to be sent in background.
+   */
+  int getWriteBehindQueueDepth();
+
+  /**
+   * @return the number of background writes dropped because the queue was full.
+   */
+  long getWriteBehindDropped();
+
+  /**
+   * @return the circuit breaker state: CLOSED, OPEN, HALF_OPEN, or DISABLED.
+   */
+  String getCircuitState();
+
+  /**
+   * @return the number of times the circuit opened.
+   */
+  long getCircuitOpenings();
+
+  /**
+   * @return the number of operations rejected while the circuit was open.
+   */
+  long getCircuitRejections();
+
+  /**
+   * Resets all the counters and latencies.
+   */
+  void reset();
+
+}
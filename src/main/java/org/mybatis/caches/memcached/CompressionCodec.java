@@ -0,0 +1,256 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.io.EOFException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import net.spy.memcached.CachedData;
+
+/**
+ * The algorithms available to compress the stored objects, each one identified by its own bit in the stored flags.
+ * <p>
+ * The {@link Deflater} and {@link Inflater} instances are reset after each use and kept in a bounded pool shared by
+ * all the threads, instead of being allocated, along with their native memory, for every value; the ones released
+ * while the pool is full are ended at once.
+ */
+enum CompressionCodec {
+
+  /**
+   * The GZIP format, readable by the default spymemcached transcoder.
+   */
+  GZIP(2, true) {
+
+    @Override
+    void compress(byte[] data, int length, int level, GrowableBuffer output) {
+      output.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+      deflate(data, length, level, output);
+
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, length);
+      writeIntLE((int) crc.getValue(), output);
+      writeIntLE(length, output);
+    }
+
+    @Override
+    void decompress(byte[] data, GrowableBuffer output) throws ZipException, EOFException {
+      if (data.length < 18 || (data[0] & 0xFF) != 0x1F || (data[1] & 0xFF) != 0x8B || data[2] != Deflater.DEFLATED) {
+        throw new ZipException("Not in GZIP format");
+      }
+
+      // skip the optional header fields
+      int flags = data[3];
+      int offset = GZIP_HEADER.length;
+      if ((flags & 4) != 0) {
+        offset += 2 + (data[offset] & 0xFF | (data[offset + 1] & 0xFF) << 8);
+      }
+      if ((flags & 8) != 0) {
+        offset = skipZeroTerminated(data, offset);
+      }
+      if ((flags & 16) != 0) {
+        offset = skipZeroTerminated(data, offset);
+      }
+      if ((flags & 2) != 0) {
+        offset += 2;
+      }
+      if (offset + 8 > data.length) {
+        throw new EOFException("Truncated GZIP header");
+      }
+
+      // the trailer holds the decompressed size, trusted only as a sizing hint
+      int size = readIntLE(data, data.length - 4);
+      if (size > 0 && size <= CachedData.MAX_SIZE) {
+        output.ensureCapacity(output.size() + size);
+      }
+      int trailer = offset + inflate(data, offset, data.length - offset - 8, output);
+      if (trailer + 8 > data.length) {
+        throw new EOFException("Truncated GZIP trailer");
+      }
+
+      CRC32 crc = new CRC32();
+      crc.update(output.array(), 0, output.size());
+      if (readIntLE(data, trailer) != (int) crc.getValue() || readIntLE(data, trailer + 4) != output.size()) {
+        throw new ZipException("Corrupt GZIP trailer");
+      }
+    }
+
+  },
+
+  /**
+   * The zlib format, without the GZIP header and CRC32 trailer; at low levels much faster than the default GZIP.
+   */
+  DEFLATE(0x20, false) {
+
+    @Override
+    void compress(byte[] data, int length, int level, GrowableBuffer output) {
+      deflate(data, length, level, output);
+    }
+
+    @Override
+    void decompress(byte[] data, GrowableBuffer output) throws ZipException, EOFException {
+      output.ensureCapacity(output.size() + (data.length << 1));
+      inflate(data, 0, data.length, output);
+    }
+
+  };
+
+  /**
+   * The GZIP header written by {@link java.util.zip.GZIPOutputStream}.
+   */
+  private static final byte[] GZIP_HEADER = { 0x1F, (byte) 0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+  /**
+   * The flag marking the values compressed with this codec.
+   */
+  private final int flag;
+
+  private final BoundedPool<Deflater> deflaters;
+
+  private final BoundedPool<Inflater> inflaters;
+
+  CompressionCodec(int flag, final boolean nowrap) {
+    this.flag = flag;
+    this.deflaters = new BoundedPool<Deflater>(BoundedPool.DEFAULT_CAPACITY,
+        () -> new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap), Deflater::end);
+    this.inflaters = new BoundedPool<Inflater>(BoundedPool.DEFAULT_CAPACITY, () -> new Inflater(nowrap), Inflater::end);
+  }
+
+  int getFlag() {
+    return flag;
+  }
+
+  /**
+   * Compresses the given bytes.
+   *
+   * @param data
+   *          the bytes to compress.
+   * @param length
+   *          the number of bytes to compress.
+   * @param level
+   *          the compression level, from 0 to 9, or -1 for the codec default.
+   * @param output
+   *          the buffer the compressed bytes are appended to.
+   */
+  abstract void compress(byte[] data, int length, int level, GrowableBuffer output);
+
+  /**
+   * Decompresses the given bytes.
+   *
+   * @param data
+   *          the compressed bytes.
+   * @param output
+   *          the buffer the decompressed bytes are appended to.
+   *
+   * @throws ZipException
+   *           if the compressed bytes are malformed.
+   * @throws EOFException
+   *           if the compressed bytes are truncated.
+   */
+  abstract void decompress(byte[] data, GrowableBuffer output) throws ZipException, EOFException;
+
+  /**
+   * Finds the codec of a stored value.
+   *
+   * @param flags
+   *          the stored value flags.
+   *
+   * @return the codec the value was compressed with, null if not compressed.
+   */
+  static CompressionCodec fromFlags(int flags) {
+    for (CompressionCodec codec : values()) {
+      if ((flags & codec.flag) != 0) {
+        return codec;
+      }
+    }
+    return null;
+  }
+
+  void deflate(byte[] data, int length, int level, GrowableBuffer output) {
+    Deflater deflater = deflaters.acquire();
+    try {
+      deflater.setLevel(level);
+      deflater.setInput(data, 0, length);
+      deflater.finish();
+
+      output.ensureCapacity(output.size() + (length >> 1) + 64);
+      while (!deflater.finished()) {
+        if (output.size() == output.capacity()) {
+          output.ensureCapacity(output.size() + 1);
+        }
+        int written = deflater.deflate(output.array(), output.size(), output.capacity() - output.size());
+        output.setSize(output.size() + written);
+      }
+    } finally {
+      deflater.reset();
+      deflaters.release(deflater);
+    }
+  }
+
+  /**
+   * Inflates the given bytes.
+   *
+   * @return the number of compressed bytes consumed.
+   */
+  int inflate(byte[] data, int offset, int length, GrowableBuffer output) throws ZipException, EOFException {
+    Inflater inflater = inflaters.acquire();
+    try {
+      inflater.setInput(data, offset, length);
+
+      while (!inflater.finished()) {
+        if (output.size() == output.capacity()) {
+          output.ensureCapacity(output.size() + 1);
+        }
+        int read = inflater.inflate(output.array(), output.size(), output.capacity() - output.size());
+        if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new EOFException("Truncated compressed data");
+        }
+        output.setSize(output.size() + read);
+      }
+      return length - inflater.getRemaining();
+    } catch (DataFormatException e) {
+      throw new ZipException(e.getMessage());
+    } finally {
+      inflater.reset();
+      inflaters.release(inflater);
+    }
+  }
+
+  private static int skipZeroTerminated(byte[] data, int offset) throws EOFException {
+    while (offset < data.length) {
+      if (data[offset++] == 0) {
+        return offset;
+      }
+    }
+    throw new EOFException("Truncated GZIP header");
+  }
+
+  private static void writeIntLE(int value, GrowableBuffer output) {
+    output.write(value);
+    output.write(value >>> 8);
+    output.write(value >>> 16);
+    output.write(value >>> 24);
+  }
+
+  private static int readIntLE(byte[] data, int offset) {
+    return data[offset] & 0xFF | (data[offset + 1] & 0xFF) << 8 | (data[offset + 2] & 0xFF) << 16
+        | (data[offset + 3] & 0xFF) << 24;
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+/**
+ * Setter from String to an enum constant, matched case insensitively.
+ *
+ * @param <E>
+ *          the enum type
+ */
+final class EnumPropertySetter<E extends Enum<E>> extends AbstractPropertySetter<E> {
+
+  /**
+   * The enum type the property values are converted to.
+   */
+  private final Class<E> enumType;
+
+  /**
+   * Instantiates a String to enum setter.
+   *
+   * @param propertyKey
+   *          the Config property key.
+   * @param propertyName
+   *          the {@link MemcachedConfiguration} property name.
+   * @param enumType
+   *          the enum type the property values are converted to.
+   * @param defaultValue
+   *          the property default value.
+   */
+  public EnumPropertySetter(final String propertyKey, final String propertyName, final Class<E> enumType,
+      final E defaultValue) {
+    super(propertyKey, propertyName, defaultValue);
+    this.enumType = enumType;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected E convert(String property) throws Exception {
+    String name = property.trim();
+    // some constants, like the spymemcached FailureMode ones, are not upper case
+    for (E constant : enumType.getEnumConstants()) {
+      if (constant.name().equalsIgnoreCase(name)) {
+        return constant;
+      }
+    }
+    throw new IllegalArgumentException("No enum constant " + enumType.getName() + '.' + name);
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * An unsynchronized byte array output stream exposing its backing array, so it can be reused and read in place.
+ */
+final class GrowableBuffer extends OutputStream {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private byte[] array;
+
+  private int size;
+
+  GrowableBuffer() {
+    array = new byte[INITIAL_CAPACITY];
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(int b) {
+    ensureCapacity(size + 1);
+    array[size++] = (byte) b;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(byte[] b, int offset, int length) {
+    ensureCapacity(size + length);
+    System.arraycopy(b, offset, array, size, length);
+    size += length;
+  }
+
+  /**
+   * Grows the backing array, doubling its length, so it can hold at least the given number of bytes.
+   *
+   * @param capacity
+   *          the minimum capacity.
+   */
+  void ensureCapacity(int capacity) {
+    if (capacity > array.length) {
+      array = Arrays.copyOf(array, Math.max(capacity, array.length << 1));
+    }
+  }
+
+  /**
+   * @return the backing array, valid until the next write.
+   */
+  byte[] array() {
+    return array;
+  }
+
+  /**
+   * @return the length of the backing array.
+   */
+  int capacity() {
+    return array.length;
+  }
+
+  /**
+   * @return the number of written bytes.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Records bytes written directly in the backing array.
+   *
+   * @param size
+   *          the new number of written bytes.
+   */
+  void setSize(int size) {
+    this.size = size;
+  }
+
+  /**
+   * Discards the written bytes, keeping the backing array.
+   */
+  void reset() {
+    size = 0;
+  }
+
+  /**
+   * @return a copy of the written bytes.
+   */
+  byte[] toByteArray() {
+    return Arrays.copyOf(array, size);
+  }
+
+}
@@ -0,0 +1,155 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detects the keys read so often that the server owning them saturates, and spreads their reads over replicas stored
+ * under suffixed keys, which the client hashes to other servers.
+ * <p>
+ * The reads are sampled into a count-min sketch whose counters are halved periodically, so a key is hot while its
+ * recent read frequency reaches the threshold, and cools down once it is read less.
+ */
+final class HotKeys {
+
+  private static final int DEPTH = 4;
+
+  private static final int WIDTH_BITS = 12;
+
+  private static final int WIDTH = 1 << WIDTH_BITS;
+
+  /**
+   * The number of samples between two halvings of the counters.
+   */
+  private static final int RESET_PERIOD = 10 * WIDTH;
+
+  /**
+   * The odd multipliers hashing the keys in each row.
+   */
+  private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+  private final AtomicIntegerArray counters = new AtomicIntegerArray(DEPTH * WIDTH);
+
+  private final AtomicLong samples = new AtomicLong();
+
+  private final int replicas;
+
+  private final int sampling;
+
+  private final int threshold;
+
+  /**
+   * Builds a new hot keys detector.
+   *
+   * @param replicas
+   *          the number of replicas of each hot key, besides the key itself.
+   * @param sampling
+   *          one read out of this number is sampled.
+   * @param threshold
+   *          the number of recent reads from which a key is hot.
+   */
+  HotKeys(int replicas, int sampling, int threshold) {
+    this.replicas = replicas;
+    this.sampling = Math.max(1, sampling);
+    this.threshold = threshold;
+  }
+
+  /**
+   * Records a read and selects the key to read: the key itself if it is not hot, otherwise the key or one of its
+   * replicas at random.
+   *
+   * @param keyString
+   *          the read key.
+   *
+   * @return the key to read.
+   */
+  String select(String keyString) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int hash = hash(keyString);
+    if (random.nextInt(sampling) == 0) {
+      record(hash);
+    }
+
+    if (!isHot(hash)) {
+      return keyString;
+    }
+    int replica = random.nextInt(replicas + 1);
+    return replica == 0 ? keyString : toReplicaKeyString(keyString, replica);
+  }
+
+  /**
+   * @param keyString
+   *          the key.
+   *
+   * @return true if the key is hot, its objects have to be replicated.
+   */
+  boolean isHot(String keyString) {
+    return isHot(hash(keyString));
+  }
+
+  /**
+   * Returns the keys of all the replicas of a key, whether they are stored or not.
+   *
+   * @param keyString
+   *          the key.
+   *
+   * @return the replica keys.
+   */
+  String[] replicasOf(String keyString) {
+    String[] replicaKeys = new String[replicas];
+    for (int i = 0; i < replicas; i++) {
+      replicaKeys[i] = toReplicaKeyString(keyString, i + 1);
+    }
+    return replicaKeys;
+  }
+
+  private static String toReplicaKeyString(String keyString, int replica) {
+    return keyString + '#' + replica;
+  }
+
+  private static int hash(String keyString) {
+    int hash = keyString.hashCode();
+    return hash ^ (hash >>> 16);
+  }
+
+  private boolean isHot(int hash) {
+    int estimate = Integer.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++) {
+      estimate = Math.min(estimate, counters.get(indexOf(hash, row)));
+    }
+    return (long) estimate * sampling >= threshold;
+  }
+
+  private void record(int hash) {
+    for (int row = 0; row < DEPTH; row++) {
+      counters.incrementAndGet(indexOf(hash, row));
+    }
+    if (samples.incrementAndGet() % RESET_PERIOD == 0) {
+      // ages the counts, concurrent increments may be lost which only lowers the estimates
+      for (int i = 0; i < counters.length(); i++) {
+        counters.set(i, counters.get(i) >>> 1);
+      }
+    }
+  }
+
+  private static int indexOf(int hash, int row) {
+    return row * WIDTH + ((hash * SEEDS[row]) >>> (Integer.SIZE - WIDTH_BITS));
+  }
+
+}
@@ -0,0 +1,35 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+/**
+ * The strategies available to invalidate all the entries of a cache id when it is cleared.
+ */
+enum InvalidationMode {
+
+  /**
+   * Every stored key is tracked in a per cache id group, updated with CAS on each put; clearing deletes every tracked
+   * key.
+   */
+  GROUP,
+
+  /**
+   * Every cache id has a numeric generation counter that is folded into the stored keys; clearing just increments the
+   * counter, leaving the previous entries to expire.
+   */
+  GENERATION
+
+}
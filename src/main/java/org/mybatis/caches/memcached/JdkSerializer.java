@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * The {@link Serializer} based on the JDK serialization, the default one.
+ */
+public final class JdkSerializer implements Serializer {
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void serialize(Object object, OutputStream output) throws IOException {
+    ObjectOutputStream oos = new ObjectOutputStream(output);
+    oos.writeObject(object);
+    oos.flush();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object deserialize(InputStream input) throws IOException, ClassNotFoundException {
+    return new ObjectInputStream(input).readObject();
+  }
+
+}
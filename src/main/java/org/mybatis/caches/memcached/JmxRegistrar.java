@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Registers the statistics MBeans in the platform MBean server, under the <code>org.mybatis.caches.memcached</code>
+ * domain.
+ */
+final class JmxRegistrar {
+
+  /**
+   * This class log.
+   */
+  private static final Log LOG = LogFactory.getLog(JmxRegistrar.class);
+
+  private static final String DOMAIN = "org.mybatis.caches.memcached";
+
+  /**
+   * Hidden constructor, this class can't be instantiated.
+   */
+  private JmxRegistrar() {
+    // do nothing
+  }
+
+  /**
+   * Registers an MBean, replacing the one previously registered under the same name, e.g. by a redeployed application.
+   *
+   * @param type
+   *          the MBean type.
+   * @param name
+   *          the MBean name, i.e. the cache id or the client name.
+   * @param mbean
+   *          the MBean.
+   */
+  static void register(String type, String name, Object mbean) {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+      if (server.isRegistered(objectName)) {
+        server.unregisterMBean(objectName);
+      }
+      server.registerMBean(mbean, objectName);
+    } catch (Exception e) {
+      LOG.warn("Impossible to register the " + type + " MBean of '" + name + "': " + e.getMessage());
+    }
+  }
+
+}
@@ -0,0 +1,251 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import org.apache.ibatis.cache.CacheKey;
+
+/**
+ * Computes the SHA-256 digest of MyBatis object keys without materializing their string representation.
+ * <p>
+ * The components of a {@link CacheKey} (statement id, offsets, SQL text and parameters) are streamed one by one, each
+ * prefixed by its type, through a per thread reused buffer into a per thread reused {@link MessageDigest}. Only
+ * components of types not known here are converted with their <code>toString()</code>.
+ * <p>
+ * Strings are written as UTF-8, one byte per ASCII char; the long ASCII ones, like the SQL text, are encoded by
+ * {@link String#getBytes(java.nio.charset.Charset)}, which is much faster than streaming them char by char.
+ */
+final class KeyDigester {
+
+  private static final String ALGORITHM = "SHA-256";
+
+  private static final int BUFFER_SIZE = 1024;
+
+  /**
+   * The length up to which strings are written char by char rather than encoded by the JDK.
+   */
+  private static final int INLINE_CHARS = 64;
+
+  private static final byte NULL = 0;
+
+  private static final byte CHARS = 1;
+
+  private static final byte INTEGRAL = 2;
+
+  private static final byte CACHE_KEY = 3;
+
+  private static final byte ARRAY = 4;
+
+  private static final byte OTHER = 5;
+
+  private static final byte GENERATION = 6;
+
+  private static final ThreadLocal<KeyDigester> DIGESTERS = ThreadLocal.withInitial(KeyDigester::new);
+
+  /**
+   * The {@link CacheKey} components list, null if not accessible.
+   */
+  private static final Field CACHE_KEY_COMPONENTS = cacheKeyComponents();
+
+  private final MessageDigest digest;
+
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+
+  private int position;
+
+  private KeyDigester() {
+    try {
+      digest = MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Computes the digest of a MyBatis object key.
+   *
+   * @param key
+   *          the MyBatis object key.
+   *
+   * @return the key digest.
+   */
+  static byte[] digest(Object key) {
+    KeyDigester digester = DIGESTERS.get();
+    try {
+      digester.write(key);
+      return digester.finish();
+    } finally {
+      digester.reset();
+    }
+  }
+
+  /**
+   * Computes the digest of a MyBatis object key within a cache id generation.
+   *
+   * @param generation
+   *          the cache id generation.
+   * @param key
+   *          the MyBatis object key.
+   *
+   * @return the key digest.
+   */
+  static byte[] digest(long generation, Object key) {
+    KeyDigester digester = DIGESTERS.get();
+    try {
+      digester.writeTag(GENERATION);
+      digester.writeLong(generation);
+      digester.write(key);
+      return digester.finish();
+    } finally {
+      digester.reset();
+    }
+  }
+
+  private byte[] finish() {
+    digest.update(buffer, 0, position);
+    return digest.digest();
+  }
+
+  /**
+   * Discards whatever a digest left, so a key whose components failed to be written can't leak into the next one.
+   */
+  private void reset() {
+    position = 0;
+    digest.reset();
+  }
+
+  private void write(Object object) {
+    if (object == null) {
+      writeTag(NULL);
+    } else if (object instanceof CharSequence) {
+      writeTag(CHARS);
+      writeChars((CharSequence) object);
+    } else if (object instanceof Integer || object instanceof Long || object instanceof Short
+        || object instanceof Byte) {
+      writeTag(INTEGRAL);
+      writeLong(((Number) object).longValue());
+    } else if (object instanceof CacheKey && CACHE_KEY_COMPONENTS != null) {
+      writeTag(CACHE_KEY);
+      List<?> components = cacheKeyComponents((CacheKey) object);
+      writeLong(components.size());
+      for (Object component : components) {
+        write(component);
+      }
+    } else if (object.getClass().isArray()) {
+      writeTag(ARRAY);
+      int length = Array.getLength(object);
+      writeLong(length);
+      for (int i = 0; i < length; i++) {
+        write(Array.get(object, i));
+      }
+    } else {
+      writeTag(OTHER);
+      writeChars(object.toString());
+    }
+  }
+
+  private void writeTag(byte tag) {
+    if (position == BUFFER_SIZE) {
+      flush();
+    }
+    buffer[position++] = tag;
+  }
+
+  /**
+   * Writes a long as a zigzag varint: small values, like lengths and most parameters, take a single byte, and the
+   * encoding stays prefix free.
+   */
+  private void writeLong(long value) {
+    if (position > BUFFER_SIZE - 10) {
+      flush();
+    }
+    long zigzag = value << 1 ^ value >> 63;
+    while ((zigzag & ~0x7fL) != 0) {
+      buffer[position++] = (byte) (zigzag & 0x7f | 0x80);
+      zigzag >>>= 7;
+    }
+    buffer[position++] = (byte) zigzag;
+  }
+
+  private void writeChars(CharSequence chars) {
+    int length = chars.length();
+    writeLong(length);
+
+    if (length > INLINE_CHARS && chars instanceof String) {
+      // the JDK encodes strings several times faster than the loop below
+      byte[] encoded = ((String) chars).getBytes(StandardCharsets.UTF_8);
+      // only ASCII strings take one byte per char, the loop is exact for the lone surrogates UTF-8 replaces
+      if (encoded.length == length) {
+        flush();
+        digest.update(encoded);
+        return;
+      }
+    }
+
+    // UTF-8 like, one byte per ASCII char as above
+    byte[] bytes = buffer;
+    int offset = position;
+    for (int i = 0; i < length; i++) {
+      if (offset > BUFFER_SIZE - 3) {
+        digest.update(bytes, 0, offset);
+        offset = 0;
+      }
+      char c = chars.charAt(i);
+      if (c < 0x80) {
+        bytes[offset++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[offset++] = (byte) (0xc0 | c >>> 6);
+        bytes[offset++] = (byte) (0x80 | c & 0x3f);
+      } else {
+        bytes[offset++] = (byte) (0xe0 | c >>> 12);
+        bytes[offset++] = (byte) (0x80 | c >>> 6 & 0x3f);
+        bytes[offset++] = (byte) (0x80 | c & 0x3f);
+      }
+    }
+    position = offset;
+  }
+
+  private void flush() {
+    digest.update(buffer, 0, position);
+    position = 0;
+  }
+
+  private static List<?> cacheKeyComponents(CacheKey key) {
+    try {
+      return (List<?>) CACHE_KEY_COMPONENTS.get(key);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static Field cacheKeyComponents() {
+    try {
+      Field field = CacheKey.class.getDeclaredField("updateList");
+      field.setAccessible(true);
+      return List.class.isAssignableFrom(field.getType()) ? field : null;
+    } catch (Exception e) {
+      // not accessible, fall back to CacheKey#toString()
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * The representations of the key digests stored in Memcached, after the key prefix. The formats give distinct keys:
+ * all the nodes sharing a cache have to use the same one, and changing it requires a flush or a new key prefix.
+ */
+enum KeyFormat {
+
+  /**
+   * The full 256 bits digest as 64 lowercase hexadecimal characters.
+   */
+  HEX {
+    @Override
+    String encode(byte[] digest) {
+      return StringUtils.toHexString(digest);
+    }
+  },
+
+  /**
+   * The first 128 bits of the digest as 22 URL safe Base64 characters, shrinking the keys stored with every item, sent
+   * with every request and listed in the groups.
+   */
+  BASE64 {
+    @Override
+    String encode(byte[] digest) {
+      return ENCODER.encodeToString(Arrays.copyOf(digest, 16));
+    }
+  };
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+  /**
+   * Converts a key digest to its string representation.
+   *
+   * @param digest
+   *          the key digest.
+   *
+   * @return the digest string representation.
+   */
+  abstract String encode(byte[] digest);
+
+}
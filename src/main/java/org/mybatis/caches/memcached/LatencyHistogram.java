@@ -0,0 +1,130 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations, with logarithmic buckets.
+ * <p>
+ * Every power of two is split in 8 linear buckets, so the percentiles are accurate within 12.5% whatever the
+ * magnitude, and recording a duration is a single atomic increment.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos
+   *          the duration, in nanoseconds.
+   */
+  void record(long nanos) {
+    counts.incrementAndGet(index(nanos));
+  }
+
+  /**
+   * Records the duration elapsed since a start time.
+   *
+   * @param startNanos
+   *          the start, as returned by {@link System#nanoTime()}.
+   */
+  void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * @return the number of recorded durations.
+   */
+  long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Computes a percentile of the recorded durations.
+   *
+   * @param percentile
+   *          the percentile, between 0 and 100.
+   *
+   * @return the upper bound of the bucket holding the percentile, in microseconds; 0 if nothing was recorded.
+   */
+  long getPercentileMicros(double percentile) {
+    long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    if (count == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+    long seen = 0;
+    int index = 0;
+    while (index < BUCKETS - 1) {
+      seen += snapshot[index];
+      if (seen >= rank) {
+        break;
+      }
+      index++;
+    }
+    return TimeUnit.NANOSECONDS.toMicros(upperBound(index));
+  }
+
+  /**
+   * Forgets the recorded durations; concurrent recordings may be kept or lost.
+   */
+  void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+  }
+
+  static int index(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (int) Math.max(nanos, 0);
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long lowerBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  static long upperBound(int index) {
+    return index == BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(index + 1) - 1;
+  }
+
+}
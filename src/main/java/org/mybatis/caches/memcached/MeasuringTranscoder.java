@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.Transcoder;
+
+/**
+ * The Transcoder that counts the bytes encoded and decoded by another one.
+ */
+final class MeasuringTranscoder implements Transcoder<Object> {
+
+  private final Transcoder<Object> delegate;
+
+  private final ClientStatistics statistics;
+
+  MeasuringTranscoder(Transcoder<Object> delegate, ClientStatistics statistics) {
+    this.delegate = delegate;
+    this.statistics = statistics;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean asyncDecode(final CachedData cachedData) {
+    return delegate.asyncDecode(cachedData);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object decode(final CachedData cachedData) {
+    statistics.read(cachedData.getData().length);
+    return delegate.decode(cachedData);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CachedData encode(final Object object) {
+    CachedData cachedData = delegate.encode(object);
+    statistics.written(cachedData.getData().length);
+    return cachedData;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getMaxSize() {
+    return delegate.getMaxSize();
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2012-2022 the original author or authors.
+ *    Copyright 2012-2026 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,18 +15,28 @@
  */
 package org.mybatis.caches.memcached;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.locks.ReadWriteLock;
 
+import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 
 /**
  * The Memcached-based Cache implementation.
+ * <p>
+ * Besides the blocking {@link Cache} methods, {@link #getObjectAsync(Object)}, {@link #putObjectAsync(Object, Object)}
+ * and {@link #clearAsync()} issue the operations without blocking the calling thread. Their futures are completed by
+ * the Memcached client I/O thread, so the dependent stages must not block, or have to run on an executor of their own
+ * with the <code>*Async</code> methods of {@link CompletableFuture}; failures complete them with a
+ * {@link org.apache.ibatis.cache.CacheException}.
+ * <p>
+ * The <code>keyPrefix</code>, <code>expiration</code>, <code>expirationJitter</code>, <code>compression</code> and
+ * <code>timeout</code> properties of the mapper cache element override the configured ones for this cache id only.
  *
  * @author Simone Tripodi
  */
-public final class MemcachedCache implements Cache {
-
-  private static final MemcachedClientWrapper MEMCACHED_CLIENT = new MemcachedClientWrapper();
+public final class MemcachedCache implements Cache, InitializingObject {
 
   /**
    * The {@link ReadWriteLock}.
@@ -38,6 +48,41 @@ public final class MemcachedCache implements Cache {
    */
   private final String id;
 
+  /**
+   * The Memcached client this cache id is routed to, or its view applying the overridden settings.
+   */
+  private MemcachedClientWrapper memcachedClient;
+
+  /**
+   * The overridden key prefix, null if not overridden.
+   */
+  private String keyPrefix;
+
+  /**
+   * The overridden expiration time in seconds, null if not overridden.
+   */
+  private Integer expiration;
+
+  /**
+   * The overridden expiration jitter percentage, null if not overridden.
+   */
+  private Integer expirationJitter;
+
+  /**
+   * The overridden compression flag, null if not overridden.
+   */
+  private Boolean compression;
+
+  /**
+   * The overridden operations timeout, null if not overridden.
+   */
+  private Integer timeout;
+
+  /**
+   * The in-process cache in front of Memcached, null if disabled.
+   */
+  private final NearCache nearCache;
+
   /**
    * Builds a new Memcached-based Cache.
    *
@@ -46,6 +91,66 @@ public final class MemcachedCache implements Cache {
    */
   public MemcachedCache(final String id) {
     this.id = id;
+    this.memcachedClient = MemcachedClientRouter.getInstance().route(id);
+
+    MemcachedConfiguration configuration = memcachedClient.getConfiguration();
+    if (configuration.getNearCacheSize() > 0) {
+      this.nearCache = new NearCache(configuration.getNearCacheSize(), configuration.getNearCacheTimeToLive(),
+          configuration.getNearCacheCheckInterval(), configuration.getSerializer());
+    } else {
+      this.nearCache = null;
+    }
+  }
+
+  /**
+   * @param keyPrefix
+   *          the prefix of the keys of this cache id.
+   */
+  public void setKeyPrefix(String keyPrefix) {
+    this.keyPrefix = keyPrefix;
+  }
+
+  /**
+   * @param expiration
+   *          the expiration time of the objects of this cache id, in seconds.
+   */
+  public void setExpiration(int expiration) {
+    this.expiration = expiration;
+  }
+
+  /**
+   * @param expirationJitter
+   *          the maximum percentage of the expiration time randomly taken off the one of each object of this cache id.
+   */
+  public void setExpirationJitter(int expirationJitter) {
+    this.expirationJitter = expirationJitter;
+  }
+
+  /**
+   * @param compression
+   *          whether the objects of this cache id are compressed.
+   */
+  public void setCompression(boolean compression) {
+    this.compression = compression;
+  }
+
+  /**
+   * @param timeout
+   *          the operations timeout of this cache id, in the configured time unit.
+   */
+  public void setTimeout(int timeout) {
+    this.timeout = timeout;
+  }
+
+  /**
+   * Applies the properties set from the mapper cache element, once all of them are set.
+   */
+  @Override
+  public void initialize() {
+    if (keyPrefix != null || expiration != null || expirationJitter != null || compression != null || timeout != null) {
+      memcachedClient = memcachedClient.withOverrides(this.id, keyPrefix, expiration, expirationJitter, compression,
+          timeout);
+    }
   }
 
   /**
@@ -53,7 +158,18 @@ public final class MemcachedCache implements Cache {
    */
   @Override
   public void clear() {
-    MEMCACHED_CLIENT.removeGroup(this.id);
+    if (nearCache == null) {
+      memcachedClient.removeGroup(this.id);
+      return;
+    }
+
+    nearCache.invalidate();
+    try {
+      memcachedClient.removeGroup(this.id);
+    } finally {
+      // a concurrent read may have put back a value read before the group was removed
+      nearCache.invalidate();
+    }
   }
 
   /**
@@ -69,7 +185,110 @@ public final class MemcachedCache implements Cache {
    */
   @Override
   public Object getObject(Object key) {
-    return MEMCACHED_CLIENT.getObject(key);
+    if (nearCache == null) {
+      return memcachedClient.getObject(key, this.id);
+    }
+
+    if (nearCache.isGenerationCheckDue()) {
+      try {
+        nearCache.validate(memcachedClient.getGeneration(this.id));
+      } catch (RuntimeException e) {
+        // local entries can't be trusted anymore
+        nearCache.invalidate();
+        if (!memcachedClient.isFailingOpen()) {
+          throw e;
+        }
+      }
+    }
+
+    Object value = nearCache.get(key);
+    if (value == null) {
+      value = memcachedClient.getObject(key, this.id);
+      if (value != null) {
+        nearCache.put(key, value);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Gets an object from the cache without blocking the calling thread.
+   * <p>
+   * The read batching applies, the single flight deduplication does not: the callers are not parked waiting for a
+   * concurrent load.
+   *
+   * @param key
+   *          the object key.
+   *
+   * @return the future completed with the cached object, or null if not cached.
+   */
+  public CompletableFuture<Object> getObjectAsync(Object key) {
+    if (nearCache == null) {
+      return memcachedClient.getObjectAsync(key, this.id);
+    }
+
+    CompletableFuture<Void> validated = CompletableFuture.completedFuture(null);
+    if (nearCache.isGenerationCheckDue()) {
+      validated = memcachedClient.getGenerationAsync(this.id).handle((generation, failure) -> {
+        if (failure == null) {
+          nearCache.validate(generation);
+          return null;
+        }
+        // local entries can't be trusted anymore
+        nearCache.invalidate();
+        if (!memcachedClient.isFailingOpen()) {
+          throw failure instanceof CompletionException ? (CompletionException) failure
+              : new CompletionException(failure);
+        }
+        return null;
+      });
+    }
+
+    return validated.thenCompose(nothing -> {
+      Object value = nearCache.get(key);
+      if (value != null) {
+        return CompletableFuture.completedFuture(value);
+      }
+      return memcachedClient.getObjectAsync(key, this.id).thenApply(retrieved -> {
+        if (retrieved != null) {
+          nearCache.put(key, retrieved);
+        }
+        return retrieved;
+      });
+    });
+  }
+
+  /**
+   * Puts an object in the cache without blocking the calling thread.
+   *
+   * @param key
+   *          the object key.
+   * @param value
+   *          the object.
+   *
+   * @return the future completed once the object is stored, or queued when writing behind.
+   */
+  public CompletableFuture<Void> putObjectAsync(Object key, Object value) {
+    CompletableFuture<Void> stored = memcachedClient.putObjectAsync(key, value, this.id);
+    if (nearCache == null) {
+      return stored;
+    }
+    return stored.thenRun(() -> nearCache.put(key, value));
+  }
+
+  /**
+   * Clears the cache without blocking the calling thread.
+   *
+   * @return the future completed once all the cached objects are invalidated.
+   */
+  public CompletableFuture<Void> clearAsync() {
+    if (nearCache == null) {
+      return memcachedClient.removeGroupAsync(this.id);
+    }
+
+    nearCache.invalidate();
+    // a concurrent read may have put back a value read before the group was removed
+    return memcachedClient.removeGroupAsync(this.id).whenComplete((nothing, failure) -> nearCache.invalidate());
   }
 
   /**
@@ -93,7 +312,10 @@ public final class MemcachedCache implements Cache {
    */
   @Override
   public void putObject(Object key, Object value) {
-    MEMCACHED_CLIENT.putObject(key, value, this.id);
+    memcachedClient.putObject(key, value, this.id);
+    if (nearCache != null) {
+      nearCache.put(key, value);
+    }
   }
 
   /**
@@ -101,7 +323,17 @@ public final class MemcachedCache implements Cache {
    */
   @Override
   public Object removeObject(Object key) {
-    return MEMCACHED_CLIENT.removeObject(key);
+    if (nearCache == null) {
+      return memcachedClient.removeObject(key, this.id);
+    }
+
+    nearCache.remove(key);
+    try {
+      return memcachedClient.removeObject(key, this.id);
+    } finally {
+      // a concurrent read may have put back the value read before it was removed
+      nearCache.remove(key);
+    }
   }
 
 }
@@ -0,0 +1,167 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Routes every cache id to the Memcached client it has to use: the first named client whose namespaces patterns match
+ * the cache id, or the default client.
+ * <p>
+ * Clients are instantiated on first use, so clusters no cache id is routed to are never connected.
+ */
+final class MemcachedClientRouter {
+
+  /**
+   * This class instance, configured from the Config.
+   */
+  private static MemcachedClientRouter instance;
+
+  private final Route defaultRoute;
+
+  private final List<Route> routes = new ArrayList<Route>();
+
+  /**
+   * A client configuration along with the cache ids it serves.
+   */
+  static final class Route {
+
+    private final String name;
+
+    private final MemcachedConfiguration configuration;
+
+    private final List<Pattern> patterns = new ArrayList<Pattern>();
+
+    private MemcachedClientWrapper client;
+
+    Route(String name, MemcachedConfiguration configuration) {
+      this.name = name;
+      this.configuration = configuration;
+
+      for (String namespace : configuration.getNamespaces().split(",")) {
+        namespace = namespace.trim();
+        if (namespace.length() > 0) {
+          patterns.add(toPattern(namespace));
+        }
+      }
+    }
+
+    String getName() {
+      return name;
+    }
+
+    boolean matches(String id) {
+      for (Pattern pattern : patterns) {
+        if (pattern.matcher(id).matches()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    synchronized MemcachedClientWrapper getClient() {
+      if (client == null) {
+        client = new MemcachedClientWrapper(name, configuration);
+      }
+      return client;
+    }
+
+  }
+
+  /**
+   * Builds a new router.
+   *
+   * @param defaultConfiguration
+   *          the configuration of the client used when no named client matches.
+   * @param clientConfigurations
+   *          the named clients configurations, in matching order.
+   */
+  MemcachedClientRouter(MemcachedConfiguration defaultConfiguration,
+      Map<String, MemcachedConfiguration> clientConfigurations) {
+    defaultRoute = new Route("default", defaultConfiguration);
+    for (Map.Entry<String, MemcachedConfiguration> clientConfiguration : clientConfigurations.entrySet()) {
+      routes.add(new Route(clientConfiguration.getKey(), clientConfiguration.getValue()));
+    }
+  }
+
+  /**
+   * Return this class instance, configured from the Config on first use.
+   *
+   * @return this class instance.
+   */
+  public static synchronized MemcachedClientRouter getInstance() {
+    if (instance == null) {
+      MemcachedConfigurationBuilder builder = MemcachedConfigurationBuilder.getInstance();
+      ClassLoader classLoader = MemcachedClientRouter.class.getClassLoader();
+      instance = new MemcachedClientRouter(builder.parseConfiguration(classLoader),
+          builder.parseClientConfigurations(classLoader));
+    }
+    return instance;
+  }
+
+  /**
+   * Return the client the cache id has to use.
+   *
+   * @param id
+   *          the cache id.
+   *
+   * @return the cache id client.
+   */
+  public MemcachedClientWrapper route(String id) {
+    return resolve(id).getClient();
+  }
+
+  /**
+   * Return the route the cache id matches.
+   *
+   * @param id
+   *          the cache id.
+   *
+   * @return the matched route.
+   */
+  Route resolve(String id) {
+    for (Route route : routes) {
+      if (route.matches(id)) {
+        return route;
+      }
+    }
+    return defaultRoute;
+  }
+
+  /**
+   * Converts a namespace pattern, where <code>*</code> matches any sequence, in a regular expression.
+   *
+   * @param namespace
+   *          the namespace pattern.
+   *
+   * @return the regular expression.
+   */
+  private static Pattern toPattern(String namespace) {
+    StringBuilder regex = new StringBuilder();
+    int start = 0;
+    int wildcard;
+    while ((wildcard = namespace.indexOf('*', start)) >= 0) {
+      regex.append(Pattern.quote(namespace.substring(start, wildcard))).append(".*");
+      start = wildcard + 1;
+    }
+    regex.append(Pattern.quote(namespace.substring(start)));
+    return Pattern.compile(regex.toString());
+  }
+
+}
@@ -15,20 +15,44 @@
  */
 package org.mybatis.caches.memcached;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import net.spy.memcached.CASResponse;
 import net.spy.memcached.CASValue;
-import net.spy.memcached.ConnectionFactoryBuilder;
+import net.spy.memcached.CachedData;
 import net.spy.memcached.MemcachedClient;
-import net.spy.memcached.auth.AuthDescriptor;
-import net.spy.memcached.auth.PlainCallbackHandler;
+import net.spy.memcached.internal.BulkFuture;
+import net.spy.memcached.internal.GetFuture;
+import net.spy.memcached.internal.OperationCompletionListener;
 import net.spy.memcached.internal.OperationFuture;
+import net.spy.memcached.ops.OperationStatus;
+import net.spy.memcached.ops.StatusCode;
+import net.spy.memcached.transcoders.Transcoder;
 
 import org.apache.ibatis.cache.CacheException;
 import org.apache.ibatis.logging.Log;
@@ -46,7 +70,97 @@ final class MemcachedClientWrapper {
 
   private final MemcachedConfiguration configuration;
 
-  private final MemcachedClient client;
+  /**
+   * The clients the operations are striped over.
+   */
+  private final StripedClients clients;
+
+  /**
+   * The operations counters and latencies of this client, whatever the cache id.
+   */
+  private final ClientStatistics clientStatistics;
+
+  /**
+   * The transcoder shared by all the operations.
+   */
+  private final Transcoder<Object> transcoder;
+
+  /**
+   * The prefix of the keys, from the configuration unless overridden by a cache.
+   */
+  private final String keyPrefix;
+
+  /**
+   * The expiration time in seconds, from the configuration unless overridden by a cache.
+   */
+  private final int expiration;
+
+  /**
+   * The maximum percentage of the expiration time taken off the one of each object, from the configuration unless
+   * overridden by a cache.
+   */
+  private final int expirationJitter;
+
+  /**
+   * The operations timeout, from the configuration unless overridden by a cache.
+   */
+  private final int timeout;
+
+  /**
+   * The views of this client overriding its settings, indexed by cache id.
+   */
+  private final Map<String, MemcachedClientWrapper> overrides;
+
+  /**
+   * The generation counter keys, indexed by cache id.
+   */
+  private final Map<String, String> generationKeys = new ConcurrentHashMap<String, String>();
+
+  /**
+   * The generations last read or moved by this client, indexed by cache id.
+   */
+  private final Map<String, CachedGeneration> generations = new ConcurrentHashMap<String, CachedGeneration>();
+
+  /**
+   * The batcher coalescing concurrent reads, null if disabled.
+   */
+  private final ReadBatcher readBatcher;
+
+  /**
+   * The deduplicator of concurrent reads of a same key, null if disabled.
+   */
+  private final SingleFlight singleFlight;
+
+  /**
+   * The detector of the hot keys, whose objects are replicated, null if disabled.
+   */
+  private final HotKeys hotKeys;
+
+  /**
+   * The policy applied when a group update conflicts with a concurrent one.
+   */
+  private final CasRetryPolicy casRetryPolicy;
+
+  /**
+   * The operations counters and latencies, indexed by cache id.
+   */
+  private final Map<String, NamespaceStatistics> statistics;
+
+  /**
+   * The queue deferring the writes to background workers, null if disabled.
+   */
+  private final WriteBehind writeBehind;
+
+  /**
+   * The breaker bypassing this client while it fails, null if disabled.
+   */
+  private final CircuitBreaker circuitBreaker;
+
+  /**
+   * The cache ids whose removals or clears were skipped while failing open, to be cleared before their next use; the
+   * value is true while the clear is replayed.
+   */
+  private final Map<String, Boolean> pendingInvalidations;
 
   /**
    * Used to represent an object retrieved from Memcached along with its CAS information
@@ -81,29 +195,162 @@ final class MemcachedClientWrapper {
 
   }
 
-  public MemcachedClientWrapper() {
-    configuration = MemcachedConfigurationBuilder.getInstance().parseConfiguration();
+  public MemcachedClientWrapper(String name, MemcachedConfiguration configuration) {
+    this.configuration = configuration;
+    this.clientStatistics = new ClientStatistics();
+    this.keyPrefix = configuration.getKeyPrefix();
+    this.expiration = configuration.getExpiration();
+    this.expirationJitter = configuration.getExpirationJitter();
+    this.timeout = configuration.getTimeout();
+    this.overrides = new ConcurrentHashMap<String, MemcachedClientWrapper>();
+    this.statistics = new ConcurrentHashMap<String, NamespaceStatistics>();
+    this.pendingInvalidations = new ConcurrentHashMap<String, Boolean>();
+    MemcachedClient[] pool = new MemcachedClient[Math.max(1, configuration.getPoolSize())];
     try {
-      if (configuration.isUsingSASL()) {
-        AuthDescriptor ad = new AuthDescriptor(new String[] { "PLAIN" },
-            new PlainCallbackHandler(configuration.getUsername(), configuration.getPassword()));
-        client = new MemcachedClient(new ConnectionFactoryBuilder()
-            .setProtocol(ConnectionFactoryBuilder.Protocol.BINARY).setAuthDescriptor(ad).build(),
-            configuration.getAddresses());
-      } else {
-        client = new MemcachedClient(configuration.getConnectionFactory(), configuration.getAddresses());
+      for (int i = 0; i < pool.length; i++) {
+        pool[i] = new MemcachedClient(configuration.getConnectionFactory(), configuration.getAddresses());
       }
     } catch (IOException e) {
+      for (MemcachedClient created : pool) {
+        if (created != null) {
+          created.shutdown();
+        }
+      }
       String message = "Impossible to instantiate a new memecached client instance, see nested exceptions";
       LOG.error(message, e);
       throw new RuntimeException(message, e);
     }
+    clients = new StripedClients(pool);
+
+    transcoder = createTranscoder(configuration.isCompressionEnabled());
+
+    if (configuration.getReadBatchSize() > 0) {
+      readBatcher = new ReadBatcher(clients, configuration.getReadBatchSize(), configuration.getReadBatchWindow());
+    } else {
+      readBatcher = null;
+    }
+
+    singleFlight = configuration.isUsingSingleFlight()
+        ? new SingleFlight(configuration.getSingleFlightLoadWait(), this::copy) : null;
+
+    hotKeys = configuration.getHotKeyReplicas() > 0 ? new HotKeys(configuration.getHotKeyReplicas(),
+        configuration.getHotKeySampling(), configuration.getHotKeyThreshold()) : null;
+
+    casRetryPolicy = new CasRetryPolicy(configuration.getCasMaxAttempts(), configuration.getCasBackoff(),
+        configuration.getCasMaxBackoff(), configuration.getCasFallback());
+
+    if (configuration.getWriteBehindQueueSize() > 0) {
+      writeBehind = new WriteBehind(configuration.getWriteBehindQueueSize(), configuration.getWriteBehindThreads(),
+          configuration.getWriteBehindBatchSize(), this::writeAll, this::eraseWritten);
+    } else {
+      writeBehind = null;
+    }
+    clientStatistics.setWriteBehind(writeBehind);
+
+    if (configuration.getCircuitBreakerThreshold() > 0) {
+      circuitBreaker = new CircuitBreaker(name, configuration.getCircuitBreakerThreshold(),
+          configuration.getCircuitBreakerSlowCall(), configuration.getCircuitBreakerCoolDown());
+    } else {
+      circuitBreaker = null;
+    }
+    clientStatistics.setCircuitBreaker(circuitBreaker);
+
+    if (configuration.isJmxEnabled()) {
+      JmxRegistrar.register("Client", name, clientStatistics);
+    }
 
     if (LOG.isDebugEnabled()) {
       LOG.debug("Running new Memcached client using " + configuration);
     }
   }
 
+  /**
+   * Builds a view of a client applying the settings a cache overrides, sharing everything else with the client.
+   */
+  private MemcachedClientWrapper(MemcachedClientWrapper parent, String keyPrefix, int expiration,
+      int expirationJitter, boolean compressionEnabled, int timeout) {
+    this.configuration = parent.configuration;
+    this.clients = parent.clients;
+    this.clientStatistics = parent.clientStatistics;
+    this.keyPrefix = keyPrefix;
+    this.expiration = expiration;
+    this.expirationJitter = expirationJitter;
+    this.timeout = timeout;
+    this.overrides = parent.overrides;
+    this.statistics = parent.statistics;
+    this.pendingInvalidations = parent.pendingInvalidations;
+    this.readBatcher = parent.readBatcher;
+    this.singleFlight = parent.singleFlight;
+    this.hotKeys = parent.hotKeys;
+    this.casRetryPolicy = parent.casRetryPolicy;
+    this.writeBehind = parent.writeBehind;
+    this.circuitBreaker = parent.circuitBreaker;
+    // the values of the cache id are encoded and decoded with the transcoder of the view, batched reads included
+    this.transcoder = compressionEnabled == configuration.isCompressionEnabled() ? parent.transcoder
+        : createTranscoder(compressionEnabled);
+  }
+
+  /**
+   * Returns a view of this client for a cache id, applying the given settings instead of the configured ones.
+   * <p>
+   * The settings are resolved once, so the operations of the view cost the same as the ones of this client.
+   *
+   * @param id
+   *          the cache id.
+   * @param keyPrefix
+   *          the key prefix, null to keep the configured one.
+   * @param expiration
+   *          the expiration time in seconds, null to keep the configured one.
+   * @param expirationJitter
+   *          the maximum percentage of the expiration time taken off the one of each object, null to keep the
+   *          configured one.
+   * @param compressionEnabled
+   *          whether the objects are compressed, null to keep the configured setting.
+   * @param timeout
+   *          the operations timeout, null to keep the configured one.
+   *
+   * @return the view of this client.
+   */
+  MemcachedClientWrapper withOverrides(String id, String keyPrefix, Integer expiration, Integer expirationJitter,
+      Boolean compressionEnabled, Integer timeout) {
+    MemcachedClientWrapper view = new MemcachedClientWrapper(this,
+        keyPrefix != null ? keyPrefix : configuration.getKeyPrefix(),
+        expiration != null ? expiration : configuration.getExpiration(),
+        expirationJitter != null ? expirationJitter : configuration.getExpirationJitter(),
+        compressionEnabled != null ? compressionEnabled : configuration.isCompressionEnabled(),
+        timeout != null ? timeout : configuration.getTimeout());
+    // the deferred writes are sent with the settings of their cache id
+    overrides.put(id, view);
+    return view;
+  }
+
+  private Transcoder<Object> createTranscoder(boolean compressionEnabled) {
+    Transcoder<Object> valueTranscoder;
+    if (configuration.getSerializer() instanceof JdkSerializer && !compressionEnabled) {
+      valueTranscoder = clients.get(0).getTranscoder();
+    } else {
+      valueTranscoder = new SerializerTranscoder(configuration.getSerializer(),
+          compressionEnabled ? configuration.getCompressionCodec() : null, configuration.getCompressionLevel(),
+          configuration.getCompressionThreshold());
+    }
+    // always decodes the soft expirations, even once disabled
+    return new MeasuringTranscoder(new ChunkedTranscoder(new SoftTtlTranscoder(valueTranscoder)), clientStatistics);
+  }
+
+  /**
+   * @return the write behind queue, null if disabled.
+   */
+  WriteBehind getWriteBehind() {
+    return writeBehind;
+  }
+
+  /**
+   * @return the configuration this client was built from.
+   */
+  public MemcachedConfiguration getConfiguration() {
+    return configuration;
+  }
+
   /**
    * Converts the MyBatis object key in the proper string representation.
    *
@@ -114,7 +361,7 @@ final class MemcachedClientWrapper {
    */
   private String toKeyString(final Object key) {
     // issue #1, key too long
-    String keyString = configuration.getKeyPrefix() + StringUtils.sha256Hex(key.toString());
+    String keyString = keyPrefix + configuration.getKeyFormat().encode(KeyDigester.digest(key));
     if (LOG.isDebugEnabled()) {
       LOG.debug("Object key '" + key + "' converted in '" + keyString + "'");
     }
@@ -122,278 +369,1130 @@ final class MemcachedClientWrapper {
   }
 
   /**
+   * Converts the MyBatis object key in the proper string representation for the given cache id, folding in the cache id
+   * generation when entries are invalidated by generation.
+   *
    * @param key
+   *          the MyBatis object key.
+   * @param id
+   *          the cache id.
    *
-   * @return
+   * @return the proper string representation.
    */
-  public Object getObject(Object key) {
-    String keyString = toKeyString(key);
-    Object ret = retrieve(keyString);
-
-    if (LOG.isDebugEnabled()) {
-      LOG.debug("Retrived object (" + keyString + ", " + ret + ")");
+  private String toKeyString(final Object key, final String id) {
+    if (configuration.getInvalidationMode() != InvalidationMode.GENERATION) {
+      return toKeyString(key);
     }
 
-    return ret;
+    return toKeyString(key, currentGeneration(id));
   }
 
   /**
-   * Return the stored group in Memcached identified by the specified key.
+   * Converts the MyBatis object key in the proper string representation for the given cache id generation.
    *
-   * @param groupKey
-   *          the group key.
+   * @param key
+   *          the MyBatis object key.
+   * @param generation
+   *          the cache id generation.
    *
-   * @return the group if was previously stored, null otherwise.
+   * @return the proper string representation.
    */
-  private ObjectWithCas getGroup(String groupKey) {
+  private String toKeyString(final Object key, final long generation) {
+    String keyString = keyPrefix + configuration.getKeyFormat()
+        .encode(KeyDigester.digest(generation, key));
     if (LOG.isDebugEnabled()) {
-      LOG.debug("Retrieving group with id '" + groupKey + "'");
+      LOG.debug("Object key '" + key + "' in generation " + generation + " converted in '" + keyString + "'");
     }
+    return keyString;
+  }
 
-    ObjectWithCas groups = null;
-    try {
-      groups = retrieveWithCas(groupKey);
-    } catch (Exception e) {
-      LOG.error("Impossible to retrieve group '" + groupKey + "' see nested exceptions", e);
+  /**
+   * Converts the cache id in the key of its generation counter.
+   *
+   * @param id
+   *          the cache id.
+   *
+   * @return the generation counter key.
+   */
+  private String toGenerationKeyString(final String id) {
+    String generationKey = generationKeys.get(id);
+    if (generationKey == null) {
+      generationKey = toKeyString("generation:" + id);
+      generationKeys.put(id, generationKey);
     }
+    return generationKey;
+  }
 
-    if (groups == null) {
-      if (LOG.isDebugEnabled()) {
-        LOG.debug("Group '" + groupKey + "' not previously stored");
-      }
-      return null;
+  /**
+   * Return the current generation of the cache id, initializing the counter if not previously stored.
+   * <p>
+   * The counter is seeded with the current time, so a counter evicted by Memcached never restarts from a generation
+   * that was already used.
+   *
+   * @param id
+   *          the cache id.
+   *
+   * @return the current generation.
+   */
+  public long getGeneration(final String id) {
+    if (circuitBreaker == null) {
+      return readGeneration(id);
+    }
+    if (!circuitBreaker.allowRequest()) {
+      throw new CacheException("Memcached client bypassed, its circuit is open");
     }
 
-    if (LOG.isDebugEnabled()) {
-      LOG.debug("retrieved group '" + groupKey + "' with values " + groups);
+    long start = System.nanoTime();
+    try {
+      long generation = readGeneration(id);
+      circuitBreaker.recordSuccess(start);
+      return generation;
+    } catch (RuntimeException e) {
+      circuitBreaker.recordFailure();
+      throw e;
     }
+  }
 
-    return groups;
+  private long readGeneration(final String id) {
+    String generationKey = toGenerationKeyString(id);
+    return clients.get(generationKey).incr(generationKey, 0, System.currentTimeMillis(), 0);
   }
 
   /**
-   * @param keyString
+   * Return the generation the keys of the cache id are built with, read again from Memcached only once the last read
+   * one is older than the refresh interval.
    *
-   * @return
+   * @param id
+   *          the cache id.
    *
-   * @throws Exception
+   * @return the current generation.
    */
-  private Object retrieve(final String keyString) {
-    Object retrieved = null;
-
-    if (configuration.isUsingAsyncGet()) {
-      Future<Object> future;
-      if (configuration.isCompressionEnabled()) {
-        future = client.asyncGet(keyString, new CompressorTranscoder());
-      } else {
-        future = client.asyncGet(keyString);
-      }
-
-      try {
-        retrieved = future.get(configuration.getTimeout(), configuration.getTimeUnit());
-      } catch (Exception e) {
-        future.cancel(false);
-        throw new CacheException(e);
-      }
-    } else {
-      if (configuration.isCompressionEnabled()) {
-        retrieved = client.get(keyString, new CompressorTranscoder());
-      } else {
-        retrieved = client.get(keyString);
-      }
+  private long currentGeneration(final String id) {
+    CachedGeneration cached = generations.get(id);
+    if (cached != null && cached.isFresh()) {
+      return cached.generation;
     }
+    return remember(id, readGeneration(id));
+  }
 
-    return retrieved;
+  private CompletableFuture<Long> currentGenerationAsync(final String id) {
+    CachedGeneration cached = generations.get(id);
+    if (cached != null && cached.isFresh()) {
+      return CompletableFuture.completedFuture(cached.generation);
+    }
+    return readGenerationAsync(id).thenApply(generation -> remember(id, generation));
   }
 
   /**
-   * Retrieves an object along with its cas using the given key
+   * Remembers a generation read or moved by this client.
    *
-   * @param keyString
+   * @param id
+   *          the cache id.
+   * @param generation
+   *          the generation.
    *
-   * @return
+   * @return the most recent generation known for the cache id.
+   */
+  private long remember(final String id, final long generation) {
+    long refreshNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getGenerationRefresh());
+    if (refreshNanos <= 0) {
+      return generation;
+    }
+    // the generations only move forward: a read that raced with a local clear must not bring back the older one
+    CachedGeneration fresh = new CachedGeneration(generation, System.nanoTime() + refreshNanos);
+    return generations.merge(id, fresh, (current, next) -> current.generation > next.generation
+        ? new CachedGeneration(current.generation, next.deadline) : next).generation;
+  }
+
+  /**
+   * Return the current generation of the cache id without blocking, initializing the counter if not previously stored.
    *
-   * @throws Exception
+   * @param id
+   *          the cache id.
+   *
+   * @return the future completed with the current generation.
    */
-  private ObjectWithCas retrieveWithCas(final String keyString) {
-    CASValue<Object> retrieved = null;
+  public CompletableFuture<Long> getGenerationAsync(final String id) {
+    if (circuitBreaker == null) {
+      return readGenerationAsync(id);
+    }
+    if (!circuitBreaker.allowRequest()) {
+      return CompletableFuture.failedFuture(new CacheException("Memcached client bypassed, its circuit is open"));
+    }
 
-    if (configuration.isUsingAsyncGet()) {
-      Future<CASValue<Object>> future;
-      if (configuration.isCompressionEnabled()) {
-        future = client.asyncGets(keyString, new CompressorTranscoder());
+    long start = System.nanoTime();
+    return readGenerationAsync(id).whenComplete((generation, failure) -> {
+      if (failure == null) {
+        circuitBreaker.recordSuccess(start);
       } else {
-        future = client.asyncGets(keyString);
+        circuitBreaker.recordFailure();
       }
+    });
+  }
 
-      try {
-        retrieved = future.get(configuration.getTimeout(), configuration.getTimeUnit());
-      } catch (Exception e) {
-        future.cancel(false);
-        throw new CacheException(e);
-      }
-    } else {
-      if (configuration.isCompressionEnabled()) {
-        retrieved = client.gets(keyString, new CompressorTranscoder());
-      } else {
-        retrieved = client.gets(keyString);
-      }
-    }
+  private CompletableFuture<Long> readGenerationAsync(final String id) {
+    String generationKey = toGenerationKeyString(id);
+    return toCompletableFuture(clients.get(generationKey).asyncIncr(generationKey, 0, System.currentTimeMillis(), 0));
+  }
 
-    if (retrieved == null) {
+  /**
+   * @return true if the failures of this client are recorded by a circuit breaker rather than thrown.
+   */
+  public boolean isFailingOpen() {
+    return circuitBreaker != null;
+  }
+
+  /**
+   * @param key
+   * @param id
+   *
+   * @return
+   */
+  public Object getObject(Object key, String id) {
+    NamespaceStatistics namespaceStatistics = getStatistics(id);
+    if (!isAvailable(id)) {
+      namespaceStatistics.shortCircuited();
       return null;
     }
 
-    return new ObjectWithCas(retrieved.getValue(), retrieved.getCas());
+    long start = System.nanoTime();
+    try {
+      Object value = fetchObject(key, id);
+      namespaceStatistics.got(value != null, start);
+      succeeded(start);
+      return value;
+    } catch (RuntimeException e) {
+      namespaceStatistics.failed();
+      failOpen(e);
+      return null;
+    }
   }
 
-  @SuppressWarnings("unchecked")
-  public void putObject(Object key, Object value, String id) {
-    String keyString = toKeyString(key);
-    String groupKey = toKeyString(id);
+  private Object fetchObject(Object key, String id) {
+    String keyString = toKeyString(key, id);
+    Object ret = singleFlight != null ? singleFlight.get(keyString, this::retrieveReplica) : retrieveReplica(keyString);
+    ret = serve(keyString, ret);
 
     if (LOG.isDebugEnabled()) {
-      LOG.debug("Putting object (" + keyString + ", " + value + ")");
+      LOG.debug("Retrived object (" + keyString + ", " + ret + ")");
     }
 
-    storeInMemcached(keyString, value);
-
-    // add namespace key into memcached
-    // Optimistic lock approach...
-    boolean jobDone = false;
-
-    while (!jobDone) {
-      ObjectWithCas group = getGroup(groupKey);
-      Set<String> groupValues;
-
-      if (group == null || group.getObject() == null) {
-        groupValues = new HashSet<String>();
-        groupValues.add(keyString);
-
-        if (LOG.isDebugEnabled()) {
-          LOG.debug("Insert/Updating object (" + groupKey + ", " + groupValues + ")");
-        }
-
-        jobDone = tryToAdd(groupKey, groupValues);
-      } else {
-        groupValues = (Set<String>) group.getObject();
-        groupValues.add(keyString);
+    return ret;
+  }
 
-        jobDone = storeInMemcached(groupKey, group);
-      }
+  /**
+   * Returns the expiration time of a stored object: the configured one, minus a random part of it when jittered. Only
+   * the objects are jittered, so the groups always outlive their members.
+   *
+   * @return the expiration time in seconds.
+   */
+  private int toObjectExpiration() {
+    if (expirationJitter <= 0 || expiration <= 0) {
+      return expiration;
     }
+    int spread = (int) ((long) expiration * Math.min(expirationJitter, 100) / 100);
+    // 0 would never expire
+    return Math.max(1, expiration - ThreadLocalRandom.current().nextInt(spread + 1));
   }
 
   /**
-   * Stores an object identified by a key in Memcached.
+   * Retrieves an object from its key or, if the key is hot, from its key or one of its replicas at random; a missing
+   * replica is read from the key but not stored back, the replicas are only stored along with the object, as a read
+   * could otherwise store back an object removed in the meantime.
    *
    * @param keyString
-   *          the object key
-   * @param value
-   *          the object has to be stored.
+   *          the object key.
+   *
+   * @return the retrieved object, null if not stored.
    */
-  private void storeInMemcached(String keyString, Object value) {
-    if (value != null && !Serializable.class.isAssignableFrom(value.getClass())) {
-      throw new CacheException(
-          "Object of type '" + value.getClass().getName() + "' that's non-serializable is not supported by Memcached");
+  private Object retrieveReplica(String keyString) {
+    String replicaKey = hotKeys != null ? hotKeys.select(keyString) : keyString;
+    if (replicaKey.equals(keyString)) {
+      return retrieve(keyString);
     }
 
-    if (configuration.isCompressionEnabled()) {
-      client.set(keyString, configuration.getExpiration(), value, new CompressorTranscoder());
-    } else {
-      client.set(keyString, configuration.getExpiration(), value);
-    }
+    Object retrieved = retrieve(replicaKey);
+    return retrieved != null ? retrieved : retrieve(keyString);
   }
 
   /**
-   * Tries to update an object value in memcached considering the cas validation.
-   * <p>
-   * Returns true if the object passed the cas validation and was modified.
+   * Stores an object under its key and, if the key is hot, under the keys of its replicas.
    *
    * @param keyString
-   * @param value
+   *          the object key.
+   * @param encoded
+   *          the encoded object, in its soft expiration envelope if enabled.
    *
-   * @return
+   * @return the stored keys.
    */
-  private boolean storeInMemcached(String keyString, ObjectWithCas value) {
-    if (value != null && value.getObject() != null
-        && !Serializable.class.isAssignableFrom(value.getObject().getClass())) {
-      throw new CacheException("Object of type '" + value.getObject().getClass().getName()
-          + "' that's non-serializable is not supported by Memcached");
-    }
-
-    CASResponse response;
-
-    if (configuration.isCompressionEnabled()) {
-      response = client.cas(keyString, value.getCas(), value.getObject(), new CompressorTranscoder());
-    } else {
-      response = client.cas(keyString, value.getCas(), value.getObject());
+  private Set<String> storeReplicated(String keyString, CachedData encoded) {
+    Set<String> keyStrings = new LinkedHashSet<String>();
+    for (String storedKey : toStoredKeyStrings(keyString)) {
+      keyStrings.addAll(storeInMemcached(storedKey, encoded));
     }
-
-    return (response.equals(CASResponse.OBSERVE_MODIFIED) || response.equals(CASResponse.OK));
+    return keyStrings;
   }
 
   /**
-   * Tries to store an object identified by a key in Memcached.
-   * <p>
-   * Will fail if the object already exists.
+   * Encodes an object to store, in its soft expiration envelope if enabled.
    *
-   * @param keyString
    * @param value
+   *          the object has to be stored.
    *
-   * @return
+   * @return the encoded object.
    */
-  private boolean tryToAdd(String keyString, Object value) {
-    if (value != null && !Serializable.class.isAssignableFrom(value.getClass())) {
+  private CachedData encode(Object value) {
+    return transcoder.encode(withSoftExpiration(value));
+  }
+
+  /**
+   * @param keyString
+   *          the object key.
+   *
+   * @return the key and, if the key is hot, the keys of its replicas.
+   */
+  private Set<String> toStoredKeyStrings(String keyString) {
+    if (hotKeys == null || !hotKeys.isHot(keyString)) {
+      return Collections.singleton(keyString);
+    }
+
+    Set<String> keyStrings = new LinkedHashSet<String>();
+    keyStrings.add(keyString);
+    Collections.addAll(keyStrings, hotKeys.replicasOf(keyString));
+    return keyStrings;
+  }
+
+  /**
+   * Wraps an object in an envelope recording its soft expiration, if enabled.
+   *
+   * @param value
+   *          the object has to be stored.
+   *
+   * @return the object to store.
+   */
+  private Object withSoftExpiration(Object value) {
+    if (configuration.getSoftTtl() <= 0 || value == null || value instanceof SoftTtlTranscoder.Envelope) {
+      return value;
+    }
+    return new SoftTtlTranscoder.Envelope(value,
+        System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(configuration.getSoftTtl()));
+  }
+
+  /**
+   * Unwraps a retrieved object. Once its soft expiration is reached, the first caller acquiring the refresh lock of
+   * the stale object gets a miss and reloads it, the others keep getting the stale object meanwhile.
+   *
+   * @param keyString
+   *          the object key.
+   * @param retrieved
+   *          the retrieved object, possibly in an envelope.
+   *
+   * @return the object to serve, null if the caller has to reload it.
+   */
+  private Object serve(String keyString, Object retrieved) {
+    if (!(retrieved instanceof SoftTtlTranscoder.Envelope)) {
+      return retrieved;
+    }
+
+    SoftTtlTranscoder.Envelope envelope = (SoftTtlTranscoder.Envelope) retrieved;
+    if (!envelope.isStale(System.currentTimeMillis())) {
+      return envelope.getValue();
+    }
+
+    try {
+      if (tryToAdd(toRefreshKeyString(keyString, envelope), Boolean.TRUE, configuration.getSoftTtlRefresh())) {
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Object '" + keyString + "' is stale, reloading it");
+        }
+        return null;
+      }
+    } catch (RuntimeException e) {
+      // another caller may be reloading it, keep serving the stale object
+      LOG.debug("Impossible to lock the refresh of '" + keyString + "': " + e);
+    }
+    return envelope.getValue();
+  }
+
+  /**
+   * The refresh lock key of a stale object, specific to the stored version so that a reloaded object is refreshed
+   * again once stale, whatever the lock duration.
+   *
+   * @param keyString
+   *          the object key.
+   * @param envelope
+   *          the stale object envelope.
+   *
+   * @return the refresh lock key.
+   */
+  private static String toRefreshKeyString(String keyString, SoftTtlTranscoder.Envelope envelope) {
+    return keyString + ':' + Long.toString(envelope.getSoftExpiration(), Character.MAX_RADIX);
+  }
+
+  /**
+   * Return the stored group in Memcached identified by the specified key.
+   *
+   * @param groupKey
+   *          the group key.
+   *
+   * @return the group if was previously stored, null otherwise.
+   */
+  private ObjectWithCas getGroup(String groupKey) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Retrieving group with id '" + groupKey + "'");
+    }
+
+    ObjectWithCas groups = null;
+    try {
+      groups = retrieveWithCas(groupKey);
+    } catch (Exception e) {
+      LOG.error("Impossible to retrieve group '" + groupKey + "' see nested exceptions", e);
+    }
+
+    if (groups == null) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Group '" + groupKey + "' not previously stored");
+      }
+      return null;
+    }
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("retrieved group '" + groupKey + "' with values " + groups);
+    }
+
+    return groups;
+  }
+
+  /**
+   * @param keyString
+   *
+   * @return
+   *
+   * @throws Exception
+   */
+  private Object retrieve(final String keyString) {
+    return assemble(keyString, fetch(keyString));
+  }
+
+  /**
+   * Retrieves what is stored under a key, either an object or the manifest of an object split in chunks.
+   *
+   * @param keyString
+   *          the key.
+   *
+   * @return the retrieved object or manifest, null if not stored.
+   */
+  private Object fetch(final String keyString) {
+    long start = System.nanoTime();
+    Object retrieved = null;
+
+    try {
+      if (readBatcher != null) {
+        Future<CachedData> future = readBatcher.get(keyString);
+        CachedData encoded;
+
+        try {
+          encoded = future.get(timeout, configuration.getTimeUnit());
+        } catch (Exception e) {
+          future.cancel(false);
+          throw new CacheException(e);
+        }
+        retrieved = encoded == null ? null : transcoder.decode(encoded);
+      } else if (configuration.isUsingAsyncGet()) {
+        Future<Object> future = clients.get(keyString).asyncGet(keyString, transcoder);
+
+        try {
+          retrieved = future.get(timeout, configuration.getTimeUnit());
+        } catch (Exception e) {
+          future.cancel(false);
+          throw new CacheException(e);
+        }
+      } else {
+        retrieved = clients.get(keyString).get(keyString, transcoder);
+      }
+    } catch (RuntimeException e) {
+      clientStatistics.failed(e);
+      throw e;
+    } finally {
+      clientStatistics.retrieved(start);
+    }
+
+    return retrieved;
+  }
+
+  /**
+   * Reassembles an object split in chunks, from the chunks listed in its manifest.
+   *
+   * @param keyString
+   *          the object key.
+   * @param fetched
+   *          the object, or the manifest of its chunks.
+   *
+   * @return the object, null if a chunk is missing.
+   */
+  private Object assemble(String keyString, Object fetched) {
+    if (!(fetched instanceof ChunkedTranscoder.Manifest)) {
+      return fetched;
+    }
+
+    ChunkedTranscoder.Manifest manifest = (ChunkedTranscoder.Manifest) fetched;
+    long start = System.nanoTime();
+    Map<String, CachedData> chunks;
+    Future<Map<String, CachedData>> future = clients.get(keyString)
+        .asyncGetBulk(Arrays.asList(manifest.toChunkKeyStrings(keyString)), ChunkedTranscoder.RAW);
+    try {
+      chunks = future.get(timeout, configuration.getTimeUnit());
+    } catch (Exception e) {
+      future.cancel(false);
+      CacheException cause = new CacheException(e);
+      clientStatistics.failed(cause);
+      throw cause;
+    } finally {
+      clientStatistics.retrieved(start);
+    }
+
+    return decode(keyString, manifest, chunks);
+  }
+
+  private Object decode(String keyString, ChunkedTranscoder.Manifest manifest, Map<String, CachedData> chunks) {
+    CachedData assembled = manifest.assemble(keyString, chunks);
+    if (assembled == null) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Chunks of '" + keyString + "' missing or overwritten, " + manifest);
+      }
+      return null;
+    }
+    return transcoder.decode(assembled);
+  }
+
+  /**
+   * Retrieves an object along with its cas using the given key
+   *
+   * @param keyString
+   *
+   * @return
+   *
+   * @throws Exception
+   */
+  private ObjectWithCas retrieveWithCas(final String keyString) {
+    CASValue<Object> retrieved = null;
+
+    if (configuration.isUsingAsyncGet()) {
+      Future<CASValue<Object>> future = clients.get(keyString).asyncGets(keyString, transcoder);
+
+      try {
+        retrieved = future.get(timeout, configuration.getTimeUnit());
+      } catch (Exception e) {
+        future.cancel(false);
+        throw new CacheException(e);
+      }
+    } else {
+      retrieved = clients.get(keyString).gets(keyString, transcoder);
+    }
+
+    if (retrieved == null) {
+      return null;
+    }
+
+    return new ObjectWithCas(retrieved.getValue(), retrieved.getCas());
+  }
+
+  public void putObject(Object key, Object value, String id) {
+    // not a Memcached failure, never ignored
+    checkSerializable(value);
+
+    NamespaceStatistics namespaceStatistics = getStatistics(id);
+    if (!isAvailable(id)) {
+      namespaceStatistics.shortCircuited();
+      return;
+    }
+
+    long start = System.nanoTime();
+    try {
+      storeObject(key, value, id);
+      namespaceStatistics.put(start);
+      succeeded(start);
+    } catch (RuntimeException e) {
+      namespaceStatistics.failed();
+      failOpen(e);
+    }
+  }
+
+  private void storeObject(Object key, Object value, String id) {
+    String keyString = toKeyString(key, id);
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Putting object (" + keyString + ", " + value + ")");
+    }
+
+    if (singleFlight != null) {
+      singleFlight.loaded(keyString, value);
+    }
+
+    // encoded on the caller thread, the application is free to modify the object once put
+    CachedData encoded = encode(value);
+    if (writeBehind != null) {
+      writeBehind.enqueue(id, keyString, encoded);
+      return;
+    }
+
+    Set<String> keyStrings = storeReplicated(keyString, encoded);
+
+    if (configuration.getInvalidationMode() == InvalidationMode.GROUP) {
+      addToGroup(id, keyStrings);
+    }
+  }
+
+  /**
+   * Sends a batch of deferred writes: the value sets are pipelined, then each cache id group is updated once.
+   *
+   * @param writes
+   *          the writes to send.
+   */
+  private void writeAll(List<WriteBehind.PendingWrite> writes) {
+    Map<String, Set<String>> keysById = new LinkedHashMap<String, Set<String>>();
+    for (WriteBehind.PendingWrite write : writes) {
+      Set<String> keyStrings = overrides.getOrDefault(write.id, this).storeReplicated(write.keyString, write.encoded);
+      write.storedKeyStrings = keyStrings;
+
+      if (configuration.getInvalidationMode() == InvalidationMode.GROUP) {
+        keysById.computeIfAbsent(write.id, id -> new HashSet<String>()).addAll(keyStrings);
+      }
+    }
+
+    for (Map.Entry<String, Set<String>> entry : keysById.entrySet()) {
+      overrides.getOrDefault(entry.getKey(), this).addToGroup(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Deletes the keys stored by a deferred write whose object was removed, or whose cache id was cleared, while it was
+   * being sent.
+   *
+   * @param write
+   *          the discarded write.
+   */
+  private void eraseWritten(WriteBehind.PendingWrite write) {
+    for (String keyString : write.storedKeyStrings) {
+      clients.get(keyString).delete(keyString);
+    }
+  }
+
+  /**
+   * Adds stored keys to the group of their cache id.
+   *
+   * @param id
+   *          the cache id.
+   * @param keyStrings
+   *          the stored keys.
+   */
+  @SuppressWarnings("unchecked")
+  private void addToGroup(String id, Set<String> keyStrings) {
+    String groupKey = toKeyString(id);
+    NamespaceStatistics namespaceStatistics = getStatistics(id);
+
+    // add namespace key into memcached
+    // Optimistic lock approach...
+    int attempts = 0;
+
+    while (true) {
+      ObjectWithCas group = getGroup(groupKey);
+      Set<String> groupValues;
+      boolean jobDone;
+
+      if (group == null || group.getObject() == null) {
+        groupValues = new HashSet<String>();
+        groupValues.addAll(keyStrings);
+
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Insert/Updating object (" + groupKey + ", " + groupValues + ")");
+        }
+
+        jobDone = tryToAdd(groupKey, groupValues, expiration);
+      } else {
+        groupValues = (Set<String>) group.getObject();
+        groupValues.addAll(keyStrings);
+
+        jobDone = storeInMemcached(groupKey, group);
+      }
+
+      attempts++;
+      namespaceStatistics.casAttempted();
+      if (jobDone) {
+        return;
+      }
+
+      namespaceStatistics.casFailed();
+      if (!casRetryPolicy.canRetry(attempts)) {
+        namespaceStatistics.casGaveUp();
+        giveUpGroupUpdate(id, groupKey, keyStrings, groupValues);
+        return;
+      }
+      casRetryPolicy.backoff(attempts);
+    }
+  }
+
+  /**
+   * Applies the configured fallback to a group update abandoned after exhausting the retry attempts.
+   *
+   * @param id
+   *          the cache id.
+   * @param groupKey
+   *          the group key.
+   * @param keyStrings
+   *          the stored keys that could not be added to the group.
+   * @param groupValues
+   *          the keys of the last read group.
+   */
+  private void giveUpGroupUpdate(String id, String groupKey, Set<String> keyStrings, Set<String> groupValues) {
+    CasFallback fallback = casRetryPolicy.getFallback();
+    LOG.warn("Gave up updating the group of cache '" + id + "' after " + configuration.getCasMaxAttempts()
+        + " attempts, applying " + fallback);
+
+    switch (fallback) {
+      case INVALIDATE_GROUP:
+        // the group itself is kept, the keys other puts add to it meanwhile stay tracked
+        for (String key : groupValues) {
+          clients.get(key).delete(key);
+        }
+        // fall through, the stored keys may be missing from the last read group
+      case DELETE_ENTRY:
+        for (String key : keyStrings) {
+          clients.get(key).delete(key);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * @param id
+   *          the cache id.
+   *
+   * @return the operations counters and latencies of the cache id.
+   */
+  NamespaceStatistics getStatistics(String id) {
+    NamespaceStatistics namespaceStatistics = statistics.get(id);
+    if (namespaceStatistics == null) {
+      namespaceStatistics = statistics.computeIfAbsent(id, key -> {
+        NamespaceStatistics created = new NamespaceStatistics();
+        if (configuration.isJmxEnabled()) {
+          JmxRegistrar.register("Namespace", key, created);
+        }
+        return created;
+      });
+    }
+    return namespaceStatistics;
+  }
+
+  /**
+   * @return the counters and latencies of this client.
+   */
+  ClientStatistics getClientStatistics() {
+    return clientStatistics;
+  }
+
+  /**
+   * Copies an object through the configured serializer, so the callers sharing a read each get their own instance.
+   *
+   * @param value
+   *          the object to copy, may be null or wrapped with its soft expiration.
+   *
+   * @return the copy.
+   */
+  private Object copy(Object value) {
+    if (value instanceof SoftTtlTranscoder.Envelope) {
+      SoftTtlTranscoder.Envelope envelope = (SoftTtlTranscoder.Envelope) value;
+      return new SoftTtlTranscoder.Envelope(copy(envelope.getValue()), envelope.getSoftExpiration());
+    }
+    if (value == null) {
+      return null;
+    }
+
+    Serializer serializer = configuration.getSerializer();
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      serializer.serialize(value, output);
+      return serializer.deserialize(new ByteArrayInputStream(output.toByteArray()));
+    } catch (IOException | ClassNotFoundException e) {
+      throw new CacheException("Impossible to copy an object of type '" + value.getClass().getName() + "'", e);
+    }
+  }
+
+  /**
+   * Verifies that an object can be written by the JDK serialization, the other serializers report unsupported objects
+   * themselves. Checked once, on the caller thread, by the public put methods.
+   *
+   * @param value
+   *          the object has to be stored.
+   */
+  private void checkSerializable(Object value) {
+    Object object = value instanceof SoftTtlTranscoder.Envelope ? ((SoftTtlTranscoder.Envelope) value).getValue()
+        : value;
+    if (configuration.getSerializer() instanceof JdkSerializer && object != null
+        && !Serializable.class.isAssignableFrom(object.getClass())) {
       throw new CacheException(
-          "Object of type '" + value.getClass().getName() + "' that's non-serializable is not supported by Memcached");
+          "Object of type '" + object.getClass().getName() + "' that's non-serializable is not supported by Memcached");
+    }
+  }
+
+  /**
+   * Stores an object identified by a key in Memcached.
+   *
+   * @param keyString
+   *          the object key
+   * @param encoded
+   *          the encoded object, in its soft expiration envelope if enabled.
+   *
+   * @return the stored keys: the object key and, if split, the keys of its chunks.
+   */
+  private Collection<String> storeInMemcached(String keyString, CachedData encoded) {
+    List<String> keyStrings = new ArrayList<String>(1);
+    sendSets(keyString, encoded, keyStrings, System.nanoTime());
+    return keyStrings;
+  }
+
+  /**
+   * Sends the sets storing an object, split in chunks if its encoded form exceeds the chunk size. The manifest of a
+   * split object is only set once all its chunks are stored: if one of them fails, the chunks and the previous object
+   * are deleted instead, as a manifest missing chunks would fail every read until it expires.
+   *
+   * @param keyString
+   *          the object key.
+   * @param encoded
+   *          the encoded object, in its soft expiration envelope if enabled.
+   * @param keyStrings
+   *          collects the stored keys: the object key and, if split, the keys of its chunks.
+   * @param start
+   *          the {@link System#nanoTime()} at which the store started.
+   *
+   * @return the future completed with true once the object is stored, false if it was not.
+   */
+  private CompletableFuture<Boolean> sendSets(String keyString, CachedData encoded, Collection<String> keyStrings,
+      long start) {
+    // the chunks go through the client of their object
+    MemcachedClient client = clients.get(keyString);
+    int objectExpiration = toObjectExpiration();
+    keyStrings.add(keyString);
+    if (configuration.getChunkSize() <= 0 || encoded.getData().length <= configuration.getChunkSize()) {
+      return sendSet(client, keyString, objectExpiration, encoded, ChunkedTranscoder.RAW, start);
+    }
+
+    ChunkedTranscoder.Manifest manifest = new ChunkedTranscoder.Manifest(encoded, configuration.getChunkSize());
+    CachedData[] chunks = ChunkedTranscoder.split(encoded, configuration.getChunkSize());
+    List<CompletableFuture<Boolean>> sets = new ArrayList<CompletableFuture<Boolean>>(chunks.length);
+    for (int i = 0; i < chunks.length; i++) {
+      String chunkKey = ChunkedTranscoder.toChunkKeyString(keyString, i);
+      sets.add(sendSet(client, chunkKey, objectExpiration, chunks[i], ChunkedTranscoder.RAW, start));
+      keyStrings.add(chunkKey);
+    }
+
+    return CompletableFuture.allOf(sets.toArray(new CompletableFuture<?>[0]))
+        .handle((nothing, failure) -> failure == null && sets.stream().allMatch(CompletableFuture::join))
+        .thenCompose(complete -> {
+          if (complete) {
+            return sendSet(client, keyString, objectExpiration, manifest, transcoder, start);
+          }
+          // the previous manifest of the key may refer to the chunks overwritten
+          client.delete(keyString);
+          for (String chunkKey : manifest.toChunkKeyStrings(keyString)) {
+            client.delete(chunkKey);
+          }
+          return CompletableFuture.completedFuture(false);
+        });
+  }
+
+  private <T> CompletableFuture<Boolean> sendSet(MemcachedClient client, String keyString, int expiration, T value,
+      Transcoder<T> valueTranscoder, long start) {
+    OperationFuture<Boolean> set = client.set(keyString, expiration, value, valueTranscoder);
+    set.addListener(future -> stored(future, start));
+    return toCompletableFuture(set);
+  }
+
+  private void stored(OperationFuture<?> future, long start) {
+    clientStatistics.stored(start);
+    if (!future.getStatus().isSuccess() && LOG.isDebugEnabled()) {
+      LOG.debug("Impossible to store '" + future.getKey() + "': " + future.getStatus().getMessage());
+    }
+  }
+
+  /**
+   * Tries to update an object value in memcached considering the cas validation.
+   * <p>
+   * Returns true if the object passed the cas validation and was modified.
+   *
+   * @param keyString
+   * @param value
+   *
+   * @return
+   */
+  private boolean storeInMemcached(String keyString, ObjectWithCas value) {
+    long start = System.nanoTime();
+    CASResponse response;
+    try {
+      response = clients.get(keyString).cas(keyString, value.getCas(), value.getObject(), transcoder);
+    } catch (RuntimeException e) {
+      clientStatistics.failed(e);
+      throw e;
+    } finally {
+      clientStatistics.stored(start);
     }
 
+    return isStored(response);
+  }
+
+  /**
+   * Tries to store an object identified by a key in Memcached.
+   * <p>
+   * Will fail if the object already exists.
+   *
+   * @param keyString
+   * @param value
+   * @param expiration
+   *          the expiration time, in seconds.
+   *
+   * @return
+   */
+  private boolean tryToAdd(String keyString, Object value, int expiration) {
+    long start = System.nanoTime();
     boolean done;
-    OperationFuture<Boolean> result;
+    OperationFuture<Boolean> result = clients.get(keyString).add(keyString, expiration, value, transcoder);
+
+    try {
+      done = result.get(timeout, configuration.getTimeUnit());
+    } catch (InterruptedException e) {
+      done = false;
+    } catch (ExecutionException e) {
+      clientStatistics.failed(e);
+      done = false;
+    } catch (TimeoutException e) {
+      // not a conflict, retrying would wait again
+      result.cancel(false);
+      clientStatistics.failed(e);
+      throw new CacheException(e);
+    } finally {
+      clientStatistics.added(start);
+    }
+
+    return done;
+  }
+
+  public Object removeObject(Object key, String id) {
+    NamespaceStatistics namespaceStatistics = getStatistics(id);
+    if (!isAvailable(id)) {
+      namespaceStatistics.shortCircuited();
+      invalidateLater(id);
+      return null;
+    }
+
+    long start = System.nanoTime();
+    try {
+      Object value = deleteObject(key, id);
+      namespaceStatistics.removed(start);
+      succeeded(start);
+      return value;
+    } catch (RuntimeException e) {
+      namespaceStatistics.failed();
+      failOpen(e);
+      invalidateLater(id);
+      return null;
+    }
+  }
+
+  private Object deleteObject(Object key, String id) {
+    String keyString = toKeyString(key, id);
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Removing object '" + keyString + "'");
+    }
+
+    if (writeBehind != null) {
+      writeBehind.discard(keyString);
+    }
+
+    Object fetched = fetch(keyString);
+    Object result = assemble(keyString, fetched);
+    if (result instanceof SoftTtlTranscoder.Envelope) {
+      result = ((SoftTtlTranscoder.Envelope) result).getValue();
+    }
+    if (fetched != null) {
+      clients.get(keyString).delete(keyString);
+    }
+    deleteChunks(keyString, fetched);
+    if (hotKeys != null) {
+      deleteReplicas(keyString);
+    }
+    return result;
+  }
+
+  /**
+   * Deletes the chunks of an object split in chunks.
+   *
+   * @param keyString
+   *          the object key.
+   * @param fetched
+   *          what was stored under the key, the manifest of the object if split.
+   */
+  private void deleteChunks(String keyString, Object fetched) {
+    if (fetched instanceof ChunkedTranscoder.Manifest) {
+      for (String chunkKey : ((ChunkedTranscoder.Manifest) fetched).toChunkKeyStrings(keyString)) {
+        clients.get(keyString).delete(chunkKey);
+      }
+    }
+  }
+
+  /**
+   * Deletes the replicas of a key along with their chunks; the replicas may have been stored by another client while
+   * the key was hot.
+   *
+   * @param keyString
+   *          the object key.
+   */
+  private void deleteReplicas(String keyString) {
+    List<String> replicaKeys = Arrays.asList(hotKeys.replicasOf(keyString));
+
+    // read as stored, only the manifests are decoded
+    long start = System.nanoTime();
+    Map<String, CachedData> replicas;
+    try {
+      replicas = clients.get(keyString).getBulk(replicaKeys, ChunkedTranscoder.RAW);
+    } catch (RuntimeException e) {
+      clientStatistics.failed(e);
+      throw e;
+    } finally {
+      clientStatistics.retrieved(start);
+    }
+
+    for (String replicaKey : replicaKeys) {
+      clients.get(replicaKey).delete(replicaKey);
+      CachedData replica = replicas.get(replicaKey);
+      if (replica != null && (replica.getFlags() & ChunkedTranscoder.CHUNKED) != 0) {
+        deleteChunks(replicaKey, transcoder.decode(replica));
+      }
+    }
+  }
+
+  public void removeGroup(String id) {
+    NamespaceStatistics namespaceStatistics = getStatistics(id);
+    if (!isAvailable(id)) {
+      namespaceStatistics.shortCircuited();
+      invalidateLater(id);
+      return;
+    }
+
+    long start = System.nanoTime();
+    try {
+      deleteGroup(id, namespaceStatistics);
+      namespaceStatistics.cleared(start);
+      succeeded(start);
+    } catch (RuntimeException e) {
+      namespaceStatistics.failed();
+      failOpen(e);
+      invalidateLater(id);
+    }
+  }
+
+  /**
+   * Tells whether an operation on a cache id can be sent: the circuit breaker lets it through, and the clear of the
+   * cache id skipped while failing open, if any, was replayed first.
+   *
+   * @param id
+   *          the cache id.
+   *
+   * @return true if the operation can be sent.
+   */
+  private boolean isAvailable(String id) {
+    if (circuitBreaker == null) {
+      return true;
+    }
+    if (!circuitBreaker.allowRequest()) {
+      return false;
+    }
+    if (!pendingInvalidations.containsKey(id)) {
+      return true;
+    }
+    if (!pendingInvalidations.replace(id, Boolean.FALSE, Boolean.TRUE)) {
+      // replayed by another thread meanwhile, the cache id entries can't be trusted yet
+      return false;
+    }
+
+    long start = System.nanoTime();
+    try {
+      deleteGroup(id, getStatistics(id));
+    } catch (RuntimeException e) {
+      pendingInvalidations.put(id, Boolean.FALSE);
+      circuitBreaker.recordFailure();
+      return false;
+    }
+    pendingInvalidations.remove(id, Boolean.TRUE);
+    circuitBreaker.recordSuccess(start);
+    return true;
+  }
+
+  /**
+   * Records a cache id whose entries could not be invalidated, to clear it before its next use.
+   *
+   * @param id
+   *          the cache id.
+   */
+  private void invalidateLater(String id) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Cache id '" + id + "' will be cleared once Memcached is reachable");
+    }
+    pendingInvalidations.put(id, Boolean.FALSE);
+  }
 
-    if (configuration.isCompressionEnabled()) {
-      result = client.add(keyString, configuration.getExpiration(), value, new CompressorTranscoder());
-    } else {
-      result = client.add(keyString, configuration.getExpiration(), value);
+  private void succeeded(long start) {
+    if (circuitBreaker != null) {
+      circuitBreaker.recordSuccess(start);
     }
+  }
 
-    try {
-      done = result.get();
-    } catch (InterruptedException e) {
-      done = false;
-    } catch (ExecutionException e) {
-      done = false;
+  /**
+   * Records a failed operation when the circuit breaker is enabled, so the cache fails open, rethrows it otherwise.
+   *
+   * @param failure
+   *          the operation failure.
+   */
+  private void failOpen(Throwable failure) {
+    if (circuitBreaker == null) {
+      throw failure instanceof RuntimeException ? (RuntimeException) failure : new CompletionException(failure);
     }
 
-    return done;
+    circuitBreaker.recordFailure();
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Memcached operation failed, failing open: " + failure);
+    }
   }
 
-  public Object removeObject(Object key) {
-    String keyString = toKeyString(key);
+  @SuppressWarnings("unchecked")
+  private void deleteGroup(String id, NamespaceStatistics namespaceStatistics) {
+    if (writeBehind != null) {
+      writeBehind.discardGroup(id);
+    }
 
-    if (LOG.isDebugEnabled()) {
-      LOG.debug("Removing object '" + keyString + "'");
+    if (configuration.getInvalidationMode() == InvalidationMode.GENERATION) {
+      incrementGeneration(id);
+      return;
     }
 
-    Object result = getObject(key);
-    if (result != null) {
-      client.delete(keyString);
+    if (configuration.getNearCacheSize() > 0) {
+      // let the near caches of the other nodes know that their entries are stale
+      incrementGeneration(id);
     }
-    return result;
-  }
 
-  @SuppressWarnings("unchecked")
-  public void removeGroup(String id) {
     String groupKey = toKeyString(id);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(configuration.getClearTimeout());
+    Set<String> deletedKeys = ConcurrentHashMap.newKeySet();
 
     // remove namespace key into memcached
-    // Optimistic lock approach...
+    // Optimistic lock approach: on conflict, only the keys added meanwhile are deleted
+    int attempts = 0;
     boolean jobDone = false;
+    Set<String> groupValues = null;
 
     while (!jobDone) {
       ObjectWithCas group = getGroup(groupKey);
-      Set<String> groupValues;
 
       if (group == null || group.getObject() == null) {
         if (LOG.isDebugEnabled()) {
@@ -402,31 +1501,691 @@ final class MemcachedClientWrapper {
         return;
       }
 
+      groupValues = (Set<String>) group.getObject();
+      List<String> pendingKeys = new ArrayList<String>(groupValues.size());
+      for (String key : groupValues) {
+        if (!deletedKeys.contains(key)) {
+          pendingKeys.add(key);
+        }
+      }
+
       if (LOG.isDebugEnabled()) {
-        LOG.debug("Flushing keys: " + group);
+        LOG.debug("Flushing " + pendingKeys.size() + " keys of group: " + groupKey);
       }
 
-      groupValues = (Set<String>) group.getObject();
+      deleteAll(pendingKeys, deletedKeys, deadline);
+
+      // the keys whose deletion did not complete stay in the group, to be deleted by the next clear
+      groupValues.removeAll(deletedKeys);
+
+      jobDone = storeInMemcached(groupKey, group);
+
+      attempts++;
+      namespaceStatistics.casAttempted();
+      if (!jobDone) {
+        namespaceStatistics.casFailed();
+        if (!casRetryPolicy.canRetry(attempts)) {
+          // the deleted entries stay listed in the group, the next clear will skip them quickly
+          namespaceStatistics.casGaveUp();
+          throw new CacheException("Impossible to clear the group of cache '" + id + "' after " + attempts
+              + " attempts, it is updated concurrently");
+        }
+        casRetryPolicy.backoff(attempts);
+      }
+    }
+
+    if (!groupValues.isEmpty()) {
+      throw new CacheException("Impossible to delete " + groupValues.size() + " entries of cache '" + id + "' within "
+          + configuration.getClearTimeout() + "ms");
+    }
+  }
+
+  /**
+   * Deletes keys with pipelined requests, keeping at most the configured number of deletions in flight.
+   *
+   * @param keys
+   *          the keys to delete.
+   * @param deletedKeys
+   *          collects the keys known to be deleted, or absent.
+   * @param deadline
+   *          the {@link System#nanoTime()} after which the deletions not sent or completed are abandoned.
+   */
+  private void deleteAll(List<String> keys, final Set<String> deletedKeys, long deadline) {
+    int window = configuration.getClearConcurrency();
+    final Semaphore inFlight = new Semaphore(window);
+
+    try {
+      for (final String key : keys) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0 || !inFlight.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+          return;
+        }
+        clients.get(key).delete(key).addListener(new OperationCompletionListener() {
+          @Override
+          public void onComplete(OperationFuture<?> future) {
+            try {
+              OperationStatus status = future.getStatus();
+              if (status.isSuccess() || status.getStatusCode() == StatusCode.ERR_NOT_FOUND) {
+                deletedKeys.add(key);
+              }
+            } finally {
+              inFlight.release();
+            }
+          }
+        });
+      }
+
+      // wait for the last deletions to complete
+      if (inFlight.tryAcquire(window, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        inFlight.release(window);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Moves the cache id to its next generation.
+   *
+   * @param id
+   *          the cache id.
+   */
+  private void incrementGeneration(String id) {
+    String generationKey = toGenerationKeyString(id);
+    long generation = clients.get(generationKey).incr(generationKey, 1, System.currentTimeMillis(), 0);
+    remember(id, generation);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Cache id '" + id + "' moved to generation " + generation);
+    }
+  }
+
+  /**
+   * Retrieves an object without blocking the calling thread.
+   *
+   * @param key
+   *          the MyBatis object key.
+   * @param id
+   *          the cache id.
+   *
+   * @return the future completed with the object, or null if not stored.
+   */
+  public CompletableFuture<Object> getObjectAsync(Object key, String id) {
+    NamespaceStatistics namespaceStatistics = getStatistics(id);
+    return isAvailableAsync(id).thenCompose(available -> {
+      if (!available) {
+        namespaceStatistics.shortCircuited();
+        return CompletableFuture.completedFuture(null);
+      }
+
+      long start = System.nanoTime();
+      return toKeyStringAsync(key, id).thenCompose(
+          keyString -> retrieveReplicaAsync(keyString).thenCompose(retrieved -> serveAsync(keyString, retrieved)))
+          .handle((value, failure) -> {
+            if (failure == null) {
+              namespaceStatistics.got(value != null, start);
+              succeeded(start);
+              return value;
+            }
+            namespaceStatistics.failed();
+            failOpen(failure);
+            return null;
+          });
+    });
+  }
+
+  /**
+   * Stores an object without blocking the calling thread.
+   *
+   * @param key
+   *          the MyBatis object key.
+   * @param value
+   *          the object.
+   * @param id
+   *          the cache id.
+   *
+   * @return the future completed once the object is stored and added to the cache id group.
+   */
+  public CompletableFuture<Void> putObjectAsync(Object key, Object value, String id) {
+    try {
+      // not a Memcached failure, never ignored
+      checkSerializable(value);
+    } catch (CacheException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    NamespaceStatistics namespaceStatistics = getStatistics(id);
+    return isAvailableAsync(id).thenCompose(available -> {
+      if (!available) {
+        namespaceStatistics.shortCircuited();
+        return CompletableFuture.completedFuture(null);
+      }
+
+      long start = System.nanoTime();
+      return toKeyStringAsync(key, id).thenCompose(keyString -> storeObjectAsync(keyString, value, id))
+          .handle((nothing, failure) -> {
+            if (failure == null) {
+              namespaceStatistics.put(start);
+              succeeded(start);
+            } else {
+              namespaceStatistics.failed();
+              failOpen(failure);
+            }
+            return null;
+          });
+    });
+  }
+
+  /**
+   * Removes all the objects of a cache id without blocking the calling thread.
+   *
+   * @param id
+   *          the cache id.
+   *
+   * @return the future completed once the objects are invalidated.
+   */
+  public CompletableFuture<Void> removeGroupAsync(String id) {
+    NamespaceStatistics namespaceStatistics = getStatistics(id);
+    return isAvailableAsync(id).thenCompose(available -> {
+      if (!available) {
+        namespaceStatistics.shortCircuited();
+        invalidateLater(id);
+        return CompletableFuture.completedFuture(null);
+      }
+
+      long start = System.nanoTime();
+      return deleteGroupAsync(id, namespaceStatistics).handle((nothing, failure) -> {
+        if (failure == null) {
+          namespaceStatistics.cleared(start);
+          succeeded(start);
+        } else {
+          namespaceStatistics.failed();
+          failOpen(failure);
+          invalidateLater(id);
+        }
+        return null;
+      });
+    });
+  }
+
+  /**
+   * Tells without blocking whether an operation on a cache id can be sent, see {@link #isAvailable(String)}.
+   *
+   * @param id
+   *          the cache id.
+   *
+   * @return the future completed with true if the operation can be sent.
+   */
+  private CompletableFuture<Boolean> isAvailableAsync(String id) {
+    if (circuitBreaker == null) {
+      return CompletableFuture.completedFuture(true);
+    }
+    if (!circuitBreaker.allowRequest()) {
+      return CompletableFuture.completedFuture(false);
+    }
+    if (!pendingInvalidations.containsKey(id)) {
+      return CompletableFuture.completedFuture(true);
+    }
+    if (!pendingInvalidations.replace(id, Boolean.FALSE, Boolean.TRUE)) {
+      return CompletableFuture.completedFuture(false);
+    }
+
+    long start = System.nanoTime();
+    CompletableFuture<Void> replayed;
+    try {
+      replayed = deleteGroupAsync(id, getStatistics(id));
+    } catch (RuntimeException e) {
+      replayed = CompletableFuture.failedFuture(e);
+    }
+    return replayed.handle((nothing, failure) -> {
+      if (failure != null) {
+        pendingInvalidations.put(id, Boolean.FALSE);
+        circuitBreaker.recordFailure();
+        return false;
+      }
+      pendingInvalidations.remove(id, Boolean.TRUE);
+      circuitBreaker.recordSuccess(start);
+      return true;
+    });
+  }
+
+  private CompletableFuture<String> toKeyStringAsync(Object key, String id) {
+    if (configuration.getInvalidationMode() != InvalidationMode.GENERATION) {
+      try {
+        return CompletableFuture.completedFuture(toKeyString(key));
+      } catch (RuntimeException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+    return currentGenerationAsync(id).thenApply(generation -> toKeyString(key, generation));
+  }
+
+  /**
+   * Retrieves an object without blocking, see {@link #retrieveReplica(String)}.
+   *
+   * @param keyString
+   *          the object key.
+   *
+   * @return the future completed with the retrieved object, null if not stored.
+   */
+  private CompletableFuture<Object> retrieveReplicaAsync(String keyString) {
+    String replicaKey = hotKeys != null ? hotKeys.select(keyString) : keyString;
+    if (replicaKey.equals(keyString)) {
+      return retrieveAsync(keyString);
+    }
+    return retrieveAsync(replicaKey).thenCompose(
+        retrieved -> retrieved != null ? CompletableFuture.completedFuture(retrieved) : retrieveAsync(keyString));
+  }
+
+  private CompletableFuture<Object> retrieveAsync(String keyString) {
+    return fetchAsync(keyString).thenCompose(fetched -> assembleAsync(keyString, fetched));
+  }
+
+  private CompletableFuture<Object> assembleAsync(String keyString, Object fetched) {
+    if (!(fetched instanceof ChunkedTranscoder.Manifest)) {
+      return CompletableFuture.completedFuture(fetched);
+    }
+
+    ChunkedTranscoder.Manifest manifest = (ChunkedTranscoder.Manifest) fetched;
+    long start = System.nanoTime();
+    BulkFuture<Map<String, CachedData>> bulk = clients.get(keyString)
+        .asyncGetBulk(Arrays.asList(manifest.toChunkKeyStrings(keyString)), ChunkedTranscoder.RAW);
+    CompletableFuture<Map<String, CachedData>> chunks = new CompletableFuture<Map<String, CachedData>>();
+    bulk.addListener(completed -> complete(chunks, bulk));
+
+    return chunks.orTimeout(timeout, configuration.getTimeUnit()).handle((retrieved, failure) -> {
+      clientStatistics.retrieved(start);
+      if (failure != null) {
+        bulk.cancel(false);
+        CacheException cause = toCacheException(failure);
+        clientStatistics.failed(cause);
+        throw cause;
+      }
+      return decode(keyString, manifest, retrieved);
+    });
+  }
+
+  private CompletableFuture<Object> fetchAsync(String keyString) {
+    long start = System.nanoTime();
+    CompletableFuture<Object> retrieved;
+    Future<?> operation;
 
+    if (readBatcher != null) {
+      CompletableFuture<CachedData> batched = readBatcher.get(keyString);
+      retrieved = batched.thenApply(encoded -> encoded == null ? null : transcoder.decode(encoded));
+      operation = batched;
+    } else {
+      GetFuture<Object> get = clients.get(keyString).asyncGet(keyString, transcoder);
+      retrieved = new CompletableFuture<Object>();
+      get.addListener(completed -> complete(retrieved, get));
+      operation = get;
+    }
+
+    return retrieved.orTimeout(timeout, configuration.getTimeUnit()).handle((value, failure) -> {
+      clientStatistics.retrieved(start);
+      if (failure != null) {
+        operation.cancel(false);
+        CacheException cause = toCacheException(failure);
+        clientStatistics.failed(cause);
+        throw cause;
+      }
+      return value;
+    });
+  }
+
+  /**
+   * Unwraps a retrieved object without blocking, see {@link #serve(String, Object)}.
+   *
+   * @param keyString
+   *          the object key.
+   * @param retrieved
+   *          the retrieved object, possibly in an envelope.
+   *
+   * @return the future completed with the object to serve, null if the caller has to reload it.
+   */
+  private CompletableFuture<Object> serveAsync(String keyString, Object retrieved) {
+    if (!(retrieved instanceof SoftTtlTranscoder.Envelope)) {
+      return CompletableFuture.completedFuture(retrieved);
+    }
+
+    SoftTtlTranscoder.Envelope envelope = (SoftTtlTranscoder.Envelope) retrieved;
+    if (!envelope.isStale(System.currentTimeMillis())) {
+      return CompletableFuture.completedFuture(envelope.getValue());
+    }
+
+    long start = System.nanoTime();
+    String refreshKey = toRefreshKeyString(keyString, envelope);
+    OperationFuture<Boolean> lock = clients.get(refreshKey).add(refreshKey,
+        configuration.getSoftTtlRefresh(), Boolean.TRUE, transcoder);
+    return toCompletableFuture(lock).orTimeout(timeout, configuration.getTimeUnit())
+        .handle((locked, failure) -> {
+          clientStatistics.added(start);
+          if (failure != null) {
+            // another caller may be reloading it, keep serving the stale object
+            lock.cancel(false);
+            clientStatistics.failed(toCacheException(failure));
+            return envelope.getValue();
+          }
+          return Boolean.TRUE.equals(locked) ? null : envelope.getValue();
+        });
+  }
+
+  private CompletableFuture<Void> storeObjectAsync(String keyString, Object value, String id) {
+    if (singleFlight != null) {
+      singleFlight.loaded(keyString, value);
+    }
+
+    CachedData encoded = encode(value);
+    if (writeBehind != null) {
+      writeBehind.enqueue(id, keyString, encoded);
+      return CompletableFuture.completedFuture(null);
+    }
+
+    long start = System.nanoTime();
+    Set<String> keyStrings = new LinkedHashSet<String>();
+    List<CompletableFuture<Boolean>> sets = new ArrayList<CompletableFuture<Boolean>>();
+    for (String storedKey : toStoredKeyStrings(keyString)) {
+      sets.add(sendSets(storedKey, encoded, keyStrings, start));
+    }
+    CompletableFuture<Void> stored = CompletableFuture.allOf(sets.toArray(new CompletableFuture<?>[0]));
+
+    if (configuration.getInvalidationMode() != InvalidationMode.GROUP) {
+      return stored;
+    }
+    return CompletableFuture.allOf(stored, addToGroupAsync(id, keyStrings, 1));
+  }
+
+  /**
+   * Adds stored keys to the group of their cache id, chaining the CAS attempts on the operations completions.
+   *
+   * @param id
+   *          the cache id.
+   * @param keyStrings
+   *          the stored keys.
+   * @param attempt
+   *          the number of this attempt, starting at 1.
+   *
+   * @return the future completed once the group is updated, or given up.
+   */
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<Void> addToGroupAsync(String id, Set<String> keyStrings, int attempt) {
+    String groupKey = toKeyString(id);
+    NamespaceStatistics namespaceStatistics = getStatistics(id);
+
+    return toCompletableFuture(clients.get(groupKey).asyncGets(groupKey, transcoder)).thenCompose(group -> {
+      Set<String> groupValues;
+      CompletableFuture<Boolean> update;
+      long start = System.nanoTime();
+
+      if (group == null || group.getValue() == null) {
+        groupValues = new HashSet<String>(keyStrings);
+        update = toCompletableFuture(clients.get(groupKey).add(groupKey, expiration, groupValues, transcoder))
+            .whenComplete((done, failure) -> clientStatistics.added(start));
+      } else {
+        groupValues = (Set<String>) group.getValue();
+        groupValues.addAll(keyStrings);
+        update = toCompletableFuture(clients.get(groupKey).asyncCAS(groupKey, group.getCas(), groupValues, transcoder))
+            .whenComplete((response, failure) -> clientStatistics.stored(start))
+            .thenApply(MemcachedClientWrapper::isStored);
+      }
+
+      return update.thenCompose(done -> {
+        namespaceStatistics.casAttempted();
+        if (done) {
+          return CompletableFuture.completedFuture(null);
+        }
+
+        namespaceStatistics.casFailed();
+        if (!casRetryPolicy.canRetry(attempt)) {
+          namespaceStatistics.casGaveUp();
+          giveUpGroupUpdate(id, groupKey, keyStrings, groupValues);
+          return CompletableFuture.completedFuture(null);
+        }
+        return retryAsync(attempt, () -> addToGroupAsync(id, keyStrings, attempt + 1));
+      });
+    });
+  }
+
+  private CompletableFuture<Void> deleteGroupAsync(String id, NamespaceStatistics namespaceStatistics) {
+    if (writeBehind != null) {
+      writeBehind.discardGroup(id);
+    }
+
+    if (configuration.getInvalidationMode() == InvalidationMode.GENERATION) {
+      return incrementGenerationAsync(id);
+    }
+
+    String groupKey = toKeyString(id);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(configuration.getClearTimeout());
+    CompletableFuture<Void> cleared = clearGroupAsync(id, groupKey, ConcurrentHashMap.newKeySet(), deadline, 1,
+        namespaceStatistics);
+
+    if (configuration.getNearCacheSize() > 0) {
+      // let the near caches of the other nodes know that their entries are stale
+      return CompletableFuture.allOf(incrementGenerationAsync(id), cleared);
+    }
+    return cleared;
+  }
+
+  /**
+   * Deletes the keys of a cache id group then removes them from the group, chaining the CAS attempts on the operations
+   * completions.
+   *
+   * @param id
+   *          the cache id.
+   * @param groupKey
+   *          the group key.
+   * @param deletedKeys
+   *          collects the keys known to be deleted, or absent, across the attempts.
+   * @param deadline
+   *          the {@link System#nanoTime()} after which the deletions not sent or completed are abandoned.
+   * @param attempt
+   *          the number of this attempt, starting at 1.
+   * @param namespaceStatistics
+   *          the cache id statistics.
+   *
+   * @return the future completed once the group is cleared.
+   */
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<Void> clearGroupAsync(String id, String groupKey, Set<String> deletedKeys, long deadline,
+      int attempt, NamespaceStatistics namespaceStatistics) {
+    return toCompletableFuture(clients.get(groupKey).asyncGets(groupKey, transcoder)).thenCompose(group -> {
+      if (group == null || group.getValue() == null) {
+        return CompletableFuture.completedFuture(null);
+      }
+
+      Set<String> groupValues = (Set<String>) group.getValue();
+      List<String> pendingKeys = new ArrayList<String>(groupValues.size());
       for (String key : groupValues) {
-        client.delete(key);
+        if (!deletedKeys.contains(key)) {
+          pendingKeys.add(key);
+        }
       }
 
-      if (LOG.isDebugEnabled()) {
-        LOG.debug("Flushing group: " + groupKey);
+      return new AsyncDeletion(pendingKeys, deletedKeys, deadline).start().thenCompose(nothing -> {
+        // the keys whose deletion did not complete stay in the group, to be deleted by the next clear
+        groupValues.removeAll(deletedKeys);
+        return toCompletableFuture(clients.get(groupKey).asyncCAS(groupKey, group.getCas(), groupValues, transcoder));
+      }).thenCompose(response -> {
+        namespaceStatistics.casAttempted();
+        if (isStored(response)) {
+          if (!groupValues.isEmpty()) {
+            throw new CacheException("Impossible to delete " + groupValues.size() + " entries of cache '" + id
+                + "' within " + configuration.getClearTimeout() + "ms");
+          }
+          return CompletableFuture.completedFuture(null);
+        }
+
+        namespaceStatistics.casFailed();
+        if (!casRetryPolicy.canRetry(attempt)) {
+          namespaceStatistics.casGaveUp();
+          throw new CacheException("Impossible to clear the group of cache '" + id + "' after " + attempt
+              + " attempts, it is updated concurrently");
+        }
+        return retryAsync(attempt,
+            () -> clearGroupAsync(id, groupKey, deletedKeys, deadline, attempt + 1, namespaceStatistics));
+      });
+    });
+  }
+
+  /**
+   * Deletes keys without blocking, keeping at most the configured number of deletions in flight: each completed
+   * deletion sends the next one.
+   */
+  private final class AsyncDeletion implements OperationCompletionListener {
+
+    private final List<String> keys;
+
+    private final Set<String> deletedKeys;
+
+    private final long deadline;
+
+    private final AtomicInteger sent = new AtomicInteger();
+
+    private final AtomicInteger completed = new AtomicInteger();
+
+    private final CompletableFuture<Void> done = new CompletableFuture<Void>();
+
+    AsyncDeletion(List<String> keys, Set<String> deletedKeys, long deadline) {
+      this.keys = keys;
+      this.deletedKeys = deletedKeys;
+      this.deadline = deadline;
+    }
+
+    CompletableFuture<Void> start() {
+      if (keys.isEmpty()) {
+        done.complete(null);
+        return done;
       }
 
-      groupValues = (Set<String>) group.getObject();
-      groupValues.clear();
+      // the deletions not completed by the deadline are abandoned
+      done.completeOnTimeout(null, Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+      for (int i = Math.min(configuration.getClearConcurrency(), keys.size()); i > 0; i--) {
+        sendNext();
+      }
+      return done;
+    }
 
-      jobDone = storeInMemcached(groupKey, group);
+    private void sendNext() {
+      int index = sent.getAndIncrement();
+      if (index < keys.size() && !done.isDone()) {
+        String key = keys.get(index);
+        clients.get(key).delete(key).addListener(this);
+      }
+    }
+
+    @Override
+    public void onComplete(OperationFuture<?> future) {
+      OperationStatus status = future.getStatus();
+      if (status.isSuccess() || status.getStatusCode() == StatusCode.ERR_NOT_FOUND) {
+        deletedKeys.add(future.getKey());
+      }
+      if (completed.incrementAndGet() == keys.size()) {
+        done.complete(null);
+      } else {
+        sendNext();
+      }
+    }
+
+  }
+
+  private CompletableFuture<Void> incrementGenerationAsync(String id) {
+    String generationKey = toGenerationKeyString(id);
+    return toCompletableFuture(clients.get(generationKey).asyncIncr(generationKey, 1, System.currentTimeMillis(), 0))
+        .thenAccept(generation -> {
+          remember(id, generation);
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("Cache id '" + id + "' moved to generation " + generation);
+          }
+        });
+  }
+
+  /**
+   * Runs the next attempt of an operation after the backoff of the retry policy, without blocking a thread meanwhile.
+   *
+   * @param attempt
+   *          the number of the failed attempt.
+   * @param nextAttempt
+   *          runs the next attempt.
+   *
+   * @return the future of the next attempt.
+   */
+  private CompletableFuture<Void> retryAsync(int attempt, Supplier<CompletableFuture<Void>> nextAttempt) {
+    long backoff = casRetryPolicy.backoffNanos(attempt);
+    if (backoff <= 0) {
+      return nextAttempt.get();
+    }
+    Executor delayed = CompletableFuture.delayedExecutor(backoff, TimeUnit.NANOSECONDS);
+    return CompletableFuture.supplyAsync(nextAttempt, delayed).thenCompose(future -> future);
+  }
+
+  private static boolean isStored(CASResponse response) {
+    return response == CASResponse.OK || response == CASResponse.OBSERVE_MODIFIED;
+  }
+
+  /**
+   * Converts an operation future in a completable future, completed by the client I/O thread: the dependent stages must
+   * not block.
+   *
+   * @param operation
+   *          the operation future.
+   *
+   * @return the completable future.
+   */
+  private static <T> CompletableFuture<T> toCompletableFuture(OperationFuture<T> operation) {
+    CompletableFuture<T> future = new CompletableFuture<T>();
+    operation.addListener(completed -> complete(future, operation));
+    return future;
+  }
+
+  private static <T> void complete(CompletableFuture<T> future, Future<T> operation) {
+    try {
+      future.complete(operation.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.completeExceptionally(new CacheException(e));
+    } catch (ExecutionException e) {
+      future.completeExceptionally(new CacheException(e.getCause()));
+    } catch (RuntimeException e) {
+      future.completeExceptionally(new CacheException(e));
     }
   }
 
+  private static CacheException toCacheException(Throwable failure) {
+    Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause()
+        : failure;
+    return cause instanceof CacheException ? (CacheException) cause : new CacheException(cause);
+  }
+
   @Override
   protected void finalize() throws Throwable {
-    client.shutdown(configuration.getTimeout(), configuration.getTimeUnit());
+    if (readBatcher != null) {
+      readBatcher.shutdown();
+    }
+    if (writeBehind != null) {
+      writeBehind.shutdown();
+    }
+    clients.shutdown(configuration.getTimeout(), configuration.getTimeUnit());
     super.finalize();
   }
 
+  /**
+   * A generation known by this client, reused until its deadline.
+   */
+  private static final class CachedGeneration {
+
+    private final long generation;
+
+    private final long deadline;
+
+    CachedGeneration(long generation, long deadline) {
+      this.generation = generation;
+      this.deadline = deadline;
+    }
+
+    boolean isFresh() {
+      return System.nanoTime() - deadline < 0;
+    }
+
+  }
+
 }
@@ -20,6 +20,9 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import net.spy.memcached.ConnectionFactory;
+import net.spy.memcached.ConnectionFactoryBuilder;
+import net.spy.memcached.DefaultHashAlgorithm;
+import net.spy.memcached.FailureMode;
 
 /**
  * The Memcached client configuration.
@@ -83,6 +86,244 @@ final class MemcachedConfiguration {
    */
   private String password;
 
+  /**
+   * The strategy used to invalidate the entries of a cache id.
+   */
+  private InvalidationMode invalidationMode;
+
+  /**
+   * The maximum number of entries kept in process per cache id, 0 to disable the near cache.
+   */
+  private int nearCacheSize;
+
+  /**
+   * The time to live, in seconds, of the entries kept in process.
+   */
+  private int nearCacheTimeToLive;
+
+  /**
+   * The minimum interval, in milliseconds, between two checks of a cache id generation by the near cache.
+   */
+  private int nearCacheCheckInterval;
+
+  /**
+   * The comma separated cache id patterns, <code>*</code> matching any sequence, routed to a named client.
+   */
+  private String namespaces;
+
+  /**
+   * The maximum number of concurrent reads coalesced in a single multi-get, 0 to disable read batching.
+   */
+  private int readBatchSize;
+
+  /**
+   * The maximum time, in microseconds, a batched read waits for other reads to join its multi-get.
+   */
+  private int readBatchWindow;
+
+  /**
+   * The flag to deduplicate the concurrent reads of a same key.
+   */
+  private boolean usingSingleFlight;
+
+  /**
+   * The maximum time, in milliseconds, callers missing a key wait for the first one to put it, 0 to not wait.
+   */
+  private int singleFlightLoadWait;
+
+  /**
+   * The representation of the key digests.
+   */
+  private KeyFormat keyFormat;
+
+  /**
+   * The serializer used to write the cached objects.
+   */
+  private Serializer serializer;
+
+  /**
+   * The classes registered to the serializer, when it supports registration.
+   */
+  private List<Class<?>> serializerClasses;
+
+  /**
+   * The codec used to compress the objects.
+   */
+  private CompressionCodec compressionCodec;
+
+  /**
+   * The compression level, -1 for the codec default.
+   */
+  private int compressionLevel;
+
+  /**
+   * The serialized size, in bytes, from which objects are compressed.
+   */
+  private int compressionThreshold;
+
+  /**
+   * The maximum number of writes waiting to be sent in background, 0 to write synchronously.
+   */
+  private int writeBehindQueueSize;
+
+  /**
+   * The number of threads sending the writes in background.
+   */
+  private int writeBehindThreads;
+
+  /**
+   * The maximum number of writes sent per batch in background.
+   */
+  private int writeBehindBatchSize;
+
+  /**
+   * The maximum number of deletions in flight while clearing a cache.
+   */
+  private int clearConcurrency;
+
+  /**
+   * The maximum time, in milliseconds, spent deleting the entries of a cache.
+   */
+  private int clearTimeout;
+
+  /**
+   * The maximum number of attempts of a group update, 0 for unlimited.
+   */
+  private int casMaxAttempts;
+
+  /**
+   * The maximum wait, in milliseconds, before the first retry of a group update.
+   */
+  private int casBackoff;
+
+  /**
+   * The maximum wait, in milliseconds, before any retry of a group update.
+   */
+  private int casMaxBackoff;
+
+  /**
+   * What to do when a group update exhausts its attempts.
+   */
+  private CasFallback casFallback;
+
+  /**
+   * Whether the statistics MBeans are registered.
+   */
+  private boolean jmxEnabled;
+
+  /**
+   * The number of consecutive failures after which the client is bypassed, 0 to disable the circuit breaker.
+   */
+  private int circuitBreakerThreshold;
+
+  /**
+   * The duration (in milliseconds) above which a successful operation counts as a failure, 0 to disable.
+   */
+  private int circuitBreakerSlowCall;
+
+  /**
+   * The time (in milliseconds) the client is bypassed before being probed again.
+   */
+  private int circuitBreakerCoolDown;
+
+  /**
+   * The time, in seconds, after which the stored objects are served stale while a single caller reloads them, 0 if
+   * disabled.
+   */
+  private int softTtl;
+
+  /**
+   * The time, in seconds, a caller elected to reload a stale object has before another one is elected.
+   */
+  private int softTtlRefresh;
+
+  /**
+   * The maximum percentage of the expiration time randomly taken off the one of each stored object, so that objects
+   * stored together do not expire together.
+   */
+  private int expirationJitter;
+
+  /**
+   * The number of replicas of the hot keys, 0 if disabled.
+   */
+  private int hotKeyReplicas;
+
+  /**
+   * One read out of this number is sampled by the hot keys detection.
+   */
+  private int hotKeySampling;
+
+  /**
+   * The number of recent reads from which a key is hot.
+   */
+  private int hotKeyThreshold;
+
+  /**
+   * The size, in bytes, above which the encoded objects are split in chunks, 0 if disabled.
+   */
+  private int chunkSize;
+
+  /**
+   * The number of clients the operations are striped over, each one with its own I/O thread and connections.
+   */
+  private int poolSize;
+
+  /**
+   * The protocol used to talk to the Memcached server(s).
+   */
+  private ConnectionFactoryBuilder.Protocol protocol;
+
+  /**
+   * The strategy locating the server of a key.
+   */
+  private ConnectionFactoryBuilder.Locator locator;
+
+  /**
+   * The algorithm hashing the keys to locate their server.
+   */
+  private DefaultHashAlgorithm hashAlgorithm;
+
+  /**
+   * The capacity of the operations queue of every connection.
+   */
+  private int opQueueSize;
+
+  /**
+   * The time, in milliseconds, an operation waits for room in a full operations queue.
+   */
+  private int opQueueMaxBlockTime;
+
+  /**
+   * The time, in milliseconds, after which an operation times out.
+   */
+  private int opTimeout;
+
+  /**
+   * The size, in bytes, of the read buffer of every connection.
+   */
+  private int readBufferSize;
+
+  /**
+   * The flag to disable the Nagle algorithm on the connections.
+   */
+  private boolean tcpNoDelay;
+
+  /**
+   * What happens to the operations of a server that is down.
+   */
+  private FailureMode failureMode;
+
+  /**
+   * The number of consecutive timeouts after which a connection is dropped and reopened.
+   */
+  private int timeoutExceptionThreshold;
+
+  /**
+   * The time, in milliseconds, a generation read from Memcached is reused before being read again, 0 to read it every
+   * time.
+   */
+  private int generationRefresh;
+
   /**
    * @return the keyPrefix
    */
@@ -248,13 +489,725 @@ final class MemcachedConfiguration {
     this.password = password;
   }
 
+  /**
+   * @return the invalidationMode
+   */
+  public InvalidationMode getInvalidationMode() {
+    return invalidationMode;
+  }
+
+  /**
+   * @param invalidationMode
+   *          the invalidationMode to set
+   */
+  public void setInvalidationMode(InvalidationMode invalidationMode) {
+    this.invalidationMode = invalidationMode;
+  }
+
+  /**
+   * @return the nearCacheSize
+   */
+  public int getNearCacheSize() {
+    return nearCacheSize;
+  }
+
+  /**
+   * @param nearCacheSize
+   *          the nearCacheSize to set
+   */
+  public void setNearCacheSize(int nearCacheSize) {
+    this.nearCacheSize = nearCacheSize;
+  }
+
+  /**
+   * @return the nearCacheTimeToLive
+   */
+  public int getNearCacheTimeToLive() {
+    return nearCacheTimeToLive;
+  }
+
+  /**
+   * @param nearCacheTimeToLive
+   *          the nearCacheTimeToLive to set
+   */
+  public void setNearCacheTimeToLive(int nearCacheTimeToLive) {
+    this.nearCacheTimeToLive = nearCacheTimeToLive;
+  }
+
+  /**
+   * @return the nearCacheCheckInterval
+   */
+  public int getNearCacheCheckInterval() {
+    return nearCacheCheckInterval;
+  }
+
+  /**
+   * @param nearCacheCheckInterval
+   *          the nearCacheCheckInterval to set
+   */
+  public void setNearCacheCheckInterval(int nearCacheCheckInterval) {
+    this.nearCacheCheckInterval = nearCacheCheckInterval;
+  }
+
+  /**
+   * @return the namespaces
+   */
+  public String getNamespaces() {
+    return namespaces;
+  }
+
+  /**
+   * @param namespaces
+   *          the namespaces to set
+   */
+  public void setNamespaces(String namespaces) {
+    this.namespaces = namespaces;
+  }
+
+  /**
+   * @return the readBatchSize
+   */
+  public int getReadBatchSize() {
+    return readBatchSize;
+  }
+
+  /**
+   * @param readBatchSize
+   *          the readBatchSize to set
+   */
+  public void setReadBatchSize(int readBatchSize) {
+    this.readBatchSize = readBatchSize;
+  }
+
+  /**
+   * @return the readBatchWindow
+   */
+  public int getReadBatchWindow() {
+    return readBatchWindow;
+  }
+
+  /**
+   * @param readBatchWindow
+   *          the readBatchWindow to set
+   */
+  public void setReadBatchWindow(int readBatchWindow) {
+    this.readBatchWindow = readBatchWindow;
+  }
+
+  /**
+   * @return the usingSingleFlight
+   */
+  public boolean isUsingSingleFlight() {
+    return usingSingleFlight;
+  }
+
+  /**
+   * @param usingSingleFlight
+   *          the usingSingleFlight to set
+   */
+  public void setUsingSingleFlight(boolean usingSingleFlight) {
+    this.usingSingleFlight = usingSingleFlight;
+  }
+
+  /**
+   * @return the singleFlightLoadWait
+   */
+  public int getSingleFlightLoadWait() {
+    return singleFlightLoadWait;
+  }
+
+  /**
+   * @param singleFlightLoadWait
+   *          the singleFlightLoadWait to set
+   */
+  public void setSingleFlightLoadWait(int singleFlightLoadWait) {
+    this.singleFlightLoadWait = singleFlightLoadWait;
+  }
+
+  /**
+   * @return the keyFormat
+   */
+  public KeyFormat getKeyFormat() {
+    return keyFormat;
+  }
+
+  /**
+   * @param keyFormat
+   *          the keyFormat to set
+   */
+  public void setKeyFormat(KeyFormat keyFormat) {
+    this.keyFormat = keyFormat;
+  }
+
+  /**
+   * @return the serializer
+   */
+  public Serializer getSerializer() {
+    return serializer;
+  }
+
+  /**
+   * @param serializer
+   *          the serializer to set
+   */
+  public void setSerializer(Serializer serializer) {
+    this.serializer = serializer;
+  }
+
+  /**
+   * @return the serializerClasses
+   */
+  public List<Class<?>> getSerializerClasses() {
+    return serializerClasses;
+  }
+
+  /**
+   * @param serializerClasses
+   *          the serializerClasses to set
+   */
+  public void setSerializerClasses(List<Class<?>> serializerClasses) {
+    this.serializerClasses = serializerClasses;
+  }
+
+  /**
+   * @return the compressionCodec
+   */
+  public CompressionCodec getCompressionCodec() {
+    return compressionCodec;
+  }
+
+  /**
+   * @param compressionCodec
+   *          the compressionCodec to set
+   */
+  public void setCompressionCodec(CompressionCodec compressionCodec) {
+    this.compressionCodec = compressionCodec;
+  }
+
+  /**
+   * @return the compressionLevel
+   */
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  /**
+   * @param compressionLevel
+   *          the compressionLevel to set
+   */
+  public void setCompressionLevel(int compressionLevel) {
+    this.compressionLevel = compressionLevel;
+  }
+
+  /**
+   * @return the compressionThreshold
+   */
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  /**
+   * @param compressionThreshold
+   *          the compressionThreshold to set
+   */
+  public void setCompressionThreshold(int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  /**
+   * @return the writeBehindQueueSize
+   */
+  public int getWriteBehindQueueSize() {
+    return writeBehindQueueSize;
+  }
+
+  /**
+   * @param writeBehindQueueSize
+   *          the writeBehindQueueSize to set
+   */
+  public void setWriteBehindQueueSize(int writeBehindQueueSize) {
+    this.writeBehindQueueSize = writeBehindQueueSize;
+  }
+
+  /**
+   * @return the writeBehindThreads
+   */
+  public int getWriteBehindThreads() {
+    return writeBehindThreads;
+  }
+
+  /**
+   * @param writeBehindThreads
+   *          the writeBehindThreads to set
+   */
+  public void setWriteBehindThreads(int writeBehindThreads) {
+    this.writeBehindThreads = writeBehindThreads;
+  }
+
+  /**
+   * @return the writeBehindBatchSize
+   */
+  public int getWriteBehindBatchSize() {
+    return writeBehindBatchSize;
+  }
+
+  /**
+   * @param writeBehindBatchSize
+   *          the writeBehindBatchSize to set
+   */
+  public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+    this.writeBehindBatchSize = writeBehindBatchSize;
+  }
+
+  /**
+   * @return the clearConcurrency
+   */
+  public int getClearConcurrency() {
+    return clearConcurrency;
+  }
+
+  /**
+   * @param clearConcurrency
+   *          the clearConcurrency to set
+   */
+  public void setClearConcurrency(int clearConcurrency) {
+    this.clearConcurrency = clearConcurrency;
+  }
+
+  /**
+   * @return the clearTimeout
+   */
+  public int getClearTimeout() {
+    return clearTimeout;
+  }
+
+  /**
+   * @param clearTimeout
+   *          the clearTimeout to set
+   */
+  public void setClearTimeout(int clearTimeout) {
+    this.clearTimeout = clearTimeout;
+  }
+
+  /**
+   * @return the casMaxAttempts
+   */
+  public int getCasMaxAttempts() {
+    return casMaxAttempts;
+  }
+
+  /**
+   * @param casMaxAttempts
+   *          the casMaxAttempts to set
+   */
+  public void setCasMaxAttempts(int casMaxAttempts) {
+    this.casMaxAttempts = casMaxAttempts;
+  }
+
+  /**
+   * @return the casBackoff
+   */
+  public int getCasBackoff() {
+    return casBackoff;
+  }
+
+  /**
+   * @param casBackoff
+   *          the casBackoff to set
+   */
+  public void setCasBackoff(int casBackoff) {
+    this.casBackoff = casBackoff;
+  }
+
+  /**
+   * @return the casMaxBackoff
+   */
+  public int getCasMaxBackoff() {
+    return casMaxBackoff;
+  }
+
+  /**
+   * @param casMaxBackoff
+   *          the casMaxBackoff to set
+   */
+  public void setCasMaxBackoff(int casMaxBackoff) {
+    this.casMaxBackoff = casMaxBackoff;
+  }
+
+  /**
+   * @return the casFallback
+   */
+  public CasFallback getCasFallback() {
+    return casFallback;
+  }
+
+  /**
+   * @param casFallback
+   *          the casFallback to set
+   */
+  public void setCasFallback(CasFallback casFallback) {
+    this.casFallback = casFallback;
+  }
+
+  /**
+   * @return the jmxEnabled
+   */
+  public boolean isJmxEnabled() {
+    return jmxEnabled;
+  }
+
+  /**
+   * @param jmxEnabled
+   *          the jmxEnabled to set
+   */
+  public void setJmxEnabled(boolean jmxEnabled) {
+    this.jmxEnabled = jmxEnabled;
+  }
+
+  /**
+   * @return the circuitBreakerThreshold
+   */
+  public int getCircuitBreakerThreshold() {
+    return circuitBreakerThreshold;
+  }
+
+  /**
+   * @param circuitBreakerThreshold
+   *          the circuitBreakerThreshold to set
+   */
+  public void setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+    this.circuitBreakerThreshold = circuitBreakerThreshold;
+  }
+
+  /**
+   * @return the circuitBreakerSlowCall
+   */
+  public int getCircuitBreakerSlowCall() {
+    return circuitBreakerSlowCall;
+  }
+
+  /**
+   * @param circuitBreakerSlowCall
+   *          the circuitBreakerSlowCall to set
+   */
+  public void setCircuitBreakerSlowCall(int circuitBreakerSlowCall) {
+    this.circuitBreakerSlowCall = circuitBreakerSlowCall;
+  }
+
+  /**
+   * @return the circuitBreakerCoolDown
+   */
+  public int getCircuitBreakerCoolDown() {
+    return circuitBreakerCoolDown;
+  }
+
+  /**
+   * @param circuitBreakerCoolDown
+   *          the circuitBreakerCoolDown to set
+   */
+  public void setCircuitBreakerCoolDown(int circuitBreakerCoolDown) {
+    this.circuitBreakerCoolDown = circuitBreakerCoolDown;
+  }
+
+  /**
+   * @return the softTtl
+   */
+  public int getSoftTtl() {
+    return softTtl;
+  }
+
+  /**
+   * @param softTtl
+   *          the softTtl to set
+   */
+  public void setSoftTtl(int softTtl) {
+    this.softTtl = softTtl;
+  }
+
+  /**
+   * @return the softTtlRefresh
+   */
+  public int getSoftTtlRefresh() {
+    return softTtlRefresh;
+  }
+
+  /**
+   * @param softTtlRefresh
+   *          the softTtlRefresh to set
+   */
+  public void setSoftTtlRefresh(int softTtlRefresh) {
+    this.softTtlRefresh = softTtlRefresh;
+  }
+
+  /**
+   * @return the expirationJitter
+   */
+  public int getExpirationJitter() {
+    return expirationJitter;
+  }
+
+  /**
+   * @param expirationJitter
+   *          the expirationJitter to set
+   */
+  public void setExpirationJitter(int expirationJitter) {
+    this.expirationJitter = expirationJitter;
+  }
+
+  /**
+   * @return the hotKeyReplicas
+   */
+  public int getHotKeyReplicas() {
+    return hotKeyReplicas;
+  }
+
+  /**
+   * @param hotKeyReplicas
+   *          the hotKeyReplicas to set
+   */
+  public void setHotKeyReplicas(int hotKeyReplicas) {
+    this.hotKeyReplicas = hotKeyReplicas;
+  }
+
+  /**
+   * @return the hotKeySampling
+   */
+  public int getHotKeySampling() {
+    return hotKeySampling;
+  }
+
+  /**
+   * @param hotKeySampling
+   *          the hotKeySampling to set
+   */
+  public void setHotKeySampling(int hotKeySampling) {
+    this.hotKeySampling = hotKeySampling;
+  }
+
+  /**
+   * @return the hotKeyThreshold
+   */
+  public int getHotKeyThreshold() {
+    return hotKeyThreshold;
+  }
+
+  /**
+   * @param hotKeyThreshold
+   *          the hotKeyThreshold to set
+   */
+  public void setHotKeyThreshold(int hotKeyThreshold) {
+    this.hotKeyThreshold = hotKeyThreshold;
+  }
+
+  /**
+   * @return the chunkSize
+   */
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * @param chunkSize
+   *          the chunkSize to set
+   */
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * @return the poolSize
+   */
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  /**
+   * @param poolSize
+   *          the poolSize to set
+   */
+  public void setPoolSize(int poolSize) {
+    this.poolSize = poolSize;
+  }
+
+  /**
+   * @return the protocol
+   */
+  public ConnectionFactoryBuilder.Protocol getProtocol() {
+    return protocol;
+  }
+
+  /**
+   * @param protocol
+   *          the protocol to set
+   */
+  public void setProtocol(ConnectionFactoryBuilder.Protocol protocol) {
+    this.protocol = protocol;
+  }
+
+  /**
+   * @return the locator
+   */
+  public ConnectionFactoryBuilder.Locator getLocator() {
+    return locator;
+  }
+
+  /**
+   * @param locator
+   *          the locator to set
+   */
+  public void setLocator(ConnectionFactoryBuilder.Locator locator) {
+    this.locator = locator;
+  }
+
+  /**
+   * @return the hashAlgorithm
+   */
+  public DefaultHashAlgorithm getHashAlgorithm() {
+    return hashAlgorithm;
+  }
+
+  /**
+   * @param hashAlgorithm
+   *          the hashAlgorithm to set
+   */
+  public void setHashAlgorithm(DefaultHashAlgorithm hashAlgorithm) {
+    this.hashAlgorithm = hashAlgorithm;
+  }
+
+  /**
+   * @return the opQueueSize
+   */
+  public int getOpQueueSize() {
+    return opQueueSize;
+  }
+
+  /**
+   * @param opQueueSize
+   *          the opQueueSize to set
+   */
+  public void setOpQueueSize(int opQueueSize) {
+    this.opQueueSize = opQueueSize;
+  }
+
+  /**
+   * @return the opQueueMaxBlockTime
+   */
+  public int getOpQueueMaxBlockTime() {
+    return opQueueMaxBlockTime;
+  }
+
+  /**
+   * @param opQueueMaxBlockTime
+   *          the opQueueMaxBlockTime to set
+   */
+  public void setOpQueueMaxBlockTime(int opQueueMaxBlockTime) {
+    this.opQueueMaxBlockTime = opQueueMaxBlockTime;
+  }
+
+  /**
+   * @return the opTimeout
+   */
+  public int getOpTimeout() {
+    return opTimeout;
+  }
+
+  /**
+   * @param opTimeout
+   *          the opTimeout to set
+   */
+  public void setOpTimeout(int opTimeout) {
+    this.opTimeout = opTimeout;
+  }
+
+  /**
+   * @return the readBufferSize
+   */
+  public int getReadBufferSize() {
+    return readBufferSize;
+  }
+
+  /**
+   * @param readBufferSize
+   *          the readBufferSize to set
+   */
+  public void setReadBufferSize(int readBufferSize) {
+    this.readBufferSize = readBufferSize;
+  }
+
+  /**
+   * @return the tcpNoDelay
+   */
+  public boolean isTcpNoDelay() {
+    return tcpNoDelay;
+  }
+
+  /**
+   * @param tcpNoDelay
+   *          the tcpNoDelay to set
+   */
+  public void setTcpNoDelay(boolean tcpNoDelay) {
+    this.tcpNoDelay = tcpNoDelay;
+  }
+
+  /**
+   * @return the failureMode
+   */
+  public FailureMode getFailureMode() {
+    return failureMode;
+  }
+
+  /**
+   * @param failureMode
+   *          the failureMode to set
+   */
+  public void setFailureMode(FailureMode failureMode) {
+    this.failureMode = failureMode;
+  }
+
+  /**
+   * @return the timeoutExceptionThreshold
+   */
+  public int getTimeoutExceptionThreshold() {
+    return timeoutExceptionThreshold;
+  }
+
+  /**
+   * @param timeoutExceptionThreshold
+   *          the timeoutExceptionThreshold to set
+   */
+  public void setTimeoutExceptionThreshold(int timeoutExceptionThreshold) {
+    this.timeoutExceptionThreshold = timeoutExceptionThreshold;
+  }
+
+  /**
+   * @return the generationRefresh
+   */
+  public int getGenerationRefresh() {
+    return generationRefresh;
+  }
+
+  /**
+   * @param generationRefresh
+   *          the generationRefresh to set
+   */
+  public void setGenerationRefresh(int generationRefresh) {
+    this.generationRefresh = generationRefresh;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public int hashCode() {
     return hash(1, 31, addresses, compressionEnabled, connectionFactory, expiration, keyPrefix, timeUnit, timeout,
-        usingAsyncGet, usingSASL, username, password);
+        usingAsyncGet, usingSASL, username, password, invalidationMode, nearCacheSize, nearCacheTimeToLive,
+        nearCacheCheckInterval, namespaces, readBatchSize, readBatchWindow, usingSingleFlight, singleFlightLoadWait,
+        keyFormat, serializer, serializerClasses, compressionCodec, compressionLevel, compressionThreshold,
+        writeBehindQueueSize, writeBehindThreads, writeBehindBatchSize, clearConcurrency, clearTimeout, casMaxAttempts,
+        casBackoff, casMaxBackoff, casFallback, jmxEnabled, circuitBreakerThreshold, circuitBreakerSlowCall,
+        circuitBreakerCoolDown, softTtl, softTtlRefresh, expirationJitter, hotKeyReplicas, hotKeySampling,
+        hotKeyThreshold, chunkSize, poolSize, protocol, locator, hashAlgorithm, opQueueSize, opQueueMaxBlockTime,
+        opTimeout, readBufferSize, tcpNoDelay, failureMode, timeoutExceptionThreshold, generationRefresh);
   }
 
   /**
@@ -294,7 +1247,31 @@ final class MemcachedConfiguration {
         && eq(connectionFactory, other.connectionFactory) && eq(expiration, other.expiration)
         && eq(keyPrefix, other.keyPrefix) && eq(timeUnit, other.timeUnit) && eq(timeout, other.timeout)
         && eq(usingAsyncGet, other.usingAsyncGet) && eq(usingSASL, other.usingSASL) && eq(username, other.username)
-        && eq(password, other.password);
+        && eq(password, other.password) && eq(invalidationMode, other.invalidationMode)
+        && eq(nearCacheSize, other.nearCacheSize) && eq(nearCacheTimeToLive, other.nearCacheTimeToLive)
+        && eq(nearCacheCheckInterval, other.nearCacheCheckInterval) && eq(namespaces, other.namespaces)
+        && eq(readBatchSize, other.readBatchSize) && eq(readBatchWindow, other.readBatchWindow)
+        && eq(usingSingleFlight, other.usingSingleFlight) && eq(singleFlightLoadWait, other.singleFlightLoadWait)
+        && eq(keyFormat, other.keyFormat) && eq(serializer, other.serializer)
+        && eq(serializerClasses, other.serializerClasses) && eq(compressionCodec, other.compressionCodec)
+        && eq(compressionLevel, other.compressionLevel) && eq(compressionThreshold, other.compressionThreshold)
+        && eq(writeBehindQueueSize, other.writeBehindQueueSize) && eq(writeBehindThreads, other.writeBehindThreads)
+        && eq(writeBehindBatchSize, other.writeBehindBatchSize) && eq(clearConcurrency, other.clearConcurrency)
+        && eq(clearTimeout, other.clearTimeout) && eq(casMaxAttempts, other.casMaxAttempts)
+        && eq(casBackoff, other.casBackoff) && eq(casMaxBackoff, other.casMaxBackoff)
+        && eq(casFallback, other.casFallback) && eq(jmxEnabled, other.jmxEnabled)
+        && eq(circuitBreakerThreshold, other.circuitBreakerThreshold)
+        && eq(circuitBreakerSlowCall, other.circuitBreakerSlowCall)
+        && eq(circuitBreakerCoolDown, other.circuitBreakerCoolDown) && eq(softTtl, other.softTtl)
+        && eq(softTtlRefresh, other.softTtlRefresh) && eq(expirationJitter, other.expirationJitter)
+        && eq(hotKeyReplicas, other.hotKeyReplicas) && eq(hotKeySampling, other.hotKeySampling)
+        && eq(hotKeyThreshold, other.hotKeyThreshold) && eq(chunkSize, other.chunkSize) && eq(poolSize, other.poolSize)
+        && eq(protocol, other.protocol) && eq(locator, other.locator) && eq(hashAlgorithm, other.hashAlgorithm)
+        && eq(opQueueSize, other.opQueueSize) && eq(opQueueMaxBlockTime, other.opQueueMaxBlockTime)
+        && eq(opTimeout, other.opTimeout) && eq(readBufferSize, other.readBufferSize)
+        && eq(tcpNoDelay, other.tcpNoDelay) && eq(failureMode, other.failureMode)
+        && eq(timeoutExceptionThreshold, other.timeoutExceptionThreshold)
+        && eq(generationRefresh, other.generationRefresh);
   }
 
   /**
@@ -316,9 +1293,17 @@ final class MemcachedConfiguration {
    */
   @Override
   public String toString() {
-    return "MemcachedConfiguration [addresses=%s, compressionEnabled=%s, connectionFactory=%s, , expiration=%s, keyPrefix=%s, timeUnit=%s, timeout=%s, usingAsyncGet=%s, usingSASL=%s, username=%s, password=%s]"
+    return "MemcachedConfiguration [addresses=%s, compressionEnabled=%s, connectionFactory=%s, , expiration=%s, keyPrefix=%s, timeUnit=%s, timeout=%s, usingAsyncGet=%s, usingSASL=%s, username=%s, password=%s, invalidationMode=%s, nearCacheSize=%s, nearCacheTimeToLive=%s, nearCacheCheckInterval=%s, namespaces=%s, readBatchSize=%s, readBatchWindow=%s, usingSingleFlight=%s, singleFlightLoadWait=%s, keyFormat=%s, serializer=%s, serializerClasses=%s, compressionCodec=%s, compressionLevel=%s, compressionThreshold=%s, writeBehindQueueSize=%s, writeBehindThreads=%s, writeBehindBatchSize=%s, clearConcurrency=%s, clearTimeout=%s, casMaxAttempts=%s, casBackoff=%s, casMaxBackoff=%s, casFallback=%s, jmxEnabled=%s, circuitBreakerThreshold=%s, circuitBreakerSlowCall=%s, circuitBreakerCoolDown=%s, softTtl=%s, softTtlRefresh=%s, expirationJitter=%s, hotKeyReplicas=%s, hotKeySampling=%s, hotKeyThreshold=%s, chunkSize=%s, poolSize=%s, protocol=%s, locator=%s, hashAlgorithm=%s, opQueueSize=%s, opQueueMaxBlockTime=%s, opTimeout=%s, readBufferSize=%s, tcpNoDelay=%s, failureMode=%s, timeoutExceptionThreshold=%s, generationRefresh=%s]"
         .formatted(addresses, compressionEnabled, connectionFactory, expiration, keyPrefix, timeUnit, timeout,
-            usingAsyncGet, usingSASL, username, password);
+            usingAsyncGet, usingSASL, username, password, invalidationMode, nearCacheSize, nearCacheTimeToLive,
+            nearCacheCheckInterval, namespaces, readBatchSize, readBatchWindow, usingSingleFlight, singleFlightLoadWait,
+            keyFormat, serializer, serializerClasses, compressionCodec, compressionLevel, compressionThreshold,
+            writeBehindQueueSize, writeBehindThreads, writeBehindBatchSize, clearConcurrency, clearTimeout,
+            casMaxAttempts, casBackoff, casMaxBackoff, casFallback, jmxEnabled, circuitBreakerThreshold,
+            circuitBreakerSlowCall, circuitBreakerCoolDown, softTtl, softTtlRefresh, expirationJitter, hotKeyReplicas,
+            hotKeySampling, hotKeyThreshold, chunkSize, poolSize, protocol, locator, hashAlgorithm, opQueueSize,
+            opQueueMaxBlockTime, opTimeout, readBufferSize, tcpNoDelay, failureMode, timeoutExceptionThreshold,
+            generationRefresh);
   }
 
 }
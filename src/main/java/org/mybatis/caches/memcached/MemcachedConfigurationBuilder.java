@@ -18,8 +18,20 @@ package org.mybatis.caches.memcached;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.zip.Deflater;
+
+import net.spy.memcached.ArrayOperationQueueFactory;
+import net.spy.memcached.ConnectionFactory;
+import net.spy.memcached.ConnectionFactoryBuilder;
+import net.spy.memcached.DefaultHashAlgorithm;
+import net.spy.memcached.FailureMode;
+import net.spy.memcached.auth.AuthDescriptor;
+import net.spy.memcached.auth.PlainCallbackHandler;
 
 /**
  * Converter from the Config to a proper {@link MemcachedConfiguration}.
@@ -40,6 +52,34 @@ final class MemcachedConfigurationBuilder {
    */
   private static final String MEMCACHED_RESOURCE = "memcached.properties";
 
+  /**
+   * The prefix shared by all the Config properties.
+   */
+  private static final String PROPERTY_PREFIX = "org.mybatis.caches.memcached.";
+
+  /**
+   * The Config property listing the names of the clients configured besides the default one.
+   */
+  private static final String CLIENTS_PROPERTY = PROPERTY_PREFIX + "clients";
+
+  /**
+   * The prefix of the Config properties overriding the default ones for a named client.
+   */
+  private static final String CLIENT_PROPERTY_PREFIX = PROPERTY_PREFIX + "client.";
+
+  /**
+   * The Config property naming a ConnectionFactory implementation, used as is instead of the built one.
+   */
+  private static final String CONNECTION_FACTORY_PROPERTY = PROPERTY_PREFIX + "connectionfactory";
+
+  /**
+   * The Config properties applied to the built ConnectionFactory, which an explicit one would not apply.
+   */
+  private static final List<String> CONNECTION_PROPERTIES = Arrays.asList(PROPERTY_PREFIX + "protocol",
+      PROPERTY_PREFIX + "locator", PROPERTY_PREFIX + "hash", PROPERTY_PREFIX + "opqueue.size",
+      PROPERTY_PREFIX + "opqueue.maxblocktime", PROPERTY_PREFIX + "optimeout", PROPERTY_PREFIX + "readbuffer.size",
+      PROPERTY_PREFIX + "tcpnodelay", PROPERTY_PREFIX + "failuremode", PROPERTY_PREFIX + "timeoutexception.threshold");
+
   private final String memcachedPropertiesFilename;
 
   /**
@@ -54,19 +94,111 @@ final class MemcachedConfigurationBuilder {
     memcachedPropertiesFilename = System.getProperty(SYSTEM_PROPERTY_MEMCACHED_PROPERTIES_FILENAME, MEMCACHED_RESOURCE);
 
     settersRegistry.add(new StringPropertySetter("org.mybatis.caches.memcached.keyprefix", "keyPrefix", "_mybatis_"));
+    settersRegistry.add(new EnumPropertySetter<KeyFormat>("org.mybatis.caches.memcached.keyformat", "keyFormat",
+        KeyFormat.class, KeyFormat.HEX));
     settersRegistry.add(new StringPropertySetter("org.mybatis.caches.memcached.username", "username", ""));
     settersRegistry.add(new StringPropertySetter("org.mybatis.caches.memcached.password", "password", ""));
 
     settersRegistry
         .add(new IntegerPropertySetter("org.mybatis.caches.memcached.expiration", "expiration", 60 * 60 * 24 * 30));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.expiration.jitter", "expirationJitter", 0));
     settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.timeout", "timeout", 5));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.chunksize", "chunkSize", 0));
     settersRegistry.add(new TimeUnitSetter());
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.pool.size", "poolSize", 1));
 
     settersRegistry.add(new BooleanPropertySetter("org.mybatis.caches.memcached.asyncget", "usingAsyncGet", false));
     settersRegistry
         .add(new BooleanPropertySetter("org.mybatis.caches.memcached.compression", "compressionEnabled", false));
+    settersRegistry.add(new EnumPropertySetter<CompressionCodec>("org.mybatis.caches.memcached.compression.codec",
+        "compressionCodec", CompressionCodec.class, CompressionCodec.GZIP));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.compression.level", "compressionLevel", -1));
+    settersRegistry.add(
+        new IntegerPropertySetter("org.mybatis.caches.memcached.compression.threshold", "compressionThreshold", 0));
     settersRegistry.add(new BooleanPropertySetter("org.mybatis.caches.memcached.sasl", "usingSASL", false));
 
+    settersRegistry.add(new EnumPropertySetter<ConnectionFactoryBuilder.Protocol>(
+        "org.mybatis.caches.memcached.protocol", "protocol", ConnectionFactoryBuilder.Protocol.class,
+        ConnectionFactoryBuilder.Protocol.TEXT));
+    settersRegistry.add(new EnumPropertySetter<ConnectionFactoryBuilder.Locator>("org.mybatis.caches.memcached.locator",
+        "locator", ConnectionFactoryBuilder.Locator.class, ConnectionFactoryBuilder.Locator.ARRAY_MOD));
+    settersRegistry.add(new EnumPropertySetter<DefaultHashAlgorithm>("org.mybatis.caches.memcached.hash",
+        "hashAlgorithm", DefaultHashAlgorithm.class, DefaultHashAlgorithm.NATIVE_HASH));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.opqueue.size", "opQueueSize", 16384));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.opqueue.maxblocktime",
+        "opQueueMaxBlockTime", 10000));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.optimeout", "opTimeout", 2500));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.readbuffer.size", "readBufferSize", 16384));
+    settersRegistry.add(new BooleanPropertySetter("org.mybatis.caches.memcached.tcpnodelay", "tcpNoDelay", true));
+    settersRegistry.add(new EnumPropertySetter<FailureMode>("org.mybatis.caches.memcached.failuremode", "failureMode",
+        FailureMode.class, FailureMode.Redistribute));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.timeoutexception.threshold",
+        "timeoutExceptionThreshold", 1000));
+
+    settersRegistry.add(new EnumPropertySetter<InvalidationMode>("org.mybatis.caches.memcached.invalidation",
+        "invalidationMode", InvalidationMode.class, InvalidationMode.GROUP));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.generation.refresh", "generationRefresh", 1000));
+
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.nearcache.size", "nearCacheSize", 0));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.nearcache.ttl", "nearCacheTimeToLive", 60));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.nearcache.checkinterval",
+        "nearCacheCheckInterval", 1000));
+
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.batch.size", "readBatchSize", 0));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.batch.window", "readBatchWindow", 200));
+    settersRegistry
+        .add(new BooleanPropertySetter("org.mybatis.caches.memcached.singleflight", "usingSingleFlight", false));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.singleflight.wait", "singleFlightLoadWait", 0));
+
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.cas.maxattempts", "casMaxAttempts", 0));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.cas.backoff", "casBackoff", 0));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.cas.maxbackoff", "casMaxBackoff", 100));
+    settersRegistry.add(new EnumPropertySetter<CasFallback>("org.mybatis.caches.memcached.cas.fallback", "casFallback",
+        CasFallback.class, CasFallback.DELETE_ENTRY));
+
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.clear.concurrency", "clearConcurrency", 256));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.clear.timeout", "clearTimeout", 10000));
+
+    settersRegistry.add(
+        new IntegerPropertySetter("org.mybatis.caches.memcached.writebehind.size", "writeBehindQueueSize", 0));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.writebehind.threads", "writeBehindThreads", 1));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.writebehind.batch", "writeBehindBatchSize", 64));
+
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.circuitbreaker.threshold",
+        "circuitBreakerThreshold", 0));
+    settersRegistry.add(
+        new IntegerPropertySetter("org.mybatis.caches.memcached.circuitbreaker.slowcall", "circuitBreakerSlowCall", 0));
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.circuitbreaker.cooldown",
+        "circuitBreakerCoolDown", 10000));
+
+    settersRegistry.add(new IntegerPropertySetter("org.mybatis.caches.memcached.softttl", "softTtl", 0));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.softttl.refresh", "softTtlRefresh", 10));
+
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.hotkeys.replicas", "hotKeyReplicas", 0));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.hotkeys.sampling", "hotKeySampling", 16));
+    settersRegistry
+        .add(new IntegerPropertySetter("org.mybatis.caches.memcached.hotkeys.threshold", "hotKeyThreshold", 1000));
+
+    settersRegistry.add(new StringPropertySetter("org.mybatis.caches.memcached.namespaces", "namespaces", ""));
+
+    settersRegistry.add(new BooleanPropertySetter("org.mybatis.caches.memcached.jmx", "jmxEnabled", false));
+
+    settersRegistry.add(new SerializerSetter());
+    settersRegistry
+        .add(new ClassListPropertySetter("org.mybatis.caches.memcached.serializer.classes", "serializerClasses"));
+
     settersRegistry.add(new InetSocketAddressListPropertySetter());
     settersRegistry.add(new ConnectionFactorySetter());
   }
@@ -98,6 +230,150 @@ final class MemcachedConfigurationBuilder {
    * @return the converted {@link MemcachedConfiguration}.
    */
   public MemcachedConfiguration parseConfiguration(ClassLoader classLoader) {
+    return parseConfiguration(loadConfig(classLoader));
+  }
+
+  /**
+   * Parses the Config and builds the {@link MemcachedConfiguration}s of the named clients, listed in the
+   * <code>org.mybatis.caches.memcached.clients</code> property.
+   * <p>
+   * Every <code>org.mybatis.caches.memcached.client.${name}.${property}</code> property overrides, for the named client
+   * only, the <code>org.mybatis.caches.memcached.${property}</code> one.
+   *
+   * @param classLoader
+   *          the class loader
+   *
+   * @return the named clients configurations, in declaration order.
+   */
+  public Map<String, MemcachedConfiguration> parseClientConfigurations(ClassLoader classLoader) {
+    Properties config = loadConfig(classLoader);
+    Map<String, MemcachedConfiguration> clientConfigurations = new LinkedHashMap<String, MemcachedConfiguration>();
+
+    String clients = config.getProperty(CLIENTS_PROPERTY);
+    if (clients == null) {
+      return clientConfigurations;
+    }
+
+    for (String name : clients.split(",")) {
+      name = name.trim();
+      if (name.length() == 0) {
+        continue;
+      }
+
+      String clientPrefix = CLIENT_PROPERTY_PREFIX + name + '.';
+      Properties clientConfig = new Properties();
+      clientConfig.putAll(config);
+      for (String propertyKey : config.stringPropertyNames()) {
+        if (propertyKey.startsWith(clientPrefix)) {
+          clientConfig.setProperty(PROPERTY_PREFIX + propertyKey.substring(clientPrefix.length()),
+              config.getProperty(propertyKey));
+        }
+      }
+
+      clientConfigurations.put(name, parseConfiguration(clientConfig));
+    }
+
+    return clientConfigurations;
+  }
+
+  /**
+   * Converts the Config properties to a new {@link MemcachedConfiguration}.
+   *
+   * @param config
+   *          the Config properties
+   *
+   * @return the converted {@link MemcachedConfiguration}.
+   */
+  private MemcachedConfiguration parseConfiguration(Properties config) {
+    MemcachedConfiguration memcachedConfiguration = new MemcachedConfiguration();
+
+    for (AbstractPropertySetter<?> setter : settersRegistry) {
+      setter.set(config, memcachedConfiguration);
+    }
+
+    // checked here, the deflaters only reject it when the first value is compressed
+    int compressionLevel = memcachedConfiguration.getCompressionLevel();
+    if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Property '" + PROPERTY_PREFIX + "compression.level' must be between "
+          + Deflater.DEFAULT_COMPRESSION + " and " + Deflater.BEST_COMPRESSION + ", not " + compressionLevel);
+    }
+
+    // the registrations have to happen in the configured order, before any value is written
+    Serializer serializer = memcachedConfiguration.getSerializer();
+    if (serializer instanceof BinarySerializer) {
+      ((BinarySerializer) serializer).register(memcachedConfiguration.getSerializerClasses());
+    }
+
+    if (config.getProperty(CONNECTION_FACTORY_PROPERTY) == null) {
+      memcachedConfiguration.setConnectionFactory(buildConnectionFactory(memcachedConfiguration));
+    } else {
+      checkNoConnectionProperties(config, memcachedConfiguration);
+    }
+
+    return memcachedConfiguration;
+  }
+
+  /**
+   * Verifies that no connection property is set along with an explicit ConnectionFactory, which is used as is: the
+   * properties would be silently ignored, SASL authentication included.
+   *
+   * @param config
+   *          the Config properties.
+   * @param configuration
+   *          the configuration parsed from the Config properties.
+   */
+  private static void checkNoConnectionProperties(Properties config, MemcachedConfiguration configuration) {
+    List<String> ignored = new ArrayList<String>();
+    if (configuration.isUsingSASL()) {
+      ignored.add(PROPERTY_PREFIX + "sasl");
+    }
+    for (String property : CONNECTION_PROPERTIES) {
+      if (config.getProperty(property) != null) {
+        ignored.add(property);
+      }
+    }
+
+    if (!ignored.isEmpty()) {
+      throw new IllegalArgumentException("Properties " + ignored + " can't be combined with '"
+          + CONNECTION_FACTORY_PROPERTY + "', the ConnectionFactory is used as is and has to apply them itself");
+    }
+  }
+
+  /**
+   * Builds the ConnectionFactory from the connection properties.
+   *
+   * @param configuration
+   *          the configuration holding the connection properties.
+   *
+   * @return the built ConnectionFactory.
+   */
+  private static ConnectionFactory buildConnectionFactory(MemcachedConfiguration configuration) {
+    ConnectionFactoryBuilder builder = new ConnectionFactoryBuilder().setProtocol(configuration.getProtocol())
+        .setLocatorType(configuration.getLocator()).setHashAlg(configuration.getHashAlgorithm())
+        .setOpQueueFactory(new ArrayOperationQueueFactory(configuration.getOpQueueSize()))
+        .setOpQueueMaxBlockTime(configuration.getOpQueueMaxBlockTime()).setOpTimeout(configuration.getOpTimeout())
+        .setReadBufferSize(configuration.getReadBufferSize()).setUseNagleAlgorithm(!configuration.isTcpNoDelay())
+        .setFailureMode(configuration.getFailureMode())
+        .setTimeoutExceptionThreshold(configuration.getTimeoutExceptionThreshold());
+
+    if (configuration.isUsingSASL()) {
+      AuthDescriptor ad = new AuthDescriptor(new String[] { "PLAIN" },
+          new PlainCallbackHandler(configuration.getUsername(), configuration.getPassword()));
+      builder.setProtocol(ConnectionFactoryBuilder.Protocol.BINARY).setAuthDescriptor(ad);
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Loads the Config properties.
+   *
+   * @param classLoader
+   *          the class loader
+   *
+   * @return the Config properties, empty if the properties file is not present.
+   */
+  private Properties loadConfig(ClassLoader classLoader) {
     Properties config = new Properties();
 
     // load the properties specified from /memcached.properties, if present
@@ -117,13 +393,7 @@ final class MemcachedConfigurationBuilder {
       }
     }
 
-    MemcachedConfiguration memcachedConfiguration = new MemcachedConfiguration();
-
-    for (AbstractPropertySetter<?> setter : settersRegistry) {
-      setter.set(config, memcachedConfiguration);
-    }
-
-    return memcachedConfiguration;
+    return config;
   }
 
 }
@@ -0,0 +1,210 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters and latencies of the Memcached operations of a cache id.
+ */
+final class NamespaceStatistics implements NamespaceStatisticsMBean {
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder errors = new LongAdder();
+
+  private final LongAdder casAttempts = new LongAdder();
+
+  private final LongAdder casFailures = new LongAdder();
+
+  private final LongAdder casGiveUps = new LongAdder();
+
+  private final LongAdder shortCircuits = new LongAdder();
+
+  private final LatencyHistogram getLatency = new LatencyHistogram();
+
+  private final LatencyHistogram putLatency = new LatencyHistogram();
+
+  private final LatencyHistogram removeLatency = new LatencyHistogram();
+
+  private final LatencyHistogram clearLatency = new LatencyHistogram();
+
+  void got(boolean hit, long startNanos) {
+    (hit ? hits : misses).increment();
+    getLatency.recordSince(startNanos);
+  }
+
+  void put(long startNanos) {
+    putLatency.recordSince(startNanos);
+  }
+
+  void removed(long startNanos) {
+    removeLatency.recordSince(startNanos);
+  }
+
+  void cleared(long startNanos) {
+    clearLatency.recordSince(startNanos);
+  }
+
+  void failed() {
+    errors.increment();
+  }
+
+  void shortCircuited() {
+    shortCircuits.increment();
+  }
+
+  void casAttempted() {
+    casAttempts.increment();
+  }
+
+  void casFailed() {
+    casFailures.increment();
+  }
+
+  void casGaveUp() {
+    casGiveUps.increment();
+  }
+
+  @Override
+  public long getGets() {
+    return getLatency.getCount();
+  }
+
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public long getPuts() {
+    return putLatency.getCount();
+  }
+
+  @Override
+  public long getRemoves() {
+    return removeLatency.getCount();
+  }
+
+  @Override
+  public long getClears() {
+    return clearLatency.getCount();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public long getShortCircuits() {
+    return shortCircuits.sum();
+  }
+
+  @Override
+  public long getCasAttempts() {
+    return casAttempts.sum();
+  }
+
+  @Override
+  public long getCasFailures() {
+    return casFailures.sum();
+  }
+
+  @Override
+  public long getCasGiveUps() {
+    return casGiveUps.sum();
+  }
+
+  @Override
+  public long getGetLatencyP50() {
+    return getLatency.getPercentileMicros(50);
+  }
+
+  @Override
+  public long getGetLatencyP99() {
+    return getLatency.getPercentileMicros(99);
+  }
+
+  @Override
+  public long getGetLatencyP999() {
+    return getLatency.getPercentileMicros(99.9);
+  }
+
+  @Override
+  public long getPutLatencyP50() {
+    return putLatency.getPercentileMicros(50);
+  }
+
+  @Override
+  public long getPutLatencyP99() {
+    return putLatency.getPercentileMicros(99);
+  }
+
+  @Override
+  public long getPutLatencyP999() {
+    return putLatency.getPercentileMicros(99.9);
+  }
+
+  @Override
+  public long getRemoveLatencyP50() {
+    return removeLatency.getPercentileMicros(50);
+  }
+
+  @Override
+  public long getRemoveLatencyP99() {
+    return removeLatency.getPercentileMicros(99);
+  }
+
+  @Override
+  public long getRemoveLatencyP999() {
+    return removeLatency.getPercentileMicros(99.9);
+  }
+
+  @Override
+  public long getClearLatencyP50() {
+    return clearLatency.getPercentileMicros(50);
+  }
+
+  @Override
+  public long getClearLatencyP99() {
+    return clearLatency.getPercentileMicros(99);
+  }
+
+  @Override
+  public long getClearLatencyP999() {
+    return clearLatency.getPercentileMicros(99.9);
+  }
+
+  @Override
+  public void reset() {
+    for (LongAdder counter : new LongAdder[] { hits, misses, errors, shortCircuits, casAttempts, casFailures,
+        casGiveUps }) {
+      counter.reset();
+    }
+    for (LatencyHistogram histogram : new LatencyHistogram[] { getLatency, putLatency, removeLatency, clearLatency }) {
+      histogram.reset();
+    }
+  }
+
+}
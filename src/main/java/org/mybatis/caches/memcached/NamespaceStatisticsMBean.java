@@ -0,0 +1,143 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+/**
+ * The JMX view of the Memcached operations of a cache id.
+ */
+public interface NamespaceStatisticsMBean {
+
+  /**
+   * @return the number of gets.
+   */
+  long getGets();
+
+  /**
+   * @return the number of gets that found the object.
+   */
+  long getHits();
+
+  /**
+   * @return the number of gets that did not find the object.
+   */
+  long getMisses();
+
+  /**
+   * @return the number of puts.
+   */
+  long getPuts();
+
+  /**
+   * @return the number of removals.
+   */
+  long getRemoves();
+
+  /**
+   * @return the number of clears.
+   */
+  long getClears();
+
+  /**
+   * @return the number of operations failed with an exception.
+   */
+  long getErrors();
+
+  /**
+   * @return the number of operations skipped, as misses or dropped writes, because the client circuit was open.
+   */
+  long getShortCircuits();
+
+  /**
+   * @return the number of group updates attempted.
+   */
+  long getCasAttempts();
+
+  /**
+   * @return the number of group updates rejected because of a concurrent update.
+   */
+  long getCasFailures();
+
+  /**
+   * @return the number of group updates abandoned after exhausting the retry attempts.
+   */
+  long getCasGiveUps();
+
+  /**
+   * @return the median latency of the gets, in microseconds.
+   */
+  long getGetLatencyP50();
+
+  /**
+   * @return the 99th percentile latency of the gets, in microseconds.
+   */
+  long getGetLatencyP99();
+
+  /**
+   * @return the 99.9th percentile latency of the gets, in microseconds.
+   */
+  long getGetLatencyP999();
+
+  /**
+   * @return the median latency of the puts, in microseconds.
+   */
+  long getPutLatencyP50();
+
+  /**
+   * @return the 99th percentile latency of the puts, in microseconds.
+   */
+  long getPutLatencyP99();
+
+  /**
+   * @return the 99.9th percentile latency of the puts, in microseconds.
+   */
+  long getPutLatencyP999();
+
+  /**
+   * @return the median latency of the removes, in microseconds.
+   */
+  long getRemoveLatencyP50();
+
+  /**
+   * @return the 99th percentile latency of the removes, in microseconds.
+   */
+  long getRemoveLatencyP99();
+
+  /**
+   * @return the 99.9th percentile latency of the removes, in microseconds.
+   */
+  long getRemoveLatencyP999();
+
+  /**
+   * @return the median latency of the clears, in microseconds.
+   */
+  long getClearLatencyP50();
+
+  /**
+   * @return the 99th percentile latency of the clears, in microseconds.
+   */
+  long getClearLatencyP99();
+
+  /**
+   * @return the 99.9th percentile latency of the clears, in microseconds.
+   */
+  long getClearLatencyP999();
+
+  /**
+   * Resets all the counters and latencies.
+   */
+  void reset();
+
+}
@@ -0,0 +1,213 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * A bounded, in-process cache sitting in front of Memcached for a single cache id.
+ * <p>
+ * Entries expire after a fixed time to live; when the size limit is exceeded, expired entries are evicted first, then
+ * arbitrary ones until the cache is back under 90% of its limit. Coherence with other nodes is kept by comparing the
+ * cache id generation stored in Memcached at most once per check interval: any change discards all the local entries.
+ * <p>
+ * Values are kept serialized and deserialized on every hit, as they would be when read from Memcached, so each caller
+ * gets its own instance and none of them can see the changes another one makes to a mutable result.
+ */
+final class NearCache {
+
+  /**
+   * The generation value used before the first check.
+   */
+  private static final long UNKNOWN_GENERATION = Long.MIN_VALUE;
+
+  private final Map<Object, Entry> entries = new ConcurrentHashMap<Object, Entry>();
+
+  private final int maximumSize;
+
+  private final long timeToLiveNanos;
+
+  private final long generationCheckIntervalNanos;
+
+  private final Serializer serializer;
+
+  /**
+   * The {@link System#nanoTime()} after which the generation has to be checked again.
+   */
+  private final AtomicLong nextGenerationCheck;
+
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  /**
+   * The last cache id generation seen in Memcached.
+   */
+  private volatile long generation = UNKNOWN_GENERATION;
+
+  /**
+   * A locally stored serialized value along with its expiration time.
+   */
+  private static final class Entry {
+
+    final byte[] value;
+
+    final long expiresAt;
+
+    Entry(byte[] value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+  }
+
+  /**
+   * Builds a new near cache.
+   *
+   * @param maximumSize
+   *          the maximum number of entries.
+   * @param timeToLive
+   *          the entries time to live, in seconds.
+   * @param generationCheckInterval
+   *          the minimum interval between two generation checks, in milliseconds.
+   * @param serializer
+   *          the serializer of the stored values.
+   */
+  NearCache(int maximumSize, int timeToLive, int generationCheckInterval, Serializer serializer) {
+    this.maximumSize = maximumSize;
+    this.timeToLiveNanos = TimeUnit.SECONDS.toNanos(timeToLive);
+    this.generationCheckIntervalNanos = TimeUnit.MILLISECONDS.toNanos(generationCheckInterval);
+    this.serializer = serializer;
+    this.nextGenerationCheck = new AtomicLong(System.nanoTime());
+  }
+
+  /**
+   * Tells whether the caller has to check the cache id generation and pass it to {@link #validate(long)}; only one of
+   * the concurrent callers is elected per check interval.
+   *
+   * @return true if the generation has to be checked.
+   */
+  boolean isGenerationCheckDue() {
+    long now = System.nanoTime();
+    long next = nextGenerationCheck.get();
+    return now - next >= 0 && nextGenerationCheck.compareAndSet(next, now + generationCheckIntervalNanos);
+  }
+
+  /**
+   * Discards all the entries if the cache id generation changed since the last check.
+   *
+   * @param currentGeneration
+   *          the cache id generation currently stored in Memcached.
+   */
+  void validate(long currentGeneration) {
+    if (generation != currentGeneration) {
+      entries.clear();
+      generation = currentGeneration;
+    }
+  }
+
+  /**
+   * Forces the next access to check the generation again.
+   */
+  void invalidate() {
+    entries.clear();
+    generation = UNKNOWN_GENERATION;
+    nextGenerationCheck.set(System.nanoTime());
+  }
+
+  Object get(Object key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (System.nanoTime() - entry.expiresAt >= 0) {
+      entries.remove(key, entry);
+      return null;
+    }
+    try {
+      return serializer.deserialize(new ByteArrayInputStream(entry.value));
+    } catch (IOException | ClassNotFoundException e) {
+      entries.remove(key, entry);
+      throw new CacheException("Impossible to read the near cached object of key '" + key + "'", e);
+    }
+  }
+
+  void put(Object key, Object value) {
+    if (value == null) {
+      entries.remove(key);
+      return;
+    }
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      serializer.serialize(value, output);
+    } catch (IOException e) {
+      entries.remove(key);
+      throw new CacheException("Impossible to near cache an object of type '" + value.getClass().getName() + "'", e);
+    }
+    entries.put(key, new Entry(output.toByteArray(), System.nanoTime() + timeToLiveNanos));
+    if (entries.size() > maximumSize) {
+      evict();
+    }
+  }
+
+  void remove(Object key) {
+    entries.remove(key);
+  }
+
+  void clear() {
+    entries.clear();
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Shrinks the cache to 90% of its limit, evicting expired entries first; concurrent callers skip eviction while it is
+   * already running.
+   */
+  private void evict() {
+    if (!evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      int target = maximumSize - maximumSize / 10;
+      long now = System.nanoTime();
+      Iterator<Entry> values = entries.values().iterator();
+      while (values.hasNext()) {
+        if (now - values.next().expiresAt >= 0) {
+          values.remove();
+        }
+      }
+      Iterator<Object> keys = entries.keySet().iterator();
+      while (entries.size() > target && keys.hasNext()) {
+        keys.next();
+        keys.remove();
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+}
@@ -0,0 +1,237 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.internal.BulkFuture;
+import net.spy.memcached.internal.BulkGetCompletionListener;
+import net.spy.memcached.internal.BulkGetFuture;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Coalesces the reads issued concurrently by many threads into Memcached multi-gets.
+ * <p>
+ * A single dispatcher thread waits for the first read, then collects the following ones until either the batch window
+ * elapses or the batch is full, and sends them as one bulk get per striped client, which the client splits and
+ * pipelines per server. The readers' futures are completed when the bulk gets complete, without blocking the
+ * dispatcher.
+ * <p>
+ * The values are completed as stored, each reader decoding them with its own transcoder: the cache ids sharing the
+ * batcher may encode their values differently.
+ */
+final class ReadBatcher implements Runnable {
+
+  /**
+   * This class log.
+   */
+  private static final Log LOG = LogFactory.getLog(ReadBatcher.class);
+
+  private final StripedClients clients;
+
+  private final int maximumBatchSize;
+
+  private final long batchWindowNanos;
+
+  private final BlockingQueue<PendingRead> pendingReads = new LinkedBlockingQueue<PendingRead>();
+
+  private final Thread dispatcher;
+
+  private volatile boolean running = true;
+
+  /**
+   * A read waiting to be dispatched.
+   */
+  private static final class PendingRead {
+
+    final String key;
+
+    final CompletableFuture<CachedData> future = new CompletableFuture<CachedData>();
+
+    PendingRead(String key) {
+      this.key = key;
+    }
+
+  }
+
+  /**
+   * Builds and starts a new read batcher.
+   *
+   * @param clients
+   *          the clients the bulk gets are sent with.
+   * @param maximumBatchSize
+   *          the maximum number of reads per bulk get.
+   * @param batchWindow
+   *          the maximum time, in microseconds, the first read of a batch waits for other reads.
+   */
+  ReadBatcher(StripedClients clients, int maximumBatchSize, int batchWindow) {
+    this.clients = clients;
+    this.maximumBatchSize = maximumBatchSize;
+    this.batchWindowNanos = TimeUnit.MICROSECONDS.toNanos(batchWindow);
+
+    dispatcher = new Thread(this, "mybatis-memcached-read-batcher");
+    dispatcher.setDaemon(true);
+    dispatcher.start();
+  }
+
+  /**
+   * Enqueues the read of a key.
+   *
+   * @param keyString
+   *          the key to read.
+   *
+   * @return the future completed with the value as stored, or null if the key is not stored.
+   */
+  CompletableFuture<CachedData> get(String keyString) {
+    PendingRead read = new PendingRead(keyString);
+    if (!running) {
+      read.future.completeExceptionally(new IllegalStateException("Read batcher is shut down"));
+      return read.future;
+    }
+    pendingReads.add(read);
+    return read.future;
+  }
+
+  /**
+   * Stops the dispatcher thread; reads not dispatched yet are not completed.
+   */
+  void shutdown() {
+    running = false;
+    dispatcher.interrupt();
+  }
+
+  @Override
+  public void run() {
+    List<PendingRead> batch = new ArrayList<PendingRead>(maximumBatchSize);
+    while (running) {
+      try {
+        batch.add(pendingReads.take());
+
+        long deadline = System.nanoTime() + batchWindowNanos;
+        pendingReads.drainTo(batch, maximumBatchSize - batch.size());
+        while (batch.size() < maximumBatchSize) {
+          PendingRead read = pendingReads.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (read == null) {
+            break;
+          }
+          batch.add(read);
+          pendingReads.drainTo(batch, maximumBatchSize - batch.size());
+        }
+
+        dispatch(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        LOG.error("Impossible to dispatch " + batch.size() + " batched reads, see nested exceptions", e);
+        for (PendingRead read : batch) {
+          read.future.completeExceptionally(e);
+        }
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Sends a batch of reads as one bulk get per striped client.
+   *
+   * @param batch
+   *          the reads to send.
+   */
+  private void dispatch(List<PendingRead> batch) {
+    // the same key may be read by several threads within the same window
+    final Map<String, List<PendingRead>> readsByKey = new HashMap<String, List<PendingRead>>();
+    for (PendingRead read : batch) {
+      List<PendingRead> reads = readsByKey.get(read.key);
+      if (reads == null) {
+        reads = new ArrayList<PendingRead>(1);
+        readsByKey.put(read.key, reads);
+      }
+      reads.add(read);
+    }
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Dispatching " + batch.size() + " reads of " + readsByKey.size() + " keys");
+    }
+
+    if (clients.size() == 1) {
+      send(0, readsByKey);
+      return;
+    }
+
+    Map<Integer, Map<String, List<PendingRead>>> readsByClient = new HashMap<Integer, Map<String, List<PendingRead>>>();
+    for (Map.Entry<String, List<PendingRead>> entry : readsByKey.entrySet()) {
+      Integer index = clients.indexOf(entry.getKey());
+      Map<String, List<PendingRead>> reads = readsByClient.get(index);
+      if (reads == null) {
+        reads = new HashMap<String, List<PendingRead>>();
+        readsByClient.put(index, reads);
+      }
+      reads.put(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<Integer, Map<String, List<PendingRead>>> entry : readsByClient.entrySet()) {
+      send(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Sends the reads of the keys of a single striped client as a bulk get.
+   *
+   * @param index
+   *          the index of the client the keys are striped to.
+   * @param readsByKey
+   *          the reads to send, by key.
+   */
+  private void send(int index, final Map<String, List<PendingRead>> readsByKey) {
+    BulkFuture<Map<String, CachedData>> bulkGet = clients.get(index).asyncGetBulk(readsByKey.keySet(),
+        ChunkedTranscoder.RAW);
+    bulkGet.addListener(new BulkGetCompletionListener() {
+      @Override
+      public void onComplete(BulkGetFuture<?> future) throws Exception {
+        Map<String, ?> values;
+        try {
+          values = future.get();
+        } catch (Exception e) {
+          for (List<PendingRead> reads : readsByKey.values()) {
+            for (PendingRead read : reads) {
+              read.future.completeExceptionally(e);
+            }
+          }
+          return;
+        }
+
+        for (Map.Entry<String, List<PendingRead>> entry : readsByKey.entrySet()) {
+          CachedData value = (CachedData) values.get(entry.getKey());
+          for (PendingRead read : entry.getValue()) {
+            read.future.complete(value);
+          }
+        }
+      }
+    });
+  }
+
+}
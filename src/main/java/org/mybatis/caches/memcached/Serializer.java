@@ -0,0 +1,58 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Converts the cached objects to and from the bytes stored in Memcached.
+ * <p>
+ * Implementations must be thread safe and provide a public no-arguments constructor; they are selected through the
+ * <code>org.mybatis.caches.memcached.serializer</code> property.
+ */
+public interface Serializer {
+
+  /**
+   * Writes an object to a stream.
+   *
+   * @param object
+   *          the object to write, may be null.
+   * @param output
+   *          the stream to write to, must not be closed.
+   *
+   * @throws IOException
+   *           if the object can't be written.
+   */
+  void serialize(Object object, OutputStream output) throws IOException;
+
+  /**
+   * Reads an object from a stream.
+   *
+   * @param input
+   *          the stream to read from, must not be closed.
+   *
+   * @return the read object, may be null.
+   *
+   * @throws IOException
+   *           if the object can't be read.
+   * @throws ClassNotFoundException
+   *           if the class of a read object can't be found.
+   */
+  Object deserialize(InputStream input) throws IOException, ClassNotFoundException;
+
+}
@@ -0,0 +1,52 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+/**
+ * Setter from String to Serializer representation, accepting either the <code>jdk</code> and <code>binary</code>
+ * aliases or a {@link Serializer} implementation class name.
+ */
+final class SerializerSetter extends AbstractPropertySetter<Serializer> {
+
+  /**
+   * Instantiates a String to Serializer setter.
+   */
+  public SerializerSetter() {
+    super("org.mybatis.caches.memcached.serializer", "serializer", new JdkSerializer());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Serializer convert(String property) throws Exception {
+    property = property.trim();
+    if ("jdk".equalsIgnoreCase(property)) {
+      return new JdkSerializer();
+    }
+    if ("binary".equalsIgnoreCase(property)) {
+      return new BinarySerializer();
+    }
+
+    Class<?> clazz = Class.forName(property);
+    if (!Serializer.class.isAssignableFrom(clazz)) {
+      throw new IllegalArgumentException(
+          "Class '" + clazz.getName() + "' is not a valid '" + Serializer.class.getName() + "' implementation");
+    }
+    return (Serializer) clazz.getDeclaredConstructor().newInstance();
+  }
+
+}
@@ -0,0 +1,179 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+import net.spy.memcached.transcoders.Transcoder;
+
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * The Transcoder that stores the objects using a configured {@link Serializer}, compressing the ones whose serialized
+ * form reaches a size threshold with a configured {@link CompressionCodec}.
+ * <p>
+ * The serializer and the codec are recorded in the stored flags: JDK serialized values use the same flags as the
+ * default spymemcached transcoder, and values found with other flags, i.e. written by the default transcoder before the
+ * serializer or the compression were changed, are still decoded.
+ * <p>
+ * The serialized and compressed bytes are written to buffers kept in a bounded pool shared by all the threads, so the
+ * only allocation left in the transcoder itself is the exact sized copy handed to the client.
+ */
+final class SerializerTranscoder implements Transcoder<Object> {
+
+  /**
+   * The JDK serialized flag, shared with the default transcoder.
+   */
+  private static final int SERIALIZED = 1;
+
+  /**
+   * The custom serializer flag.
+   */
+  private static final int CUSTOM_SERIALIZED = 0x10;
+
+  /**
+   * The largest buffer kept for reuse, larger ones are left to the garbage collector.
+   */
+  private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+
+  private static final Serializer JDK_SERIALIZER = new JdkSerializer();
+
+  /**
+   * The buffers, two per value being encoded or decoded, those released while the pool is full are left to the garbage
+   * collector.
+   */
+  private static final BoundedPool<GrowableBuffer> BUFFERS = new BoundedPool<GrowableBuffer>(
+      BoundedPool.DEFAULT_CAPACITY * 2, GrowableBuffer::new, buffer -> {
+      });
+
+  private final Serializer serializer;
+
+  private final int serializedFlag;
+
+  /**
+   * The codec used to compress the values, null if the compression is disabled.
+   */
+  private final CompressionCodec codec;
+
+  private final int compressionLevel;
+
+  private final int compressionThreshold;
+
+  private final Transcoder<Object> fallback = new SerializingTranscoder();
+
+  /**
+   * Instantiates a transcoder.
+   *
+   * @param serializer
+   *          the serializer used to write the values.
+   * @param codec
+   *          the codec used to compress the values, null to disable the compression.
+   * @param compressionLevel
+   *          the compression level, from 0 to 9, or -1 for the codec default.
+   * @param compressionThreshold
+   *          the serialized size, in bytes, from which values are compressed.
+   */
+  SerializerTranscoder(Serializer serializer, CompressionCodec codec, int compressionLevel, int compressionThreshold) {
+    this.serializer = serializer;
+    this.serializedFlag = serializer instanceof JdkSerializer ? SERIALIZED : CUSTOM_SERIALIZED;
+    this.codec = codec;
+    this.compressionLevel = compressionLevel;
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean asyncDecode(final CachedData cachedData) {
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object decode(final CachedData cachedData) {
+    int flags = cachedData.getFlags();
+    if ((flags & (SERIALIZED | CUSTOM_SERIALIZED)) == 0) {
+      return fallback.decode(cachedData);
+    }
+
+    Serializer cachedSerializer = (flags & CUSTOM_SERIALIZED) != 0 ? serializer : JDK_SERIALIZER;
+    CompressionCodec cachedCodec = CompressionCodec.fromFlags(flags);
+    GrowableBuffer decompressed = null;
+    try {
+      if (cachedCodec == null) {
+        return cachedSerializer.deserialize(new ByteArrayInputStream(cachedData.getData()));
+      }
+
+      decompressed = BUFFERS.acquire();
+      cachedCodec.decompress(cachedData.getData(), decompressed);
+      return cachedSerializer.deserialize(new ByteArrayInputStream(decompressed.array(), 0, decompressed.size()));
+    } catch (Exception e) {
+      throw new CacheException("Impossible to deserialize cached object, see nested exceptions", e);
+    } finally {
+      release(decompressed);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CachedData encode(final Object object) {
+    GrowableBuffer serialized = BUFFERS.acquire();
+    GrowableBuffer compressed = null;
+    try {
+      serializer.serialize(object, serialized);
+
+      if (codec == null || serialized.size() < compressionThreshold) {
+        return new CachedData(serializedFlag, serialized.toByteArray(), CachedData.MAX_SIZE);
+      }
+
+      compressed = BUFFERS.acquire();
+      codec.compress(serialized.array(), serialized.size(), compressionLevel, compressed);
+      return new CachedData(serializedFlag | codec.getFlag(), compressed.toByteArray(), CachedData.MAX_SIZE);
+    } catch (IOException | RuntimeException e) {
+      throw new CacheException("Impossible to serialize object [" + object + "], see nested exceptions", e);
+    } finally {
+      release(serialized);
+      release(compressed);
+    }
+  }
+
+  /**
+   * Gives a buffer back to the pool, unless it grew too large to be worth keeping.
+   */
+  private static void release(GrowableBuffer buffer) {
+    if (buffer != null && buffer.capacity() <= MAX_RETAINED_CAPACITY) {
+      buffer.reset();
+      BUFFERS.release(buffer);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getMaxSize() {
+    return CachedData.MAX_SIZE;
+  }
+
+}
@@ -0,0 +1,202 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * Deduplicates the concurrent reads of a same key, so that only one of them reaches Memcached and the others share its
+ * result.
+ * <p>
+ * When a load wait is configured, the first caller missing a key is elected as its loader and the following ones, for
+ * at most the load wait, wait for the loader to put the value instead of all loading it from the database.
+ * <p>
+ * Only the caller that read a value gets the read instance: the callers joining its read or waiting for a loader get
+ * their own copy, as if they had read the value from Memcached themselves, so none of them can see the changes
+ * another one makes to a mutable result. The copies are all made from a private copy taken before the value is handed
+ * out, never from the instance the application got.
+ */
+final class SingleFlight {
+
+  private final ConcurrentMap<String, CompletableFuture<Object>> reads = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, Load> loads = new ConcurrentHashMap<String, Load>();
+
+  private final long loadWaitNanos;
+
+  private final UnaryOperator<Object> copier;
+
+  /**
+   * A value being loaded by the caller that first missed it.
+   */
+  private static final class Load {
+
+    final long deadline;
+
+    final CompletableFuture<Object> future = new CompletableFuture<Object>();
+
+    Load(long deadline) {
+      this.deadline = deadline;
+    }
+
+  }
+
+  /**
+   * Builds a new single flight.
+   *
+   * @param loadWait
+   *          the maximum time, in milliseconds, callers missing a key wait for its loader to put it, 0 to not wait.
+   * @param copier
+   *          the function copying the values shared among the callers.
+   */
+  SingleFlight(int loadWait, UnaryOperator<Object> copier) {
+    this.loadWaitNanos = TimeUnit.MILLISECONDS.toNanos(loadWait);
+    this.copier = copier;
+  }
+
+  /**
+   * Reads a key, joining the read of the same key already in flight, if any.
+   *
+   * @param keyString
+   *          the key to read.
+   * @param retriever
+   *          the function reading the key from Memcached.
+   *
+   * @return the read value, null if the caller has to load it.
+   */
+  Object get(String keyString, Function<String, Object> retriever) {
+    CompletableFuture<Object> read = new CompletableFuture<Object>();
+    CompletableFuture<Object> inFlight = reads.putIfAbsent(keyString, read);
+
+    Object value;
+    if (inFlight == null) {
+      try {
+        value = retriever.apply(keyString);
+        // the caller hands its instance back to the application, which may change it while the joiners copy it
+        read.complete(value == null ? null : copier.apply(value));
+      } catch (RuntimeException e) {
+        read.completeExceptionally(e);
+        throw e;
+      } finally {
+        reads.remove(keyString, read);
+      }
+    } else {
+      value = copier.apply(await(inFlight));
+    }
+
+    if (value == null && loadWaitNanos > 0) {
+      value = awaitLoad(keyString);
+    }
+    return value;
+  }
+
+  /**
+   * Hands a value just put to the callers waiting for it.
+   *
+   * @param keyString
+   *          the put key.
+   * @param value
+   *          the put value.
+   */
+  void loaded(String keyString, Object value) {
+    Load load = loads.remove(keyString);
+    if (load != null) {
+      // the loader hands its instance back to the application, which may change it while the waiters copy it
+      load.future.complete(copier.apply(value));
+    }
+  }
+
+  /**
+   * Either elects the caller as the loader of a missed key, or waits for the elected loader to put it.
+   *
+   * @param keyString
+   *          the missed key.
+   *
+   * @return the value put by the loader, null if the caller is the loader or the loader did not put it in time.
+   */
+  private Object awaitLoad(String keyString) {
+    long now = System.nanoTime();
+    Load load = new Load(now + loadWaitNanos);
+    Load current = loads.putIfAbsent(keyString, load);
+    if (current == null) {
+      expire(keyString, load);
+      return null;
+    }
+    if (now - current.deadline >= 0) {
+      // the previous loader did not put the value in time, take over
+      if (loads.replace(keyString, current, load)) {
+        expire(keyString, load);
+      }
+      return null;
+    }
+
+    try {
+      return copier.apply(current.future.get(current.deadline - now, TimeUnit.NANOSECONDS));
+    } catch (TimeoutException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Forgets a load once its deadline is past, as its loader may never put the value, for instance when its transaction
+   * is rolled back, and its key may never be read again.
+   *
+   * @param keyString
+   *          the missed key.
+   * @param load
+   *          the load of the key.
+   */
+  private void expire(String keyString, Load load) {
+    CompletableFuture.delayedExecutor(loadWaitNanos, TimeUnit.NANOSECONDS)
+        .execute(() -> loads.remove(keyString, load));
+  }
+
+  /**
+   * @return the number of loads in progress.
+   */
+  int loadsInProgress() {
+    return loads.size();
+  }
+
+  private static Object await(CompletableFuture<Object> inFlight) {
+    try {
+      return inFlight.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CacheException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new CacheException(e.getCause());
+    }
+  }
+
+}
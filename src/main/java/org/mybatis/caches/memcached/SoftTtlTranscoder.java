@@ -0,0 +1,152 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.Transcoder;
+
+/**
+ * The Transcoder that stores a soft expiration time in front of the values encoded by another one.
+ * <p>
+ * Only the {@link Envelope} instances are written with a soft expiration, marked by their own bit in the stored flags,
+ * the other objects are left to the wrapped transcoder untouched. Values stored with a soft expiration are decoded
+ * back in an {@link Envelope}, even when the soft expiration has been disabled since they were written.
+ */
+final class SoftTtlTranscoder implements Transcoder<Object> {
+
+  /**
+   * The soft expiration flag.
+   */
+  static final int SOFT_EXPIRATION = 0x40;
+
+  private static final int HEADER_SIZE = Long.BYTES;
+
+  private final Transcoder<Object> delegate;
+
+  SoftTtlTranscoder(Transcoder<Object> delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean asyncDecode(final CachedData cachedData) {
+    return delegate.asyncDecode(cachedData);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object decode(final CachedData cachedData) {
+    int flags = cachedData.getFlags();
+    if ((flags & SOFT_EXPIRATION) == 0) {
+      return delegate.decode(cachedData);
+    }
+
+    byte[] data = cachedData.getData();
+    long softExpiration = ByteBuffer.wrap(data).getLong();
+    Object value = delegate.decode(new CachedData(flags & ~SOFT_EXPIRATION,
+        Arrays.copyOfRange(data, HEADER_SIZE, data.length), getMaxSize()));
+    return new Envelope(value, softExpiration);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CachedData encode(final Object object) {
+    if (!(object instanceof Envelope)) {
+      return delegate.encode(object);
+    }
+
+    Envelope envelope = (Envelope) object;
+    CachedData cachedData = delegate.encode(envelope.value);
+    byte[] data = cachedData.getData();
+    byte[] enveloped = ByteBuffer.allocate(HEADER_SIZE + data.length).putLong(envelope.softExpiration).put(data)
+        .array();
+    return new CachedData(cachedData.getFlags() | SOFT_EXPIRATION, enveloped, getMaxSize());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getMaxSize() {
+    return delegate.getMaxSize();
+  }
+
+  /**
+   * A value stored along with the time after which it is served stale.
+   */
+  static final class Envelope {
+
+    private final Object value;
+
+    private final long softExpiration;
+
+    /**
+     * Instantiates an envelope.
+     *
+     * @param value
+     *          the stored value.
+     * @param softExpiration
+     *          the time, in milliseconds since the epoch, after which the value is stale.
+     */
+    Envelope(Object value, long softExpiration) {
+      this.value = value;
+      this.softExpiration = softExpiration;
+    }
+
+    /**
+     * @return the stored value.
+     */
+    Object getValue() {
+      return value;
+    }
+
+    /**
+     * @return the time, in milliseconds since the epoch, after which the value is stale.
+     */
+    long getSoftExpiration() {
+      return softExpiration;
+    }
+
+    /**
+     * @param now
+     *          the current time, in milliseconds since the epoch.
+     *
+     * @return true if the value is stale at the given time.
+     */
+    boolean isStale(long now) {
+      return now >= softExpiration;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+      return "Envelope [value=" + value + ", softExpiration=" + softExpiration + "]";
+    }
+
+  }
+
+}
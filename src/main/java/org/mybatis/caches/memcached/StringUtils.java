@@ -42,7 +42,7 @@ public final class StringUtils {
     return toHexString(bytes);
   }
 
-  private static String toHexString(byte[] bytes) {
+  static String toHexString(byte[] bytes) {
     int l = bytes.length;
 
     char[] out = new char[l << 1];
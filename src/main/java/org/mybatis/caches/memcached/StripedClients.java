@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.concurrent.TimeUnit;
+
+import net.spy.memcached.MemcachedClient;
+
+/**
+ * A fixed set of Memcached clients connected to the same servers, each one with its own I/O thread and connections.
+ * <p>
+ * The operations are striped by key: all the operations on a key go through the same client, so they keep their
+ * order and the CAS operations see the values stored by the previous ones.
+ */
+final class StripedClients {
+
+  private final MemcachedClient[] clients;
+
+  /**
+   * Builds a new set of clients.
+   *
+   * @param clients
+   *          the clients, at least one.
+   */
+  StripedClients(MemcachedClient[] clients) {
+    this.clients = clients;
+  }
+
+  /**
+   * @return the number of clients.
+   */
+  int size() {
+    return clients.length;
+  }
+
+  /**
+   * @param keyString
+   *          the key.
+   *
+   * @return the index of the client the operations on the key go through.
+   */
+  int indexOf(String keyString) {
+    if (clients.length == 1) {
+      return 0;
+    }
+    int hash = keyString.hashCode();
+    return Math.floorMod(hash ^ (hash >>> 16), clients.length);
+  }
+
+  /**
+   * @param keyString
+   *          the key.
+   *
+   * @return the client the operations on the key go through.
+   */
+  MemcachedClient get(String keyString) {
+    return clients[indexOf(keyString)];
+  }
+
+  /**
+   * @param index
+   *          the client index.
+   *
+   * @return the client at the given index.
+   */
+  MemcachedClient get(int index) {
+    return clients[index];
+  }
+
+  /**
+   * Shuts all the clients down.
+   *
+   * @param timeout
+   *          the time to wait for the pending operations, per client.
+   * @param unit
+   *          the timeout unit.
+   */
+  void shutdown(long timeout, TimeUnit unit) {
+    for (MemcachedClient client : clients) {
+      client.shutdown(timeout, unit);
+    }
+  }
+
+}
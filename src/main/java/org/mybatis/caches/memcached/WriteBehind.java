@@ -0,0 +1,263 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import net.spy.memcached.CachedData;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Defers the writes of the cached objects to background workers, so the threads putting them return immediately.
+ * <p>
+ * The writes wait in a bounded queue; when it is full, new writes are dropped and counted, the entries being simply
+ * missing from the cache. Each worker drains the queue in batches, so the value sets are pipelined and the group
+ * updates of a batch are merged into one update per cache id.
+ * <p>
+ * The objects are queued already encoded, as the application may modify them once put. A removed key or a cleared
+ * cache id discards its queued writes, and marks the ones a worker already took: those are skipped if not sent yet,
+ * and erased once sent otherwise, so a stale object is never left behind.
+ */
+final class WriteBehind implements Runnable {
+
+  /**
+   * This class log.
+   */
+  private static final Log LOG = LogFactory.getLog(WriteBehind.class);
+
+  private final BlockingQueue<PendingWrite> pendingWrites;
+
+  private final int maximumBatchSize;
+
+  private final Consumer<List<PendingWrite>> writer;
+
+  private final Consumer<PendingWrite> eraser;
+
+  /**
+   * The writes enqueued and not sent yet, whether waiting in the queue or taken by a worker.
+   */
+  private final Set<PendingWrite> unsent = ConcurrentHashMap.newKeySet();
+
+  private final Thread[] workers;
+
+  private final AtomicLong written = new AtomicLong();
+
+  private final AtomicLong dropped = new AtomicLong();
+
+  private volatile boolean running = true;
+
+  /**
+   * A write waiting to be sent.
+   */
+  static final class PendingWrite {
+
+    final String id;
+
+    final String keyString;
+
+    final CachedData encoded;
+
+    /**
+     * Whether the object was removed or its cache id cleared since the write was enqueued.
+     */
+    volatile boolean discarded;
+
+    /**
+     * The keys stored by the write: the object key and those of its replicas and chunks.
+     */
+    volatile Collection<String> storedKeyStrings = Collections.emptySet();
+
+    PendingWrite(String id, String keyString, CachedData encoded) {
+      this.id = id;
+      this.keyString = keyString;
+      this.encoded = encoded;
+    }
+
+  }
+
+  /**
+   * Builds and starts a new write behind queue.
+   *
+   * @param capacity
+   *          the maximum number of writes waiting in the queue.
+   * @param threads
+   *          the number of worker threads.
+   * @param maximumBatchSize
+   *          the maximum number of writes sent per batch.
+   * @param writer
+   *          sends a batch of writes, from the worker threads, recording the keys each write stored.
+   * @param eraser
+   *          deletes the keys stored by a write discarded while it was being sent, from the worker threads.
+   */
+  WriteBehind(int capacity, int threads, int maximumBatchSize, Consumer<List<PendingWrite>> writer,
+      Consumer<PendingWrite> eraser) {
+    this.pendingWrites = new LinkedBlockingQueue<PendingWrite>(capacity);
+    this.maximumBatchSize = maximumBatchSize;
+    this.writer = writer;
+    this.eraser = eraser;
+
+    workers = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Thread(this, "mybatis-memcached-write-behind-" + i);
+      workers[i].setDaemon(true);
+      workers[i].start();
+    }
+  }
+
+  /**
+   * Enqueues the write of an object, or drops it if the queue is full.
+   *
+   * @param id
+   *          the cache id.
+   * @param keyString
+   *          the object key.
+   * @param encoded
+   *          the encoded object.
+   *
+   * @return true if the write was enqueued.
+   */
+  boolean enqueue(String id, String keyString, CachedData encoded) {
+    PendingWrite write = new PendingWrite(id, keyString, encoded);
+    // tracked before being queued, so a discard never misses it
+    unsent.add(write);
+    if (running && pendingWrites.offer(write)) {
+      return true;
+    }
+    unsent.remove(write);
+
+    dropped.incrementAndGet();
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Write behind queue full, dropping the write of " + keyString);
+    }
+    return false;
+  }
+
+  /**
+   * Discards the pending writes of a key, so a removed object is not written back.
+   *
+   * @param keyString
+   *          the object key.
+   */
+  void discard(String keyString) {
+    discardIf(write -> write.keyString.equals(keyString));
+  }
+
+  /**
+   * Discards the pending writes of a cache id, so a cleared cache is not filled back with stale objects.
+   *
+   * @param id
+   *          the cache id.
+   */
+  void discardGroup(String id) {
+    discardIf(write -> write.id.equals(id));
+  }
+
+  /**
+   * Removes the matching writes from the queue, then marks those already taken by a worker.
+   */
+  private void discardIf(Predicate<PendingWrite> matching) {
+    pendingWrites.removeIf(write -> matching.test(write) && unsent.remove(write));
+    for (PendingWrite write : unsent) {
+      if (matching.test(write)) {
+        write.discarded = true;
+      }
+    }
+  }
+
+  /**
+   * @return the number of writes waiting in the queue.
+   */
+  int getQueueDepth() {
+    return pendingWrites.size();
+  }
+
+  /**
+   * @return the number of writes sent since the start.
+   */
+  long getWrittenCount() {
+    return written.get();
+  }
+
+  /**
+   * @return the number of writes dropped since the start because the queue was full.
+   */
+  long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Stops the worker threads; writes not sent yet are lost.
+   */
+  void shutdown() {
+    running = false;
+    for (Thread worker : workers) {
+      worker.interrupt();
+    }
+  }
+
+  @Override
+  public void run() {
+    List<PendingWrite> batch = new ArrayList<PendingWrite>(maximumBatchSize);
+    while (running) {
+      try {
+        batch.add(pendingWrites.take());
+        pendingWrites.drainTo(batch, maximumBatchSize - 1);
+        batch.removeIf(write -> write.discarded && unsent.remove(write));
+
+        writer.accept(batch);
+        written.addAndGet(batch.size());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        LOG.error("Impossible to write " + batch.size() + " objects behind, see nested exceptions", e);
+      } finally {
+        eraseDiscarded(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Erases the writes of a sent batch discarded meanwhile: a discard marking a write after this check comes after the
+   * write was sent, and the removal or clear that triggered it is sent after it too.
+   */
+  private void eraseDiscarded(List<PendingWrite> batch) {
+    for (PendingWrite write : batch) {
+      unsent.remove(write);
+      if (write.discarded) {
+        try {
+          eraser.accept(write);
+        } catch (RuntimeException e) {
+          LOG.error("Impossible to erase the discarded write of " + write.keyString + ", see nested exceptions", e);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,225 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+
+class BinarySerializerTest {
+
+  static class Person {
+    long id;
+    String name;
+    boolean active;
+    double score;
+    TimeUnit unit;
+    Person manager;
+    transient String cached;
+  }
+
+  static class Address implements Serializable {
+    private static final long serialVersionUID = 1L;
+    String city;
+  }
+
+  static class Customer implements Serializable {
+    private static final long serialVersionUID = 1L;
+    String name;
+    Address address;
+  }
+
+  @Test
+  void shouldRoundTripBuiltInTypes() throws Exception {
+    Map<String, Object> row = new LinkedHashMap<String, Object>();
+    row.put("int", -42);
+    row.put("long", Long.MIN_VALUE);
+    row.put("double", 3.25d);
+    row.put("float", -1.5f);
+    row.put("boolean", Boolean.TRUE);
+    row.put("short", (short) -7);
+    row.put("byte", (byte) -128);
+    row.put("char", '\u00e9');
+    row.put("decimal", new BigDecimal("-12345.6789"));
+    row.put("date", new Date(1234567890123L));
+    row.put("sqlDate", new java.sql.Date(1234567890123L));
+    row.put("string", "h\u00e9llo \u4e16\u754c");
+    row.put("null", null);
+    Timestamp timestamp = new Timestamp(1234567890123L);
+    timestamp.setNanos(123456789);
+    row.put("timestamp", timestamp);
+    Set<String> keys = new HashSet<String>(List.of("a", "b"));
+    row.put("set", keys);
+
+    BinarySerializer serializer = new BinarySerializer();
+    @SuppressWarnings("unchecked")
+    Map<String, Object> read = (Map<String, Object>) roundTrip(serializer, row);
+
+    assertInstanceOf(LinkedHashMap.class, read);
+    assertEquals(row, read);
+    assertEquals(List.copyOf(row.keySet()), List.copyOf(read.keySet()));
+    assertArrayEquals(new byte[] { 1, -2, 3 }, (byte[]) roundTrip(serializer, new byte[] { 1, -2, 3 }));
+  }
+
+  @Test
+  void shouldRoundTripRegisteredClassesAndPreserveReferences() throws Exception {
+    Person boss = new Person();
+    boss.id = 1;
+    boss.name = "boss";
+    boss.unit = TimeUnit.DAYS;
+    boss.manager = boss;
+    Person employee = new Person();
+    employee.id = 2;
+    employee.name = "employee";
+    employee.active = true;
+    employee.score = 0.5;
+    employee.manager = boss;
+    employee.cached = "not written";
+    List<Person> people = new ArrayList<Person>(List.of(boss, employee, boss));
+
+    BinarySerializer serializer = new BinarySerializer();
+    serializer.register(List.of(Person.class, TimeUnit.class));
+    @SuppressWarnings("unchecked")
+    List<Person> read = (List<Person>) roundTrip(serializer, people);
+
+    assertEquals(3, read.size());
+    assertSame(read.get(0), read.get(2));
+    assertSame(read.get(0), read.get(0).manager);
+    assertSame(read.get(0), read.get(1).manager);
+    assertEquals(TimeUnit.DAYS, read.get(0).unit);
+    assertEquals(2, read.get(1).id);
+    assertEquals("employee", read.get(1).name);
+    assertTrue(read.get(1).active);
+    assertEquals(0.5, read.get(1).score);
+    assertEquals(null, read.get(1).cached);
+  }
+
+  @Test
+  void shouldRejectValuesWrittenWithOtherRegistrations() throws Exception {
+    BinarySerializer writer = new BinarySerializer();
+    writer.register(Person.class);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    writer.serialize(new Person(), output);
+
+    BinarySerializer reader = new BinarySerializer();
+    assertThrows(IOException.class, () -> reader.deserialize(new ByteArrayInputStream(output.toByteArray())));
+  }
+
+  @Test
+  void shouldRejectValuesWrittenWithAnotherLayoutOfARegisteredClass() throws Exception {
+    Class<?> written = compile("public class Point { public int x; public int y; }");
+    Class<?> read = compile("public class Point { public int x; public String y; }");
+    assertEquals(written.getName(), read.getName());
+
+    BinarySerializer writer = new BinarySerializer();
+    writer.register(written);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    writer.serialize(written.getDeclaredConstructor().newInstance(), output);
+
+    BinarySerializer reader = new BinarySerializer();
+    reader.register(read);
+    assertThrows(StreamCorruptedException.class,
+        () -> reader.deserialize(new ByteArrayInputStream(output.toByteArray())));
+  }
+
+  /**
+   * Compiles a class in its own class loader, so several versions of a same class can be loaded side by side.
+   */
+  private static Class<?> compile(String source) throws Exception {
+    Path directory = Files.createTempDirectory("layout");
+    Path file = Files.writeString(directory.resolve("Point.java"), source);
+    assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, file.toString()));
+    return new URLClassLoader(new URL[] { directory.toUri().toURL() }, null).loadClass("Point");
+  }
+
+  @Test
+  void shouldRejectUnregisteredNonSerializableObjects() {
+    assertThrows(NotSerializableException.class,
+        () -> new BinarySerializer().serialize(new Person(), new ByteArrayOutputStream()));
+  }
+
+  @Test
+  void shouldShareOneObjectStreamBetweenUnregisteredObjects() throws Exception {
+    Address address = new Address();
+    address.city = "Paris";
+    Customer first = new Customer();
+    first.name = "first";
+    first.address = address;
+    Customer second = new Customer();
+    second.name = "second";
+    second.address = address;
+
+    @SuppressWarnings("unchecked")
+    List<Customer> read = (List<Customer>) roundTrip(new BinarySerializer(),
+        new ArrayList<Customer>(List.of(first, second)));
+
+    assertEquals("first", read.get(0).name);
+    assertEquals("second", read.get(1).name);
+    assertEquals("Paris", read.get(1).address.city);
+    assertSame(read.get(0).address, read.get(1).address);
+  }
+
+  @Test
+  void shouldRejectLengthsLargerThanTheInput() {
+    // the registration hash, then a list claiming Integer.MAX_VALUE elements
+    byte[] corrupted = { 2, 19, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F };
+    assertThrows(StreamCorruptedException.class,
+        () -> new BinarySerializer().deserialize(new ByteArrayInputStream(corrupted)));
+  }
+
+  @Test
+  void shouldRejectNegativeLengths() {
+    // the registration hash, then a byte array of -1 bytes
+    byte[] corrupted = { 2, 18, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F };
+    assertThrows(StreamCorruptedException.class,
+        () -> new BinarySerializer().deserialize(new ByteArrayInputStream(corrupted)));
+  }
+
+  private static Object roundTrip(BinarySerializer serializer, Object object) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    serializer.serialize(object, output);
+    return serializer.deserialize(new ByteArrayInputStream(output.toByteArray()));
+  }
+
+}
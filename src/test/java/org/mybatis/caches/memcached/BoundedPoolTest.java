@@ -0,0 +1,64 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+
+class BoundedPoolTest {
+
+  @Test
+  void shouldReuseTheReleasedInstances() {
+    AtomicInteger created = new AtomicInteger();
+    BoundedPool<Object> pool = new BoundedPool<Object>(2, () -> {
+      created.incrementAndGet();
+      return new Object();
+    }, instance -> {
+    });
+
+    Object first = pool.acquire();
+    pool.release(first);
+
+    assertSame(first, pool.acquire());
+    assertEquals(1, created.get());
+  }
+
+  @Test
+  void shouldEndTheInstancesReleasedWhileFull() {
+    List<Deflater> ended = new ArrayList<Deflater>();
+    BoundedPool<Deflater> pool = new BoundedPool<Deflater>(2, Deflater::new, deflater -> {
+      deflater.end();
+      ended.add(deflater);
+    });
+
+    List<Deflater> acquired = new ArrayList<Deflater>();
+    for (int i = 0; i < 5; i++) {
+      acquired.add(pool.acquire());
+    }
+    acquired.forEach(pool::release);
+
+    assertEquals(2, pool.idle());
+    assertEquals(acquired.subList(2, 5), ended);
+  }
+
+}
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class CasRetryPolicyTest {
+
+  @Test
+  void shouldRetryUntilTheMaximumAttempts() {
+    CasRetryPolicy policy = new CasRetryPolicy(3, 0, 0, CasFallback.IGNORE);
+
+    assertTrue(policy.canRetry(1));
+    assertTrue(policy.canRetry(2));
+    assertFalse(policy.canRetry(3));
+    assertTrue(new CasRetryPolicy(0, 0, 0, CasFallback.IGNORE).canRetry(Integer.MAX_VALUE));
+  }
+
+  @Test
+  void shouldNotWaitWithoutBackoff() {
+    assertEquals(0, new CasRetryPolicy(0, 0, 100, CasFallback.IGNORE).backoffNanos(5));
+  }
+
+  @Test
+  void shouldGrowTheBackoffExponentiallyUpToTheMaximum() {
+    CasRetryPolicy policy = new CasRetryPolicy(0, 1, 10, CasFallback.IGNORE);
+    long maximumFirstBackoff = 0;
+    long maximumLaterBackoff = 0;
+
+    for (int i = 0; i < 10000; i++) {
+      maximumFirstBackoff = Math.max(maximumFirstBackoff, policy.backoffNanos(1));
+      maximumLaterBackoff = Math.max(maximumLaterBackoff, policy.backoffNanos(40));
+    }
+
+    assertTrue(maximumFirstBackoff <= TimeUnit.MILLISECONDS.toNanos(1));
+    assertTrue(maximumLaterBackoff > TimeUnit.MILLISECONDS.toNanos(5));
+    assertTrue(maximumLaterBackoff <= TimeUnit.MILLISECONDS.toNanos(10));
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import net.spy.memcached.CachedData;
+
+import org.junit.jupiter.api.Test;
+
+class ChunkedTranscoderTest {
+
+  private final ChunkedTranscoder transcoder = new ChunkedTranscoder(
+      new SerializerTranscoder(new BinarySerializer(), null, -1, 0));
+
+  @Test
+  void shouldReassembleTheChunksListedInTheManifest() {
+    CachedData encoded = randomData(2500);
+    Map<String, CachedData> chunks = store("key", encoded, 1000);
+
+    assertEquals(3, chunks.size());
+    ChunkedTranscoder.Manifest manifest = manifestOf(encoded, 1000);
+    CachedData assembled = manifest.assemble("key", chunks);
+
+    assertEquals(encoded.getFlags(), assembled.getFlags());
+    assertArrayEquals(encoded.getData(), assembled.getData());
+  }
+
+  @Test
+  void shouldMissWhenAChunkIsMissing() {
+    CachedData encoded = randomData(2500);
+    Map<String, CachedData> chunks = store("key", encoded, 1000);
+    chunks.remove("key/1");
+
+    assertNull(manifestOf(encoded, 1000).assemble("key", chunks));
+  }
+
+  @Test
+  void shouldMissWhenAChunkBelongsToAnotherVersion() {
+    CachedData encoded = randomData(2500);
+    Map<String, CachedData> chunks = store("key", encoded, 1000);
+    chunks.putAll(store("key", randomData(2500), 1000));
+    chunks.put("key/2", store("key", encoded, 1000).get("key/2"));
+
+    assertNull(manifestOf(encoded, 1000).assemble("key", chunks));
+  }
+
+  @Test
+  void shouldLeaveTheOtherValuesToTheWrappedTranscoder() {
+    CachedData cachedData = transcoder.encode("value");
+
+    assertEquals(0x10, cachedData.getFlags());
+    assertEquals("value", transcoder.decode(cachedData));
+  }
+
+  private ChunkedTranscoder.Manifest manifestOf(CachedData encoded, int chunkSize) {
+    CachedData manifest = transcoder.encode(new ChunkedTranscoder.Manifest(encoded, chunkSize));
+    assertEquals(ChunkedTranscoder.CHUNKED, manifest.getFlags());
+    return assertInstanceOf(ChunkedTranscoder.Manifest.class, transcoder.decode(manifest));
+  }
+
+  private static Map<String, CachedData> store(String keyString, CachedData encoded, int chunkSize) {
+    Map<String, CachedData> chunks = new HashMap<String, CachedData>();
+    CachedData[] split = ChunkedTranscoder.split(encoded, chunkSize);
+    for (int i = 0; i < split.length; i++) {
+      chunks.put(ChunkedTranscoder.toChunkKeyString(keyString, i), split[i]);
+    }
+    return chunks;
+  }
+
+  private static CachedData randomData(int length) {
+    byte[] data = new byte[length];
+    new Random().nextBytes(data);
+    return new CachedData(0x10, data, CachedData.MAX_SIZE);
+  }
+
+}
@@ -0,0 +1,129 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private final CircuitBreaker breaker = new CircuitBreaker("test", 3, 100, 1000, clock::get);
+
+  @Test
+  void shouldOpenAfterConsecutiveFailures() {
+    breaker.recordFailure();
+    breaker.recordFailure();
+    breaker.recordSuccess(clock.get());
+    breaker.recordFailure();
+    breaker.recordFailure();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(breaker.allowRequest());
+
+    breaker.recordFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.allowRequest());
+    assertEquals(1, breaker.getOpenings());
+    assertEquals(1, breaker.getRejections());
+  }
+
+  @Test
+  void shouldCountSlowCallsAsFailures() {
+    for (int i = 0; i < 3; i++) {
+      long start = clock.get();
+      clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(101));
+      breaker.recordSuccess(start);
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  void shouldProbeOnceAfterTheCoolDown() {
+    open();
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+    assertFalse(breaker.allowRequest());
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    assertTrue(breaker.allowRequest());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertFalse(breaker.allowRequest());
+
+    breaker.recordSuccess(clock.get());
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(breaker.allowRequest());
+  }
+
+  @Test
+  void shouldOpenAgainWhenTheProbeFails() {
+    open();
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+    assertTrue(breaker.allowRequest());
+
+    breaker.recordFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.allowRequest());
+    assertEquals(2, breaker.getOpenings());
+  }
+
+  @Test
+  void shouldNotCloseOnOperationsSentBeforeOpening() {
+    long start = clock.get();
+    open();
+    breaker.recordSuccess(start);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  void shouldCloseOnlyOnTheSuccessOfAProbe() {
+    long start = clock.get();
+    clock.addAndGet(1);
+    open();
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+    assertTrue(breaker.allowRequest());
+
+    // completes late, after the probe was let through
+    breaker.recordSuccess(start);
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+    breaker.recordSuccess(clock.get());
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void shouldLetAnotherProbeThroughWhenTheFirstNeverReports() {
+    open();
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+    assertTrue(breaker.allowRequest());
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+    assertTrue(breaker.allowRequest());
+  }
+
+  private void open() {
+    for (int i = 0; i < 3; i++) {
+      breaker.recordFailure();
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+}
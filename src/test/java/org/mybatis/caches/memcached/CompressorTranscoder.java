@@ -1,5 +1,5 @@
 /*
- *    Copyright 2012-2022 the original author or authors.
+ *    Copyright 2012-2026 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -31,7 +31,8 @@ import net.spy.memcached.transcoders.Transcoder;
 import org.apache.ibatis.cache.CacheException;
 
 /**
- * The Transcoder that compress and decompress the stored objects using the GZIP compression algorithm.
+ * The Transcoder that compress and decompress the stored objects using the GZIP compression algorithm, the one of the
+ * previous versions, kept to check and measure the {@link SerializerTranscoder} against it.
  *
  * @author Simone Tripodi
  */
@@ -0,0 +1,966 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-JVM Memcached compatible server, so the tests and the benchmarks run against the real client without a
+ * Memcached daemon installed on the machine.
+ * <p>
+ * Both the text and the binary protocols are served, detected on the first byte of every request: get, gets, set, add,
+ * replace, append, prepend, cas, delete, incr, decr, touch, flush_all, version and stats, along with the quiet binary
+ * variants the client pipelines. Items expire like on Memcached, relative up to 30 days and absolute after, and the
+ * least recently used ones are evicted once the memory limit is reached.
+ * <p>
+ * The server clock can be moved forward with {@link #advance(long, TimeUnit)}, to test expirations without waiting.
+ */
+public final class EmbeddedMemcached implements Closeable {
+
+  /**
+   * The default memory limit, 64 MB like Memcached.
+   */
+  public static final long DEFAULT_MEMORY_LIMIT = 64L * 1024 * 1024;
+
+  /**
+   * The maximum size of an item value, 1 MB like Memcached.
+   */
+  public static final int MAX_ITEM_SIZE = 1024 * 1024;
+
+  /**
+   * The expiration times above are absolute Unix times, in seconds.
+   */
+  private static final int RELATIVE_EXPIRATION_LIMIT = 60 * 60 * 24 * 30;
+
+  /**
+   * The memory charged per item besides its key and value.
+   */
+  private static final int ITEM_OVERHEAD = 48;
+
+  private static final String VERSION = "1.6.0-embedded";
+
+  private static final int REQUEST_MAGIC = 0x80;
+
+  private static final int RESPONSE_MAGIC = 0x81;
+
+  private static final int HEADER_LENGTH = 24;
+
+  private static final int STATUS_SUCCESS = 0x00;
+
+  private static final int STATUS_KEY_NOT_FOUND = 0x01;
+
+  private static final int STATUS_KEY_EXISTS = 0x02;
+
+  private static final int STATUS_VALUE_TOO_LARGE = 0x03;
+
+  private static final int STATUS_INVALID_ARGUMENTS = 0x04;
+
+  private static final int STATUS_NOT_STORED = 0x05;
+
+  private static final int STATUS_NON_NUMERIC = 0x06;
+
+  private static final int STATUS_UNKNOWN_COMMAND = 0x81;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private static final byte[] CRLF = { '\r', '\n' };
+
+  /**
+   * Returned by the counters mutation when the value is not a number.
+   */
+  private static final Item NON_NUMERIC = new Item("", 0, 0, EMPTY);
+
+  private final ServerSocket serverSocket;
+
+  private final ExecutorService executor;
+
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+  private final long memoryLimit;
+
+  /**
+   * The items, in access order, so the eldest is the least recently used.
+   */
+  private final LinkedHashMap<String, Item> items = new LinkedHashMap<String, Item>(1024, 0.75f, true);
+
+  private long usedMemory;
+
+  private long lastCas;
+
+  private long clockOffset;
+
+  private long getHits;
+
+  private long getMisses;
+
+  private long sets;
+
+  private long evictions;
+
+  private volatile boolean running = true;
+
+  /**
+   * The storage commands.
+   */
+  private enum Command {
+    SET, ADD, REPLACE, APPEND, PREPEND, CAS
+  }
+
+  /**
+   * The storage commands outcomes.
+   */
+  private enum Outcome {
+    STORED, NOT_STORED, EXISTS, NOT_FOUND, TOO_LARGE
+  }
+
+  /**
+   * A stored item; the CAS unique is assigned when stored.
+   */
+  private static final class Item {
+
+    final String key;
+
+    final int flags;
+
+    final long expiresAt;
+
+    final byte[] value;
+
+    long cas;
+
+    Item(String key, int flags, long expiresAt, byte[] value) {
+      this.key = key;
+      this.flags = flags;
+      this.expiresAt = expiresAt;
+      this.value = value;
+    }
+
+    long size() {
+      return key.length() + value.length + ITEM_OVERHEAD;
+    }
+
+  }
+
+  /**
+   * Starts a new server on an ephemeral port of the loopback address, with the default memory limit.
+   *
+   * @throws IOException
+   *           if the server socket can't be bound.
+   */
+  public EmbeddedMemcached() throws IOException {
+    this(0, DEFAULT_MEMORY_LIMIT);
+  }
+
+  /**
+   * Starts a new server on the loopback address.
+   *
+   * @param port
+   *          the port to listen to, 0 for an ephemeral one.
+   * @param memoryLimit
+   *          the memory the items can use, in bytes, before the least recently used ones are evicted.
+   *
+   * @throws IOException
+   *           if the server socket can't be bound.
+   */
+  public EmbeddedMemcached(int port, long memoryLimit) throws IOException {
+    this.memoryLimit = memoryLimit;
+    serverSocket = new ServerSocket();
+    serverSocket.setReuseAddress(true);
+    serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+
+    AtomicInteger threads = new AtomicInteger();
+    executor = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "embedded-memcached-" + getPort() + "-" + threads.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.execute(this::accept);
+  }
+
+  /**
+   * Return the port the server listens to.
+   *
+   * @return the server port.
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Return the server address, in the <code>org.mybatis.caches.memcached.servers</code> property format.
+   *
+   * @return the server address.
+   */
+  public String getServers() {
+    return serverSocket.getInetAddress().getHostAddress() + ":" + getPort();
+  }
+
+  /**
+   * Moves the server clock forward, expiring the items as if the time had passed.
+   *
+   * @param duration
+   *          the time to move forward.
+   * @param unit
+   *          the duration unit.
+   */
+  public synchronized void advance(long duration, TimeUnit unit) {
+    clockOffset += unit.toMillis(duration);
+  }
+
+  /**
+   * Return the number of stored items, including the expired ones not reclaimed yet.
+   *
+   * @return the number of stored items.
+   */
+  public synchronized int size() {
+    return items.size();
+  }
+
+  /**
+   * Return the memory used by the stored items, in bytes.
+   *
+   * @return the used memory.
+   */
+  public synchronized long getUsedMemory() {
+    return usedMemory;
+  }
+
+  /**
+   * Return the number of items evicted to free memory.
+   *
+   * @return the number of evicted items.
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Removes every item.
+   */
+  public synchronized void flush() {
+    items.clear();
+    usedMemory = 0;
+  }
+
+  /**
+   * Stops the server, closing every open connection.
+   */
+  @Override
+  public void close() {
+    running = false;
+    closeQuietly(serverSocket);
+    for (Socket connection : connections) {
+      closeQuietly(connection);
+    }
+    executor.shutdownNow();
+  }
+
+  private void accept() {
+    while (running) {
+      try {
+        Socket connection = serverSocket.accept();
+        connection.setTcpNoDelay(true);
+        connections.add(connection);
+        executor.execute(() -> serve(connection));
+      } catch (IOException e) {
+        // the server socket was closed, unless still running
+      }
+    }
+  }
+
+  private void serve(Socket connection) {
+    try {
+      InputStream in = new BufferedInputStream(connection.getInputStream(), 16 * 1024);
+      OutputStream out = new BufferedOutputStream(connection.getOutputStream(), 16 * 1024);
+      int first;
+      boolean open = true;
+      while (open && (first = in.read()) != -1) {
+        open = first == REQUEST_MAGIC ? serveBinary(in, out) : serveText(first, in, out);
+        // the pipelined requests are answered together
+        if (!open || in.available() == 0) {
+          out.flush();
+        }
+      }
+    } catch (IOException e) {
+      // the connection was closed
+    } finally {
+      connections.remove(connection);
+      closeQuietly(connection);
+    }
+  }
+
+  // text protocol
+
+  private boolean serveText(int first, InputStream in, OutputStream out) throws IOException {
+    String line = readLine(first, in);
+    String[] tokens = line.trim().split(" +");
+    String command = tokens[0];
+    try {
+      switch (command) {
+        case "get":
+        case "gets":
+          for (int i = 1; i < tokens.length; i++) {
+            Item item = get(tokens[i]);
+            if (item != null) {
+              writeLine(out, "VALUE " + item.key + ' ' + Integer.toUnsignedString(item.flags) + ' '
+                  + item.value.length + ("gets".equals(command) ? " " + item.cas : ""));
+              out.write(item.value);
+              out.write(CRLF);
+            }
+          }
+          writeLine(out, "END");
+          break;
+
+        case "set":
+        case "add":
+        case "replace":
+        case "append":
+        case "prepend":
+        case "cas":
+          serveTextStorage(tokens, in, out);
+          break;
+
+        case "delete":
+          reply(out, tokens, delete(tokens[1], 0) ? "DELETED" : "NOT_FOUND");
+          break;
+
+        case "incr":
+        case "decr":
+          Item counter = mutate(tokens[1], "incr".equals(command), Long.parseUnsignedLong(tokens[2]), 0, -1);
+          if (counter == NON_NUMERIC) {
+            reply(out, tokens, "CLIENT_ERROR cannot increment or decrement non-numeric value");
+          } else {
+            reply(out, tokens, counter == null ? "NOT_FOUND" : new String(counter.value, StandardCharsets.US_ASCII));
+          }
+          break;
+
+        case "touch":
+          reply(out, tokens, touch(tokens[1], Integer.parseInt(tokens[2])) != null ? "TOUCHED" : "NOT_FOUND");
+          break;
+
+        case "flush_all":
+          flush();
+          reply(out, tokens, "OK");
+          break;
+
+        case "verbosity":
+          reply(out, tokens, "OK");
+          break;
+
+        case "version":
+          writeLine(out, "VERSION " + VERSION);
+          break;
+
+        case "stats":
+          for (Map.Entry<String, String> stat : stats().entrySet()) {
+            writeLine(out, "STAT " + stat.getKey() + ' ' + stat.getValue());
+          }
+          writeLine(out, "END");
+          break;
+
+        case "quit":
+          return false;
+
+        default:
+          writeLine(out, "ERROR");
+          break;
+      }
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      writeLine(out, "CLIENT_ERROR bad command line format");
+    }
+    return true;
+  }
+
+  private void serveTextStorage(String[] tokens, InputStream in, OutputStream out) throws IOException {
+    Command command = Command.valueOf(tokens[0].toUpperCase());
+    String key = tokens[1];
+    int flags = Integer.parseUnsignedInt(tokens[2]);
+    int expiration = Integer.parseInt(tokens[3]);
+    int length = Integer.parseInt(tokens[4]);
+    long cas = command == Command.CAS ? Long.parseUnsignedLong(tokens[5]) : 0;
+
+    byte[] value = readFully(in, length);
+    if (in.read() != '\r' || in.read() != '\n') {
+      writeLine(out, "CLIENT_ERROR bad data chunk");
+      return;
+    }
+
+    switch (store(command, new Item(key, flags, expiresAt(expiration), value), cas)) {
+      case STORED:
+        reply(out, tokens, "STORED");
+        break;
+      case NOT_STORED:
+        reply(out, tokens, "NOT_STORED");
+        break;
+      case EXISTS:
+        reply(out, tokens, "EXISTS");
+        break;
+      case NOT_FOUND:
+        reply(out, tokens, "NOT_FOUND");
+        break;
+      default:
+        writeLine(out, "SERVER_ERROR object too large for cache");
+        break;
+    }
+  }
+
+  private static void reply(OutputStream out, String[] tokens, String reply) throws IOException {
+    if (!"noreply".equals(tokens[tokens.length - 1])) {
+      writeLine(out, reply);
+    }
+  }
+
+  private static String readLine(int first, InputStream in) throws IOException {
+    StringBuilder line = new StringBuilder();
+    int c = first;
+    while (c != '\n') {
+      if (c == -1) {
+        throw new EOFException();
+      }
+      if (c != '\r') {
+        line.append((char) c);
+      }
+      c = in.read();
+    }
+    return line.toString();
+  }
+
+  private static void writeLine(OutputStream out, String line) throws IOException {
+    out.write(line.getBytes(StandardCharsets.ISO_8859_1));
+    out.write(CRLF);
+  }
+
+  // binary protocol
+
+  private boolean serveBinary(InputStream in, OutputStream out) throws IOException {
+    byte[] header = new byte[HEADER_LENGTH];
+    header[0] = (byte) REQUEST_MAGIC;
+    readFully(in, header, 1, HEADER_LENGTH - 1);
+
+    int opcode = header[1] & 0xff;
+    int keyLength = readShort(header, 2);
+    int extrasLength = header[4] & 0xff;
+    int opaque = readInt(header, 12);
+    long cas = readLong(header, 16);
+    byte[] body = readFully(in, readInt(header, 8));
+    byte[] extras = new byte[extrasLength];
+    System.arraycopy(body, 0, extras, 0, extrasLength);
+    String key = new String(body, extrasLength, keyLength, StandardCharsets.ISO_8859_1);
+    byte[] value = new byte[body.length - extrasLength - keyLength];
+    System.arraycopy(body, extrasLength + keyLength, value, 0, value.length);
+
+    Response response = new Response(out, opcode, opaque);
+    switch (opcode) {
+      case 0x00: // GET
+      case 0x09: // GETQ
+      case 0x0c: // GETK
+      case 0x0d: // GETKQ
+        response.item(get(key), key, opcode == 0x0c || opcode == 0x0d, opcode == 0x09 || opcode == 0x0d);
+        break;
+
+      case 0x1d: // GAT
+      case 0x1e: // GATQ
+        response.item(touch(key, readInt(extras, 0)), key, false, opcode == 0x1e);
+        break;
+
+      case 0x01: // SET
+      case 0x11: // SETQ
+      case 0x02: // ADD
+      case 0x12: // ADDQ
+      case 0x03: // REPLACE
+      case 0x13: // REPLACEQ
+      case 0x0e: // APPEND
+      case 0x19: // APPENDQ
+      case 0x0f: // PREPEND
+      case 0x1a: // PREPENDQ
+        serveBinaryStorage(response, opcode, key, extras, value, cas);
+        break;
+
+      case 0x04: // DELETE
+      case 0x14: // DELETEQ
+        if (delete(key, cas)) {
+          response.success(opcode == 0x14, 0, EMPTY);
+        } else {
+          response.error(contains(key) ? STATUS_KEY_EXISTS : STATUS_KEY_NOT_FOUND);
+        }
+        break;
+
+      case 0x05: // INCREMENT
+      case 0x15: // INCREMENTQ
+      case 0x06: // DECREMENT
+      case 0x16: // DECREMENTQ
+        Item counter = mutate(key, opcode == 0x05 || opcode == 0x15, readLong(extras, 0), readLong(extras, 8),
+            readInt(extras, 16));
+        if (counter == null) {
+          response.error(STATUS_KEY_NOT_FOUND);
+        } else if (counter == NON_NUMERIC) {
+          response.error(STATUS_NON_NUMERIC);
+        } else {
+          byte[] number = new byte[8];
+          writeLong(number, 0, Long.parseUnsignedLong(new String(counter.value, StandardCharsets.US_ASCII)));
+          response.success(opcode == 0x15 || opcode == 0x16, counter.cas, number);
+        }
+        break;
+
+      case 0x1c: // TOUCH
+        Item touched = touch(key, readInt(extras, 0));
+        if (touched == null) {
+          response.error(STATUS_KEY_NOT_FOUND);
+        } else {
+          response.success(false, touched.cas, EMPTY);
+        }
+        break;
+
+      case 0x08: // FLUSH
+      case 0x18: // FLUSHQ
+        flush();
+        response.success(opcode == 0x18, 0, EMPTY);
+        break;
+
+      case 0x0a: // NOOP
+        response.success(false, 0, EMPTY);
+        break;
+
+      case 0x0b: // VERSION
+        response.success(false, 0, VERSION.getBytes(StandardCharsets.US_ASCII));
+        break;
+
+      case 0x10: // STAT
+        for (Map.Entry<String, String> stat : stats().entrySet()) {
+          response.write(STATUS_SUCCESS, 0, EMPTY, stat.getKey(), stat.getValue().getBytes(StandardCharsets.US_ASCII));
+        }
+        response.success(false, 0, EMPTY);
+        break;
+
+      case 0x07: // QUIT
+      case 0x17: // QUITQ
+        response.success(opcode == 0x17, 0, EMPTY);
+        return false;
+
+      default:
+        response.error(STATUS_UNKNOWN_COMMAND);
+        break;
+    }
+    return true;
+  }
+
+  private void serveBinaryStorage(Response response, int opcode, String key, byte[] extras, byte[] value, long cas)
+      throws IOException {
+    Command command;
+    switch (opcode & 0x0f) {
+      case 0x01:
+        command = Command.SET;
+        break;
+      case 0x02:
+        command = Command.ADD;
+        break;
+      case 0x03:
+        command = Command.REPLACE;
+        break;
+      case 0x0e:
+      case 0x09:
+        command = Command.APPEND;
+        break;
+      default:
+        command = Command.PREPEND;
+        break;
+    }
+    boolean storing = command != Command.APPEND && command != Command.PREPEND;
+    if (storing && extras.length != 8) {
+      response.error(STATUS_INVALID_ARGUMENTS);
+      return;
+    }
+
+    int flags = storing ? readInt(extras, 0) : 0;
+    long expiresAt = storing ? expiresAt(readInt(extras, 4)) : 0;
+    Item item = new Item(key, flags, expiresAt, value);
+    // the sets and replaces carrying a CAS unique are compare and swaps
+    if (cas != 0 && (command == Command.SET || command == Command.REPLACE)) {
+      command = Command.CAS;
+    }
+    switch (store(command, item, cas)) {
+      case STORED:
+        response.success(opcode >= 0x11, item.cas, EMPTY);
+        break;
+      case NOT_STORED:
+        response.error(command == Command.ADD ? STATUS_KEY_EXISTS
+            : command == Command.REPLACE ? STATUS_KEY_NOT_FOUND : STATUS_NOT_STORED);
+        break;
+      case EXISTS:
+        response.error(STATUS_KEY_EXISTS);
+        break;
+      case NOT_FOUND:
+        response.error(STATUS_KEY_NOT_FOUND);
+        break;
+      default:
+        response.error(STATUS_VALUE_TOO_LARGE);
+        break;
+    }
+  }
+
+  /**
+   * Writes the binary responses to a request.
+   */
+  private static final class Response {
+
+    private final OutputStream out;
+
+    private final int opcode;
+
+    private final int opaque;
+
+    Response(OutputStream out, int opcode, int opaque) {
+      this.out = out;
+      this.opcode = opcode;
+      this.opaque = opaque;
+    }
+
+    void item(Item item, String key, boolean withKey, boolean quiet) throws IOException {
+      if (item == null) {
+        if (!quiet) {
+          write(STATUS_KEY_NOT_FOUND, 0, EMPTY, withKey ? key : "", message(STATUS_KEY_NOT_FOUND));
+        }
+        return;
+      }
+      byte[] flags = new byte[4];
+      writeInt(flags, 0, item.flags);
+      write(STATUS_SUCCESS, item.cas, flags, withKey ? key : "", item.value);
+    }
+
+    void success(boolean quiet, long cas, byte[] value) throws IOException {
+      if (!quiet) {
+        write(STATUS_SUCCESS, cas, EMPTY, "", value);
+      }
+    }
+
+    void error(int status) throws IOException {
+      write(status, 0, EMPTY, "", message(status));
+    }
+
+    void write(int status, long cas, byte[] extras, String key, byte[] value) throws IOException {
+      byte[] keyBytes = key.getBytes(StandardCharsets.ISO_8859_1);
+      byte[] header = new byte[HEADER_LENGTH];
+      header[0] = (byte) RESPONSE_MAGIC;
+      header[1] = (byte) opcode;
+      writeShort(header, 2, keyBytes.length);
+      header[4] = (byte) extras.length;
+      writeShort(header, 6, status);
+      writeInt(header, 8, extras.length + keyBytes.length + value.length);
+      writeInt(header, 12, opaque);
+      writeLong(header, 16, cas);
+      out.write(header);
+      out.write(extras);
+      out.write(keyBytes);
+      out.write(value);
+    }
+
+    private static byte[] message(int status) {
+      String message;
+      switch (status) {
+        case STATUS_KEY_NOT_FOUND:
+          message = "Not found";
+          break;
+        case STATUS_KEY_EXISTS:
+          message = "Data exists for key.";
+          break;
+        case STATUS_VALUE_TOO_LARGE:
+          message = "Too large.";
+          break;
+        case STATUS_INVALID_ARGUMENTS:
+          message = "Invalid arguments";
+          break;
+        case STATUS_NOT_STORED:
+          message = "Not stored.";
+          break;
+        case STATUS_NON_NUMERIC:
+          message = "Non-numeric server-side value for incr or decr";
+          break;
+        default:
+          message = "Unknown command";
+          break;
+      }
+      return message.getBytes(StandardCharsets.US_ASCII);
+    }
+
+  }
+
+  // storage
+
+  private long now() {
+    return System.currentTimeMillis() + clockOffset;
+  }
+
+  private synchronized long expiresAt(int expiration) {
+    if (expiration == 0) {
+      return 0;
+    }
+    if (expiration < 0) {
+      // already expired
+      return 1;
+    }
+    if (expiration > RELATIVE_EXPIRATION_LIMIT) {
+      return expiration * 1000L;
+    }
+    return now() + expiration * 1000L;
+  }
+
+  /**
+   * Return the live item of a key, reclaiming it if it expired.
+   */
+  private Item live(String key) {
+    Item item = items.get(key);
+    if (item != null && item.expiresAt != 0 && item.expiresAt <= now()) {
+      remove(key);
+      return null;
+    }
+    return item;
+  }
+
+  private synchronized Item get(String key) {
+    Item item = live(key);
+    if (item == null) {
+      getMisses++;
+    } else {
+      getHits++;
+    }
+    return item;
+  }
+
+  private synchronized boolean contains(String key) {
+    return live(key) != null;
+  }
+
+  private synchronized Outcome store(Command command, Item item, long cas) {
+    if (item.value.length > MAX_ITEM_SIZE) {
+      return Outcome.TOO_LARGE;
+    }
+    sets++;
+
+    Item current = live(item.key);
+    Item stored = item;
+    switch (command) {
+      case ADD:
+        if (current != null) {
+          return Outcome.NOT_STORED;
+        }
+        break;
+      case REPLACE:
+        if (current == null) {
+          return Outcome.NOT_STORED;
+        }
+        break;
+      case APPEND:
+      case PREPEND:
+        if (current == null) {
+          return Outcome.NOT_STORED;
+        }
+        ByteArrayOutputStream value = new ByteArrayOutputStream(current.value.length + item.value.length);
+        byte[] first = command == Command.APPEND ? current.value : item.value;
+        byte[] second = command == Command.APPEND ? item.value : current.value;
+        value.write(first, 0, first.length);
+        value.write(second, 0, second.length);
+        stored = new Item(item.key, current.flags, current.expiresAt, value.toByteArray());
+        break;
+      case CAS:
+        if (current == null) {
+          return Outcome.NOT_FOUND;
+        }
+        if (current.cas != cas) {
+          return Outcome.EXISTS;
+        }
+        break;
+      default:
+        break;
+    }
+
+    put(stored);
+    item.cas = stored.cas;
+    return Outcome.STORED;
+  }
+
+  private synchronized boolean delete(String key, long cas) {
+    Item current = live(key);
+    if (current == null || cas != 0 && current.cas != cas) {
+      return false;
+    }
+    remove(key);
+    return true;
+  }
+
+  /**
+   * Increments or decrements a counter.
+   *
+   * @return the updated counter, null if missing, {@link #NON_NUMERIC} if the value is not a number.
+   */
+  private synchronized Item mutate(String key, boolean increment, long delta, long initial, int expiration) {
+    Item current = live(key);
+    long counter;
+    if (current == null) {
+      // the binary protocol creates the missing counters, unless the expiration is 0xffffffff
+      if (expiration == -1) {
+        return null;
+      }
+      counter = initial;
+      current = new Item(key, 0, expiresAt(expiration), EMPTY);
+    } else {
+      try {
+        counter = Long.parseUnsignedLong(new String(current.value, StandardCharsets.US_ASCII).trim());
+      } catch (NumberFormatException e) {
+        return NON_NUMERIC;
+      }
+      if (increment) {
+        counter += delta;
+      } else {
+        counter = Long.compareUnsigned(counter, delta) < 0 ? 0 : counter - delta;
+      }
+    }
+
+    Item updated = new Item(key, current.flags, current.expiresAt,
+        Long.toUnsignedString(counter).getBytes(StandardCharsets.US_ASCII));
+    put(updated);
+    return updated;
+  }
+
+  private synchronized Item touch(String key, int expiration) {
+    Item current = live(key);
+    if (current == null) {
+      return null;
+    }
+    Item touched = new Item(key, current.flags, expiresAt(expiration), current.value);
+    touched.cas = current.cas;
+    items.put(key, touched);
+    return touched;
+  }
+
+  private void put(Item item) {
+    item.cas = ++lastCas;
+    Item previous = items.put(item.key, item);
+    if (previous != null) {
+      usedMemory -= previous.size();
+    }
+    usedMemory += item.size();
+
+    Iterator<Item> eldest = items.values().iterator();
+    while (usedMemory > memoryLimit && eldest.hasNext()) {
+      Item evicted = eldest.next();
+      if (evicted == item) {
+        break;
+      }
+      eldest.remove();
+      usedMemory -= evicted.size();
+      evictions++;
+    }
+  }
+
+  private void remove(String key) {
+    Item removed = items.remove(key);
+    if (removed != null) {
+      usedMemory -= removed.size();
+    }
+  }
+
+  private synchronized Map<String, String> stats() {
+    Map<String, String> stats = new LinkedHashMap<String, String>();
+    stats.put("version", VERSION);
+    stats.put("curr_connections", String.valueOf(connections.size()));
+    stats.put("cmd_get", String.valueOf(getHits + getMisses));
+    stats.put("cmd_set", String.valueOf(sets));
+    stats.put("get_hits", String.valueOf(getHits));
+    stats.put("get_misses", String.valueOf(getMisses));
+    stats.put("curr_items", String.valueOf(items.size()));
+    stats.put("bytes", String.valueOf(usedMemory));
+    stats.put("limit_maxbytes", String.valueOf(memoryLimit));
+    stats.put("evictions", String.valueOf(evictions));
+    return stats;
+  }
+
+  // encoding
+
+  private static byte[] readFully(InputStream in, int length) throws IOException {
+    byte[] bytes = new byte[length];
+    readFully(in, bytes, 0, length);
+    return bytes;
+  }
+
+  private static void readFully(InputStream in, byte[] bytes, int offset, int length) throws IOException {
+    while (length > 0) {
+      int read = in.read(bytes, offset, length);
+      if (read == -1) {
+        throw new EOFException();
+      }
+      offset += read;
+      length -= read;
+    }
+  }
+
+  private static int readShort(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) << 8 | bytes[offset + 1] & 0xff;
+  }
+
+  private static int readInt(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16 | (bytes[offset + 2] & 0xff) << 8
+        | bytes[offset + 3] & 0xff;
+  }
+
+  private static long readLong(byte[] bytes, int offset) {
+    return (long) readInt(bytes, offset) << 32 | readInt(bytes, offset + 4) & 0xffffffffL;
+  }
+
+  private static void writeShort(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 8);
+    bytes[offset + 1] = (byte) value;
+  }
+
+  private static void writeInt(byte[] bytes, int offset, int value) {
+    writeShort(bytes, offset, value >>> 16);
+    writeShort(bytes, offset + 2, value);
+  }
+
+  private static void writeLong(byte[] bytes, int offset, long value) {
+    writeInt(bytes, offset, (int) (value >>> 32));
+    writeInt(bytes, offset + 4, (int) value);
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // ignored
+    }
+  }
+
+}
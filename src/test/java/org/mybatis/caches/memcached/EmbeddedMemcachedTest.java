@@ -0,0 +1,274 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EmbeddedMemcachedTest {
+
+  private EmbeddedMemcached server;
+
+  private Socket socket;
+
+  @BeforeEach
+  void start() throws IOException {
+    server = new EmbeddedMemcached(0, 64 * 1024);
+    socket = new Socket("127.0.0.1", server.getPort());
+  }
+
+  @AfterEach
+  void stop() throws IOException {
+    socket.close();
+    server.close();
+  }
+
+  @Test
+  void shouldServeTheTextProtocol() throws IOException {
+    assertEquals("STORED", text("set k 5 0 5\r\nhello"));
+    assertEquals("VALUE k 5 5", text("get k missing"));
+    assertEquals("hello", readLine());
+    assertEquals("END", readLine());
+
+    assertEquals("VALUE k 5 5 1", text("gets k"));
+    assertEquals("hello", readLine());
+    assertEquals("END", readLine());
+    assertEquals("EXISTS", text("cas k 0 0 3 9\r\nbye"));
+    assertEquals("STORED", text("cas k 0 0 3 1\r\nbye"));
+    assertEquals("NOT_FOUND", text("cas missing 0 0 3 1\r\nbye"));
+
+    assertEquals("NOT_STORED", text("add k 0 0 1\r\nx"));
+    assertEquals("STORED", text("append k 0 0 1\r\n!"));
+    assertEquals("VALUE k 0 4", text("get k"));
+    assertEquals("bye!", readLine());
+    assertEquals("END", readLine());
+
+    assertEquals("STORED", text("set n 0 0 2\r\n41"));
+    assertEquals("42", text("incr n 1"));
+    assertEquals("0", text("decr n 50"));
+    assertEquals("NOT_FOUND", text("incr missing 1"));
+    assertEquals("CLIENT_ERROR cannot increment or decrement non-numeric value", text("incr k 1"));
+
+    assertEquals("TOUCHED", text("touch k 10"));
+    assertEquals("DELETED", text("delete k"));
+    assertEquals("NOT_FOUND", text("delete k"));
+
+    // the noreply commands are answered by the next one only
+    assertEquals("ERROR", text("set q 0 0 1 noreply\r\nq\r\nbogus"));
+    assertEquals("VERSION 1.6.0-embedded", text("version"));
+  }
+
+  @Test
+  void shouldServeTheBinaryProtocol() throws IOException {
+    Response set = binary(0x01, storageExtras(7, 0), "k", "hello", 0, 1);
+    assertEquals(0, set.status);
+    assertEquals(1, set.opaque);
+    assertTrue(set.cas > 0);
+
+    Response get = binary(0x00, new byte[0], "k", "", 0, 2);
+    assertEquals(0, get.status);
+    assertArrayEquals(new byte[] { 0, 0, 0, 7 }, get.extras);
+    assertEquals("hello", get.value);
+    assertEquals(set.cas, get.cas);
+
+    assertEquals(2, binary(0x01, storageExtras(0, 0), "k", "stale", set.cas + 1, 3).status);
+    assertEquals(0, binary(0x01, storageExtras(0, 0), "k", "fresh", set.cas, 4).status);
+    assertEquals(2, binary(0x02, storageExtras(0, 0), "k", "added", 0, 5).status);
+    assertEquals(1, binary(0x03, storageExtras(0, 0), "missing", "replaced", 0, 6).status);
+
+    // the quiet gets only answer the hits, the noop ends the pipeline
+    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+    out.write(request(0x0d, new byte[0], "missing", "", 0, 7));
+    out.write(request(0x0d, new byte[0], "k", "", 0, 8));
+    out.write(request(0x0a, new byte[0], "", "", 0, 9));
+    out.flush();
+    Response hit = readResponse();
+    assertEquals(8, hit.opaque);
+    assertEquals("k", hit.key);
+    assertEquals("fresh", hit.value);
+    assertEquals(9, readResponse().opaque);
+
+    byte[] counterExtras = new byte[20];
+    counterExtras[7] = 2;
+    counterExtras[15] = 40;
+    Response created = binary(0x05, counterExtras, "n", "", 0, 10);
+    assertEquals(0, created.status);
+    assertArrayEquals(new byte[] { 0, 0, 0, 0, 0, 0, 0, 40 }, created.value.getBytes(StandardCharsets.ISO_8859_1));
+    Response incremented = binary(0x05, counterExtras, "n", "", 0, 11);
+    assertArrayEquals(new byte[] { 0, 0, 0, 0, 0, 0, 0, 42 },
+        incremented.value.getBytes(StandardCharsets.ISO_8859_1));
+
+    assertEquals(0, binary(0x04, new byte[0], "k", "", 0, 12).status);
+    assertEquals(1, binary(0x00, new byte[0], "k", "", 0, 13).status);
+    assertEquals(0x81, binary(0x42, new byte[0], "", "", 0, 14).status);
+  }
+
+  @Test
+  void shouldExpireItems() throws IOException {
+    long inAMinute = System.currentTimeMillis() / 1000 + 60;
+    assertEquals("STORED", text("set absolute 0 " + inAMinute + " 1\r\na"));
+    assertEquals("STORED", text("set expired 0 -1 1\r\ne"));
+
+    assertEquals("VALUE absolute 0 1", text("get expired absolute"));
+    assertEquals("a", readLine());
+    assertEquals("END", readLine());
+
+    server.advance(60, TimeUnit.SECONDS);
+    assertEquals("END", text("get absolute"));
+  }
+
+  @Test
+  void shouldExpireItemsWhenTheClockMovesForward() throws IOException {
+    assertEquals("STORED", text("set relative 0 10 1\r\nr"));
+    server.advance(9, TimeUnit.SECONDS);
+    assertEquals("VALUE relative 0 1", text("get relative"));
+    assertEquals("r", readLine());
+    assertEquals("END", readLine());
+
+    server.advance(1, TimeUnit.SECONDS);
+    assertEquals("END", text("get relative"));
+    assertEquals(0, server.size());
+  }
+
+  @Test
+  void shouldEvictTheLeastRecentlyUsedItems() throws IOException {
+    String value = "x".repeat(1000);
+    for (int i = 0; i < 100; i++) {
+      assertEquals("STORED", text("set k" + i + " 0 0 1000\r\n" + value));
+      // k0 stays the most recently used
+      assertEquals("VALUE k0 0 1000", text("get k0"));
+      readLine();
+      assertEquals("END", readLine());
+    }
+
+    assertTrue(server.getUsedMemory() <= 64 * 1024);
+    assertTrue(server.getEvictions() > 0);
+    assertEquals("END", text("get k1"));
+    assertEquals("VALUE k99 0 1000", text("get k99"));
+  }
+
+  @Test
+  void shouldRejectValuesLargerThanOneMegabyte() throws IOException {
+    String value = "x".repeat(EmbeddedMemcached.MAX_ITEM_SIZE + 1);
+    assertEquals("SERVER_ERROR object too large for cache",
+        text("set k 0 0 " + value.length() + "\r\n" + value));
+    assertEquals(0, server.size());
+  }
+
+  private String text(String command) throws IOException {
+    socket.getOutputStream().write((command + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+    socket.getOutputStream().flush();
+    return readLine();
+  }
+
+  private String readLine() throws IOException {
+    InputStream in = socket.getInputStream();
+    StringBuilder line = new StringBuilder();
+    int c;
+    while ((c = in.read()) != '\n') {
+      if (c != '\r') {
+        line.append((char) c);
+      }
+    }
+    return line.toString();
+  }
+
+  private static byte[] storageExtras(int flags, int expiration) {
+    return new byte[] { (byte) (flags >>> 24), (byte) (flags >>> 16), (byte) (flags >>> 8), (byte) flags,
+        (byte) (expiration >>> 24), (byte) (expiration >>> 16), (byte) (expiration >>> 8), (byte) expiration };
+  }
+
+  private Response binary(int opcode, byte[] extras, String key, String value, long cas, int opaque)
+      throws IOException {
+    socket.getOutputStream().write(request(opcode, extras, key, value, cas, opaque));
+    socket.getOutputStream().flush();
+    return readResponse();
+  }
+
+  private static byte[] request(int opcode, byte[] extras, String key, String value, long cas, int opaque)
+      throws IOException {
+    byte[] keyBytes = key.getBytes(StandardCharsets.ISO_8859_1);
+    byte[] valueBytes = value.getBytes(StandardCharsets.ISO_8859_1);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(0x80);
+    out.writeByte(opcode);
+    out.writeShort(keyBytes.length);
+    out.writeByte(extras.length);
+    out.writeByte(0);
+    out.writeShort(0);
+    out.writeInt(extras.length + keyBytes.length + valueBytes.length);
+    out.writeInt(opaque);
+    out.writeLong(cas);
+    out.write(extras);
+    out.write(keyBytes);
+    out.write(valueBytes);
+    return bytes.toByteArray();
+  }
+
+  private Response readResponse() throws IOException {
+    DataInputStream in = new DataInputStream(socket.getInputStream());
+    assertEquals(0x81, in.readUnsignedByte());
+    Response response = new Response();
+    in.readUnsignedByte();
+    int keyLength = in.readUnsignedShort();
+    int extrasLength = in.readUnsignedByte();
+    in.readUnsignedByte();
+    response.status = in.readUnsignedShort();
+    int bodyLength = in.readInt();
+    response.opaque = in.readInt();
+    response.cas = in.readLong();
+    byte[] body = new byte[bodyLength];
+    in.readFully(body);
+    response.extras = Arrays.copyOf(body, extrasLength);
+    response.key = new String(body, extrasLength, keyLength, StandardCharsets.ISO_8859_1);
+    response.value = new String(body, extrasLength + keyLength, bodyLength - extrasLength - keyLength,
+        StandardCharsets.ISO_8859_1);
+    return response;
+  }
+
+  private static final class Response {
+
+    int status;
+
+    int opaque;
+
+    long cas;
+
+    byte[] extras;
+
+    String key;
+
+    String value;
+
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class HotKeysTest {
+
+  @Test
+  void shouldReadColdKeysThemselves() {
+    HotKeys hotKeys = new HotKeys(2, 1, 100);
+
+    for (int i = 0; i < 99; i++) {
+      assertEquals("cold", hotKeys.select("cold"));
+    }
+    assertFalse(hotKeys.isHot("cold"));
+  }
+
+  @Test
+  void shouldSpreadTheReadsOfHotKeysOverTheirReplicas() {
+    HotKeys hotKeys = new HotKeys(2, 1, 100);
+    for (int i = 0; i < 100; i++) {
+      hotKeys.select("hot");
+    }
+    assertTrue(hotKeys.isHot("hot"));
+
+    Set<String> selected = new HashSet<String>();
+    for (int i = 0; i < 1000; i++) {
+      selected.add(hotKeys.select("hot"));
+    }
+    assertEquals(Set.of("hot", "hot#1", "hot#2"), selected);
+    assertArrayEquals(new String[] { "hot#1", "hot#2" }, hotKeys.replicasOf("hot"));
+  }
+
+  @Test
+  void shouldCoolDownKeysNoLongerRead() {
+    HotKeys hotKeys = new HotKeys(2, 1, 100);
+    for (int i = 0; i < 100; i++) {
+      hotKeys.select("hot");
+    }
+
+    for (int i = 0; i < 200000; i++) {
+      hotKeys.select("key" + i);
+    }
+    assertFalse(hotKeys.isHot("hot"));
+  }
+
+}
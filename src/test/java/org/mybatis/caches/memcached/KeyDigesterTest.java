@@ -0,0 +1,84 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.junit.jupiter.api.Test;
+
+class KeyDigesterTest {
+
+  @Test
+  void shouldDigestEqualCacheKeysEqually() {
+    assertArrayEquals(KeyDigester.digest(cacheKey("select * from t where id = ?", 1)),
+        KeyDigester.digest(cacheKey("select * from t where id = ?", 1)));
+    assertEquals(32, KeyDigester.digest(cacheKey("select 1")).length);
+  }
+
+  @Test
+  void shouldDigestDifferentCacheKeysDifferently() {
+    byte[] digest = KeyDigester.digest(cacheKey("select * from t where id = ?", 1));
+
+    assertFalse(Arrays.equals(digest, KeyDigester.digest(cacheKey("select * from t where id = ?", 2))));
+    assertFalse(Arrays.equals(digest, KeyDigester.digest(cacheKey("select * from t where id = ?", "1"))));
+    assertFalse(Arrays.equals(digest, KeyDigester.digest(cacheKey("select * from t where id = ?", 1, null))));
+    assertFalse(Arrays.equals(digest, KeyDigester.digest("select * from t where id = ?")));
+    assertFalse(Arrays.equals(digest, KeyDigester.digest(7L, cacheKey("select * from t where id = ?", 1))));
+    assertFalse(Arrays.equals(KeyDigester.digest(7L, "k"), KeyDigester.digest(8L, "k")));
+  }
+
+  @Test
+  void shouldDigestLongKeysAndArrays() {
+    char[] sql = new char[10000];
+    Arrays.fill(sql, 'X');
+    String longSql = new String(sql);
+
+    assertArrayEquals(KeyDigester.digest(cacheKey(longSql, new int[] { 1, 2 }, new Object[] { "a", null })),
+        KeyDigester.digest(cacheKey(longSql, new int[] { 1, 2 }, new Object[] { "a", null })));
+    assertFalse(Arrays.equals(KeyDigester.digest(cacheKey(longSql, new int[] { 1, 2 })),
+        KeyDigester.digest(cacheKey(longSql, new int[] { 2, 1 }))));
+  }
+
+  @Test
+  void shouldNotLeakAFailedKeyIntoTheNextOne() {
+    char[] sql = new char[10000];
+    Arrays.fill(sql, 'X');
+    Object failing = new Object() {
+      @Override
+      public String toString() {
+        throw new IllegalStateException("boom");
+      }
+    };
+    byte[] expected = KeyDigester.digest(cacheKey("select 1"));
+
+    // the long SQL text is partly flushed to the digest before the parameter fails
+    assertThrows(IllegalStateException.class, () -> KeyDigester.digest(cacheKey(new String(sql), failing)));
+    assertArrayEquals(expected, KeyDigester.digest(cacheKey("select 1")));
+  }
+
+  private static CacheKey cacheKey(Object... components) {
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.updateAll(components);
+    return cacheKey;
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void shouldMapEveryDurationToTheBucketContainingIt() {
+    for (long nanos : new long[] { 0, 1, 7, 8, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE }) {
+      int index = LatencyHistogram.index(nanos);
+      assertTrue(LatencyHistogram.lowerBound(index) <= nanos, "lower bound of " + nanos);
+      assertTrue(LatencyHistogram.upperBound(index) >= nanos, "upper bound of " + nanos);
+    }
+  }
+
+  @Test
+  void shouldComputePercentilesWithinTheBucketPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertWithin(500, histogram.getPercentileMicros(50));
+    assertWithin(990, histogram.getPercentileMicros(99));
+    assertWithin(999, histogram.getPercentileMicros(99.9));
+
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getPercentileMicros(99));
+  }
+
+  @Test
+  void shouldRegisterTheStatisticsMBeans() throws Exception {
+    NamespaceStatistics statistics = new NamespaceStatistics();
+    statistics.got(true, System.nanoTime());
+    statistics.got(false, System.nanoTime());
+
+    JmxRegistrar.register("Namespace", "org.acme.Mapper", statistics);
+    // registering again, e.g. after a redeployment, replaces the previous MBean
+    JmxRegistrar.register("Namespace", "org.acme.Mapper", statistics);
+
+    ObjectName name = new ObjectName("org.mybatis.caches.memcached:type=Namespace,name=\"org.acme.Mapper\"");
+    assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Gets"));
+    assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Hits"));
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(actual >= expected && actual <= expected * 1.125 + 1, expected + " expected, got " + actual);
+  }
+
+}
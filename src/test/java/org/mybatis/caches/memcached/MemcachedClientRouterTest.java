@@ -0,0 +1,50 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class MemcachedClientRouterTest {
+
+  @Test
+  void shouldRouteCacheIdsToFirstMatchingClient() {
+    Map<String, MemcachedConfiguration> clients = new LinkedHashMap<String, MemcachedConfiguration>();
+    clients.put("hot", withNamespaces("org.acme.hot.*, org.acme.CountryMapper"));
+    clients.put("bulk", withNamespaces("org.acme.*"));
+    clients.put("unused", withNamespaces(""));
+
+    MemcachedClientRouter router = new MemcachedClientRouter(withNamespaces(""), clients);
+
+    assertEquals("hot", router.resolve("org.acme.hot.UserMapper").getName());
+    assertEquals("hot", router.resolve("org.acme.CountryMapper").getName());
+    assertEquals("bulk", router.resolve("org.acme.CountryMapperX").getName());
+    assertEquals("bulk", router.resolve("org.acme.ReportMapper").getName());
+    assertEquals("default", router.resolve("org.other.ReportMapper").getName());
+    assertEquals("default", router.resolve("org_acme_hot").getName());
+  }
+
+  private static MemcachedConfiguration withNamespaces(String namespaces) {
+    MemcachedConfiguration configuration = new MemcachedConfiguration();
+    configuration.setNamespaces(namespaces);
+    return configuration;
+  }
+
+}
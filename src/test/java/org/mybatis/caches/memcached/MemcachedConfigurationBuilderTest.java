@@ -19,6 +19,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -26,9 +27,15 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import net.spy.memcached.ConnectionFactory;
+import net.spy.memcached.ConnectionFactoryBuilder;
 import net.spy.memcached.DefaultConnectionFactory;
+import net.spy.memcached.DefaultHashAlgorithm;
+import net.spy.memcached.FailureMode;
 
 import org.junit.jupiter.api.Test;
 
@@ -45,27 +52,84 @@ class MemcachedConfigurationBuilderTest {
         });
 
     assertEquals("_mybatis_", configuration.getKeyPrefix());
+    assertEquals(KeyFormat.HEX, configuration.getKeyFormat());
     assertEquals(60 * 60 * 24 * 30, configuration.getExpiration());
+    assertEquals(0, configuration.getExpirationJitter());
     assertEquals(5, configuration.getTimeout());
+    assertEquals(0, configuration.getChunkSize());
     assertEquals(TimeUnit.SECONDS, configuration.getTimeUnit());
     assertFalse(configuration.isUsingAsyncGet());
     assertFalse(configuration.isCompressionEnabled());
+    assertEquals(CompressionCodec.GZIP, configuration.getCompressionCodec());
+    assertEquals(-1, configuration.getCompressionLevel());
+    assertEquals(0, configuration.getCompressionThreshold());
     assertFalse(configuration.isUsingSASL());
     assertEquals("", configuration.getUsername());
     assertEquals("", configuration.getPassword());
     assertInstanceOf(DefaultConnectionFactory.class, configuration.getConnectionFactory());
     assertEquals(1, configuration.getAddresses().size());
     assertEquals(11211, configuration.getAddresses().get(0).getPort());
+    assertEquals(1, configuration.getPoolSize());
+    assertEquals(ConnectionFactoryBuilder.Protocol.TEXT, configuration.getProtocol());
+    assertEquals(ConnectionFactoryBuilder.Locator.ARRAY_MOD, configuration.getLocator());
+    assertEquals(DefaultHashAlgorithm.NATIVE_HASH, configuration.getHashAlgorithm());
+    assertEquals(16384, configuration.getOpQueueSize());
+    assertEquals(10000, configuration.getOpQueueMaxBlockTime());
+    assertEquals(2500, configuration.getOpTimeout());
+    assertEquals(16384, configuration.getReadBufferSize());
+    assertTrue(configuration.isTcpNoDelay());
+    assertEquals(FailureMode.Redistribute, configuration.getFailureMode());
+    assertEquals(1000, configuration.getTimeoutExceptionThreshold());
+    assertEquals(InvalidationMode.GROUP, configuration.getInvalidationMode());
+    assertEquals(1000, configuration.getGenerationRefresh());
+    assertEquals(0, configuration.getNearCacheSize());
+    assertEquals(60, configuration.getNearCacheTimeToLive());
+    assertEquals(1000, configuration.getNearCacheCheckInterval());
+    assertEquals(0, configuration.getReadBatchSize());
+    assertEquals(200, configuration.getReadBatchWindow());
+    assertFalse(configuration.isUsingSingleFlight());
+    assertEquals(0, configuration.getSingleFlightLoadWait());
+    assertEquals(0, configuration.getCasMaxAttempts());
+    assertEquals(0, configuration.getCasBackoff());
+    assertEquals(100, configuration.getCasMaxBackoff());
+    assertEquals(CasFallback.DELETE_ENTRY, configuration.getCasFallback());
+    assertEquals(256, configuration.getClearConcurrency());
+    assertEquals(10000, configuration.getClearTimeout());
+    assertEquals(0, configuration.getWriteBehindQueueSize());
+    assertEquals(1, configuration.getWriteBehindThreads());
+    assertEquals(0, configuration.getSoftTtl());
+    assertEquals(10, configuration.getSoftTtlRefresh());
+    assertEquals(0, configuration.getHotKeyReplicas());
+    assertEquals(16, configuration.getHotKeySampling());
+    assertEquals(1000, configuration.getHotKeyThreshold());
+    assertEquals(64, configuration.getWriteBehindBatchSize());
+    assertFalse(configuration.isJmxEnabled());
+    assertInstanceOf(JdkSerializer.class, configuration.getSerializer());
+    assertTrue(configuration.getSerializerClasses().isEmpty());
   }
 
   @Test
   void shouldParseCustomConfigurationFromProperties() {
     String properties = String.join("\n", "org.mybatis.caches.memcached.keyprefix=test_",
+        "org.mybatis.caches.memcached.keyformat=base64",
         "org.mybatis.caches.memcached.username=u", "org.mybatis.caches.memcached.password=p",
         "org.mybatis.caches.memcached.expiration=120", "org.mybatis.caches.memcached.timeout=7",
         "org.mybatis.caches.memcached.timeoutunit=milliseconds", "org.mybatis.caches.memcached.asyncget=true",
-        "org.mybatis.caches.memcached.compression=true", "org.mybatis.caches.memcached.sasl=true",
+        "org.mybatis.caches.memcached.compression=true",
+        "org.mybatis.caches.memcached.compression.codec=deflate", "org.mybatis.caches.memcached.compression.level=1",
+        "org.mybatis.caches.memcached.compression.threshold=1024",
         "org.mybatis.caches.memcached.servers=localhost:11211,localhost:11212",
+        "org.mybatis.caches.memcached.invalidation=generation", "org.mybatis.caches.memcached.nearcache.size=500",
+        "org.mybatis.caches.memcached.nearcache.ttl=10", "org.mybatis.caches.memcached.nearcache.checkinterval=250",
+        "org.mybatis.caches.memcached.batch.size=64", "org.mybatis.caches.memcached.batch.window=50",
+        "org.mybatis.caches.memcached.singleflight=true", "org.mybatis.caches.memcached.singleflight.wait=100",
+        "org.mybatis.caches.memcached.jmx=true", "org.mybatis.caches.memcached.serializer=binary",
+        "org.mybatis.caches.memcached.writebehind.size=1000",
+        "org.mybatis.caches.memcached.cas.maxattempts=5", "org.mybatis.caches.memcached.cas.backoff=2",
+        "org.mybatis.caches.memcached.cas.maxbackoff=50", "org.mybatis.caches.memcached.cas.fallback=invalidate_group",
+        "org.mybatis.caches.memcached.clear.concurrency=32", "org.mybatis.caches.memcached.clear.timeout=500",
+        "org.mybatis.caches.memcached.writebehind.threads=2", "org.mybatis.caches.memcached.writebehind.batch=16",
+        "org.mybatis.caches.memcached.serializer.classes=" + BinarySerializerTest.Person.class.getName(),
         "org.mybatis.caches.memcached.connectionfactory=" + PropertySettersTest.TestConnectionFactory.class.getName());
 
     MemcachedConfiguration configuration = MemcachedConfigurationBuilder.getInstance()
@@ -80,6 +144,7 @@ class MemcachedConfigurationBuilderTest {
         });
 
     assertEquals("test_", configuration.getKeyPrefix());
+    assertEquals(KeyFormat.BASE64, configuration.getKeyFormat());
     assertEquals("u", configuration.getUsername());
     assertEquals("p", configuration.getPassword());
     assertEquals(120, configuration.getExpiration());
@@ -87,9 +152,130 @@ class MemcachedConfigurationBuilderTest {
     assertEquals(TimeUnit.MILLISECONDS, configuration.getTimeUnit());
     assertTrue(configuration.isUsingAsyncGet());
     assertTrue(configuration.isCompressionEnabled());
-    assertTrue(configuration.isUsingSASL());
+    assertEquals(CompressionCodec.DEFLATE, configuration.getCompressionCodec());
+    assertEquals(1, configuration.getCompressionLevel());
+    assertEquals(1024, configuration.getCompressionThreshold());
     assertEquals(2, configuration.getAddresses().size());
     assertInstanceOf(PropertySettersTest.TestConnectionFactory.class, configuration.getConnectionFactory());
+    assertEquals(InvalidationMode.GENERATION, configuration.getInvalidationMode());
+    assertEquals(500, configuration.getNearCacheSize());
+    assertEquals(10, configuration.getNearCacheTimeToLive());
+    assertEquals(250, configuration.getNearCacheCheckInterval());
+    assertEquals(64, configuration.getReadBatchSize());
+    assertEquals(50, configuration.getReadBatchWindow());
+    assertTrue(configuration.isUsingSingleFlight());
+    assertEquals(100, configuration.getSingleFlightLoadWait());
+    assertEquals(5, configuration.getCasMaxAttempts());
+    assertEquals(2, configuration.getCasBackoff());
+    assertEquals(50, configuration.getCasMaxBackoff());
+    assertEquals(CasFallback.INVALIDATE_GROUP, configuration.getCasFallback());
+    assertEquals(32, configuration.getClearConcurrency());
+    assertEquals(500, configuration.getClearTimeout());
+    assertEquals(1000, configuration.getWriteBehindQueueSize());
+    assertEquals(2, configuration.getWriteBehindThreads());
+    assertEquals(16, configuration.getWriteBehindBatchSize());
+    assertTrue(configuration.isJmxEnabled());
+    assertInstanceOf(BinarySerializer.class, configuration.getSerializer());
+    assertEquals(List.of(BinarySerializerTest.Person.class), configuration.getSerializerClasses());
+  }
+
+  @Test
+  void shouldBuildTheConnectionFactoryFromTheConnectionProperties() {
+    String properties = String.join("\n", "org.mybatis.caches.memcached.protocol=binary",
+        "org.mybatis.caches.memcached.locator=consistent", "org.mybatis.caches.memcached.hash=ketama_hash",
+        "org.mybatis.caches.memcached.opqueue.size=1024", "org.mybatis.caches.memcached.opqueue.maxblocktime=5",
+        "org.mybatis.caches.memcached.optimeout=100", "org.mybatis.caches.memcached.readbuffer.size=65536",
+        "org.mybatis.caches.memcached.tcpnodelay=false", "org.mybatis.caches.memcached.failuremode=cancel",
+        "org.mybatis.caches.memcached.timeoutexception.threshold=10", "org.mybatis.caches.memcached.sasl=true");
+
+    MemcachedConfiguration configuration = MemcachedConfigurationBuilder.getInstance()
+        .parseConfiguration(new ClassLoader(null) {
+          @Override
+          public InputStream getResourceAsStream(String name) {
+            if ("memcached.properties".equals(name)) {
+              return new ByteArrayInputStream(properties.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+          }
+        });
+
+    assertEquals(ConnectionFactoryBuilder.Protocol.BINARY, configuration.getProtocol());
+    assertEquals(ConnectionFactoryBuilder.Locator.CONSISTENT, configuration.getLocator());
+    assertEquals(1024, configuration.getOpQueueSize());
+
+    ConnectionFactory connectionFactory = configuration.getConnectionFactory();
+    assertEquals(DefaultHashAlgorithm.KETAMA_HASH, connectionFactory.getHashAlg());
+    assertEquals(5, connectionFactory.getOpQueueMaxBlockTime());
+    assertEquals(100, connectionFactory.getOperationTimeout());
+    assertEquals(65536, connectionFactory.getReadBufSize());
+    assertTrue(connectionFactory.useNagleAlgorithm());
+    assertEquals(FailureMode.Cancel, connectionFactory.getFailureMode());
+    assertNotNull(connectionFactory.getAuthDescriptor());
+  }
+
+  @Test
+  void shouldRejectConnectionPropertiesAlongWithAnExplicitConnectionFactory() {
+    String properties = String.join("\n", "org.mybatis.caches.memcached.sasl=true",
+        "org.mybatis.caches.memcached.optimeout=100",
+        "org.mybatis.caches.memcached.connectionfactory=" + PropertySettersTest.TestConnectionFactory.class.getName());
+
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+        () -> MemcachedConfigurationBuilder.getInstance().parseConfiguration(new ClassLoader(null) {
+          @Override
+          public InputStream getResourceAsStream(String name) {
+            if ("memcached.properties".equals(name)) {
+              return new ByteArrayInputStream(properties.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+          }
+        }));
+    assertTrue(exception.getMessage().contains("org.mybatis.caches.memcached.sasl"));
+    assertTrue(exception.getMessage().contains("org.mybatis.caches.memcached.optimeout"));
+  }
+
+  @Test
+  void shouldRejectCompressionLevelsOutOfRange() {
+    String properties = "org.mybatis.caches.memcached.compression.level=10";
+
+    assertThrows(IllegalArgumentException.class,
+        () -> MemcachedConfigurationBuilder.getInstance().parseConfiguration(new ClassLoader(null) {
+          @Override
+          public InputStream getResourceAsStream(String name) {
+            if ("memcached.properties".equals(name)) {
+              return new ByteArrayInputStream(properties.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+          }
+        }));
+  }
+
+  @Test
+  void shouldParseNamedClientConfigurationsOverridingDefaults() {
+    String properties = String.join("\n", "org.mybatis.caches.memcached.servers=localhost:11211",
+        "org.mybatis.caches.memcached.expiration=120", "org.mybatis.caches.memcached.clients=hot, bulk",
+        "org.mybatis.caches.memcached.client.hot.servers=localhost:11212 localhost:11213",
+        "org.mybatis.caches.memcached.client.hot.namespaces=org.acme.hot.*",
+        "org.mybatis.caches.memcached.client.bulk.expiration=30");
+
+    Map<String, MemcachedConfiguration> configurations = MemcachedConfigurationBuilder.getInstance()
+        .parseClientConfigurations(new ClassLoader(null) {
+          @Override
+          public InputStream getResourceAsStream(String name) {
+            return new ByteArrayInputStream(properties.getBytes(StandardCharsets.UTF_8));
+          }
+        });
+
+    assertEquals(List.of("hot", "bulk"), List.copyOf(configurations.keySet()));
+
+    MemcachedConfiguration hot = configurations.get("hot");
+    assertEquals(2, hot.getAddresses().size());
+    assertEquals(120, hot.getExpiration());
+    assertEquals("org.acme.hot.*", hot.getNamespaces());
+
+    MemcachedConfiguration bulk = configurations.get("bulk");
+    assertEquals(1, bulk.getAddresses().size());
+    assertEquals(30, bulk.getExpiration());
+    assertEquals("", bulk.getNamespaces());
   }
 
   @Test
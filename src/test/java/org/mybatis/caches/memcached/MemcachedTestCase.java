@@ -1,5 +1,5 @@
 /*
- *    Copyright 2012-2022 the original author or authors.
+ *    Copyright 2012-2026 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,34 +15,60 @@
  */
 package org.mybatis.caches.memcached;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 /**
  * HOW TO RUN THE TEST
  * <p>
- * Install memcached:
- * <ul>
- * <li>on ubuntu: open the shell and type <code>sudo apt-get install memcached</code></li>
- * <li>on mac os x: open the terminal and type <code>sudo port install memcached</code></li>
- * </ul>
- * launch <code>mvn test</code>.
+ * Launch <code>mvn test</code>: the cache runs against an {@link EmbeddedMemcached} server, on the port of the
+ * <code>memcached.properties</code> test resource.
+ * <p>
+ * Launch <code>mvn test -Dmemcached.properties.filename=daemon.properties</code> to run it against a Memcached daemon
+ * listening on <code>localhost:11211</code> instead; the tests moving the embedded server clock are then skipped.
  */
 public final class MemcachedTestCase {
 
   private static final String DEFAULT_ID = "MEMCACHED";
 
+  private static final int PORT = 11311;
+
+  private static EmbeddedMemcached server;
+
   private MemcachedCache cache;
 
+  @BeforeAll
+  public static void startServer() throws IOException {
+    if (System.getProperty("memcached.properties.filename") == null) {
+      server = new EmbeddedMemcached(PORT, EmbeddedMemcached.DEFAULT_MEMORY_LIMIT);
+    }
+  }
+
+  @AfterAll
+  public static void stopServer() {
+    if (server != null) {
+      server.close();
+    }
+  }
+
   @BeforeEach
   public void newCache() {
     cache = new MemcachedCache(DEFAULT_ID);
@@ -77,6 +103,238 @@ public final class MemcachedTestCase {
     assertNull(cache.getObject(4));
   }
 
+  @Test
+  public void shouldFlushLargeGroupsOnDemand() {
+    for (int i = 0; i < 5000; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    for (int i = 0; i < 5000; i++) {
+      assertNull(cache.getObject(i));
+    }
+  }
+
+  @Test
+  public void shouldPutAndGetWithoutBlocking() {
+    List<CompletableFuture<Void>> puts = new ArrayList<CompletableFuture<Void>>();
+    for (int i = 0; i < 100; i++) {
+      puts.add(cache.putObjectAsync("async-" + i, i));
+    }
+    CompletableFuture.allOf(puts.toArray(new CompletableFuture[0])).join();
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, cache.getObjectAsync("async-" + i).join());
+    }
+    assertNull(cache.getObjectAsync("async-missing").join());
+  }
+
+  @Test
+  public void shouldClearWithoutBlocking() {
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clearAsync().join();
+    assertNull(cache.getObjectAsync(0).join());
+    assertNull(cache.getObject(4));
+  }
+
+  @Test
+  public void shouldApplyTheCacheProperties() {
+    assumeTrue(server != null, "moves the embedded server clock");
+    MemcachedCache volatileCache = new MemcachedCache("Volatile");
+    volatileCache.setKeyPrefix("_volatile_");
+    volatileCache.setExpiration(30);
+    volatileCache.setCompression(true);
+    volatileCache.initialize();
+
+    volatileCache.putObject(0, "volatile");
+    cache.putObject(0, "stable");
+    assertEquals("volatile", volatileCache.getObject(0));
+    assertEquals("stable", cache.getObject(0));
+
+    server.advance(31, TimeUnit.SECONDS);
+    assertNull(volatileCache.getObject(0));
+    assertEquals("stable", cache.getObject(0));
+  }
+
+  @Test
+  public void shouldSpreadTheExpirationsWhenJittered() {
+    assumeTrue(server != null, "moves the embedded server clock");
+    MemcachedCache jitteredCache = new MemcachedCache("Jittered");
+    jitteredCache.setKeyPrefix("_jittered_");
+    jitteredCache.setExpiration(100);
+    jitteredCache.setExpirationJitter(50);
+    jitteredCache.initialize();
+    for (int i = 0; i < 100; i++) {
+      jitteredCache.putObject(i, i);
+    }
+
+    server.advance(75, TimeUnit.SECONDS);
+    int cached = 0;
+    for (int i = 0; i < 100; i++) {
+      if (jitteredCache.getObject(i) != null) {
+        cached++;
+      }
+    }
+    assertTrue(cached > 0 && cached < 100, cached + " objects cached");
+
+    server.advance(26, TimeUnit.SECONDS);
+    for (int i = 0; i < 100; i++) {
+      assertNull(jitteredCache.getObject(i));
+    }
+  }
+
+  @Test
+  public void shouldReuseTheGenerationUntilItIsRefreshed() {
+    MemcachedConfiguration configuration = MemcachedConfigurationBuilder.getInstance().parseConfiguration();
+    configuration.setInvalidationMode(InvalidationMode.GENERATION);
+    configuration.setGenerationRefresh(60000);
+    MemcachedClientWrapper local = new MemcachedClientWrapper("local", configuration);
+    MemcachedClientWrapper remote = new MemcachedClientWrapper("remote", configuration);
+
+    local.putObject("key", "value", "Generations");
+    remote.removeGroup("Generations");
+    // the clear of another node is only seen once the generation is read again
+    assertEquals("value", local.getObject("key", "Generations"));
+    assertNull(remote.getObject("key", "Generations"));
+
+    local.removeGroup("Generations");
+    assertNull(local.getObject("key", "Generations"));
+  }
+
+  @Test
+  public void shouldKeepTheConcurrentlyAddedKeysInTheGroupWhenGivingUp() throws InterruptedException {
+    for (CasFallback fallback : Arrays.asList(CasFallback.DELETE_ENTRY, CasFallback.INVALIDATE_GROUP)) {
+      MemcachedConfiguration configuration = MemcachedConfigurationBuilder.getInstance().parseConfiguration();
+      // a single attempt, so the concurrent puts keep giving up
+      configuration.setCasMaxAttempts(1);
+      configuration.setCasFallback(fallback);
+      MemcachedClientWrapper wrapper = new MemcachedClientWrapper("contended", configuration);
+      String id = "Contended" + fallback;
+
+      List<Thread> writers = new ArrayList<Thread>();
+      for (int i = 0; i < 8; i++) {
+        int writer = i;
+        writers.add(new Thread(() -> {
+          for (int j = 0; j < 50; j++) {
+            wrapper.putObject(writer + "-" + j, "value", id);
+          }
+        }));
+      }
+      writers.forEach(Thread::start);
+      for (Thread writer : writers) {
+        writer.join();
+      }
+
+      // every key still stored is in the group, so the clear removes it
+      wrapper.removeGroup(id);
+      for (int i = 0; i < 8; i++) {
+        for (int j = 0; j < 50; j++) {
+          assertNull(wrapper.getObject(i + "-" + j, id), fallback + " left " + i + "-" + j);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shouldDecodeTheBatchedReadsOfAViewWithItsOwnTranscoder() {
+    MemcachedConfiguration configuration = MemcachedConfigurationBuilder.getInstance().parseConfiguration();
+    configuration.setReadBatchSize(16);
+    configuration.setCompressionCodec(CompressionCodec.DEFLATE);
+    configuration.setCompressionThreshold(0);
+    MemcachedClientWrapper wrapper = new MemcachedClientWrapper("batched", configuration);
+    // JDK serialized and deflated, which the uncompressed transcoder of the client can't decode
+    MemcachedClientWrapper compressed = wrapper.withOverrides("Deflated", null, null, null, true, null);
+
+    compressed.putObject("key", "value", "Deflated");
+    assertEquals("value", compressed.getObject("key", "Deflated"));
+    assertEquals("value", compressed.getObjectAsync("key", "Deflated").join());
+  }
+
+  @Test
+  public void shouldStoreObjectsLargerThanTheItemSizeInChunks() {
+    assumeTrue(server != null, "counts the embedded server items");
+    byte[] report = new byte[3 * EmbeddedMemcached.MAX_ITEM_SIZE];
+    new Random(42).nextBytes(report);
+
+    cache.putObject("report", report);
+    assertArrayEquals(report, (byte[]) cache.getObject("report"));
+    assertArrayEquals(report, (byte[]) cache.getObjectAsync("report").join());
+
+    int stored = server.size();
+    cache.removeObject("report");
+    assertNull(cache.getObject("report"));
+    assertEquals(stored - 5, server.size());
+  }
+
+  @Test
+  public void shouldNotStoreTheManifestOfAnObjectMissingChunks() {
+    assumeTrue(server != null, "counts the embedded server items");
+    MemcachedConfiguration configuration = MemcachedConfigurationBuilder.getInstance().parseConfiguration();
+    // the first chunk exceeds the item size, the second one is stored
+    configuration.setChunkSize(EmbeddedMemcached.MAX_ITEM_SIZE + 1);
+    MemcachedClientWrapper wrapper = new MemcachedClientWrapper("chunks", configuration);
+    byte[] report = new byte[EmbeddedMemcached.MAX_ITEM_SIZE * 3 / 2];
+    new Random(42).nextBytes(report);
+
+    wrapper.putObject("report", "previous", "Reports");
+    int stored = server.size();
+
+    wrapper.putObjectAsync("report", report, "Reports").join();
+    assertNull(wrapper.getObject("report", "Reports"));
+    assertEquals(stored - 1, server.size(), "the stored chunk and the previous object are deleted");
+  }
+
+  @Test
+  public void shouldRemoveTheChunksOfTheReplicasOfAHotKey() {
+    assumeTrue(server != null, "counts the embedded server items");
+    MemcachedConfiguration configuration = MemcachedConfigurationBuilder.getInstance().parseConfiguration();
+    // every key read once is hot
+    configuration.setHotKeyReplicas(2);
+    configuration.setHotKeySampling(1);
+    configuration.setHotKeyThreshold(1);
+    MemcachedClientWrapper wrapper = new MemcachedClientWrapper("hot", configuration);
+    byte[] report = new byte[3 * EmbeddedMemcached.MAX_ITEM_SIZE];
+    new Random(42).nextBytes(report);
+
+    // creates the group first, so only the object items are counted
+    wrapper.putObject("warmup", "warmup", "HotReports");
+    wrapper.removeObject("warmup", "HotReports");
+    int stored = server.size();
+
+    wrapper.putObject("report", report, "HotReports");
+    assertArrayEquals(report, (byte[]) wrapper.getObject("report", "HotReports"));
+    wrapper.putObject("report", report, "HotReports");
+    assertTrue(server.size() > stored + 5, "the replicas are stored in chunks too");
+
+    wrapper.removeObject("report", "HotReports");
+    assertEquals(stored, server.size());
+  }
+
+  @Test
+  public void shouldNotStoreBackTheMissingReplicasOfAHotKey() {
+    assumeTrue(server != null, "counts the embedded server items");
+    MemcachedConfiguration configuration = MemcachedConfigurationBuilder.getInstance().parseConfiguration();
+    configuration.setHotKeyReplicas(2);
+    configuration.setHotKeySampling(1);
+    configuration.setHotKeyThreshold(1);
+    MemcachedClientWrapper wrapper = new MemcachedClientWrapper("hot", configuration);
+
+    // put before being read, so stored without its replicas
+    wrapper.putObject("cold", "value", "HotValues");
+    int stored = server.size();
+    for (int i = 0; i < 20; i++) {
+      assertEquals("value", wrapper.getObject("cold", "HotValues"));
+    }
+    assertEquals(stored, server.size(), "the reads store no replica");
+
+    // a replica stored back by a read racing the clear would outlive it
+    wrapper.removeGroup("HotValues");
+    for (int i = 0; i < 20; i++) {
+      assertNull(wrapper.getObject("cold", "HotValues"));
+    }
+  }
+
   @Test
   public void shouldAcceptAKeyBiggerThan250() {
     char[] keyChar = new char[1024];
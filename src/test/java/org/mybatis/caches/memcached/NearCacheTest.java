@@ -0,0 +1,103 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class NearCacheTest {
+
+  @Test
+  void shouldServeStoredValuesUntilGenerationChanges() {
+    NearCache nearCache = new NearCache(10, 60, 0, new JdkSerializer());
+
+    assertTrue(nearCache.isGenerationCheckDue());
+    nearCache.validate(1);
+    nearCache.put("k", "v");
+    assertEquals("v", nearCache.get("k"));
+
+    nearCache.validate(1);
+    assertEquals("v", nearCache.get("k"));
+
+    nearCache.validate(2);
+    assertNull(nearCache.get("k"));
+  }
+
+  @Test
+  void shouldCheckGenerationOncePerInterval() {
+    NearCache nearCache = new NearCache(10, 60, 60000, new JdkSerializer());
+
+    assertTrue(nearCache.isGenerationCheckDue());
+    assertFalse(nearCache.isGenerationCheckDue());
+
+    nearCache.invalidate();
+    assertTrue(nearCache.isGenerationCheckDue());
+  }
+
+  @Test
+  void shouldGiveEachHitItsOwnCopy() {
+    NearCache nearCache = new NearCache(10, 60, 0, new JdkSerializer());
+
+    List<String> stored = new ArrayList<String>(List.of("v"));
+    nearCache.put("k", stored);
+    stored.add("changed after the put");
+
+    @SuppressWarnings("unchecked")
+    List<String> hit = (List<String>) nearCache.get("k");
+    assertEquals(List.of("v"), hit);
+    hit.add("changed by a caller");
+    assertEquals(List.of("v"), nearCache.get("k"));
+    assertNotSame(hit, nearCache.get("k"));
+  }
+
+  @Test
+  void shouldExpireEntriesAfterTimeToLive() {
+    NearCache nearCache = new NearCache(10, 0, 0, new JdkSerializer());
+
+    nearCache.put("k", "v");
+    assertNull(nearCache.get("k"));
+  }
+
+  @Test
+  void shouldStayBoundedAndForgetRemovedEntries() {
+    NearCache nearCache = new NearCache(100, 60, 0, new JdkSerializer());
+
+    for (int i = 0; i < 1000; i++) {
+      nearCache.put(i, i);
+    }
+    assertTrue(nearCache.size() <= 100);
+
+    nearCache.put("k", "v");
+    nearCache.remove("k");
+    assertNull(nearCache.get("k"));
+
+    nearCache.put("k", "v");
+    nearCache.put("k", null);
+    assertNull(nearCache.get("k"));
+
+    nearCache.clear();
+    assertEquals(0, nearCache.size());
+  }
+
+}
@@ -27,6 +27,7 @@ import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
 import net.spy.memcached.DefaultConnectionFactory;
+import net.spy.memcached.FailureMode;
 
 import org.junit.jupiter.api.Test;
 
@@ -61,9 +62,32 @@ class PropertySettersTest {
 
     new IntegerPropertySetter("i", "timeout", 5).set(properties, configuration);
     new TimeUnitSetter().set(properties, configuration);
+    new BooleanPropertySetter("b", "tcpNoDelay", true).set(properties, configuration);
 
     assertEquals(5, configuration.getTimeout());
     assertEquals(TimeUnit.SECONDS, configuration.getTimeUnit());
+    assertTrue(configuration.isTcpNoDelay());
+  }
+
+  @Test
+  void shouldApplyEnumPropertiesIgnoringCase() {
+    MemcachedConfiguration configuration = new MemcachedConfiguration();
+    Properties properties = new Properties();
+    properties.setProperty("e", " Generation ");
+
+    new EnumPropertySetter<InvalidationMode>("e", "invalidationMode", InvalidationMode.class, InvalidationMode.GROUP)
+        .set(properties, configuration);
+    assertEquals(InvalidationMode.GENERATION, configuration.getInvalidationMode());
+
+    properties.setProperty("f", "retry");
+    new EnumPropertySetter<FailureMode>("f", "failureMode", FailureMode.class, FailureMode.Redistribute)
+        .set(properties, configuration);
+    assertEquals(FailureMode.Retry, configuration.getFailureMode());
+
+    properties.setProperty("e", "unknown");
+    new EnumPropertySetter<InvalidationMode>("e", "invalidationMode", InvalidationMode.class, InvalidationMode.GROUP)
+        .set(properties, configuration);
+    assertEquals(InvalidationMode.GROUP, configuration.getInvalidationMode());
   }
 
   @Test
@@ -0,0 +1,137 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import net.spy.memcached.CachedData;
+
+import org.apache.ibatis.cache.CacheException;
+import org.junit.jupiter.api.Test;
+
+class SerializerTranscoderTest {
+
+  private static final List<String> LARGE_VALUE = new ArrayList<String>(Collections.nCopies(500, "mybatis"));
+
+  @Test
+  void shouldFlagJdkSerializedAndGzippedValuesLikeTheDefaultTranscoder() {
+    SerializerTranscoder transcoder = new SerializerTranscoder(new JdkSerializer(), CompressionCodec.GZIP, -1, 0);
+
+    CachedData cachedData = transcoder.encode(LARGE_VALUE);
+
+    assertEquals(3, cachedData.getFlags());
+    assertEquals(LARGE_VALUE, transcoder.decode(cachedData));
+    assertEquals(LARGE_VALUE, new CompressorTranscoder().decode(cachedData));
+  }
+
+  @Test
+  void shouldCompressOnlyValuesReachingTheThreshold() {
+    SerializerTranscoder transcoder = new SerializerTranscoder(new BinarySerializer(), CompressionCodec.DEFLATE, 1,
+        256);
+    List<String> smallValue = new ArrayList<String>(List.of("x", "y"));
+
+    CachedData small = transcoder.encode(smallValue);
+    CachedData large = transcoder.encode(LARGE_VALUE);
+
+    assertEquals(0x10, small.getFlags());
+    assertEquals(0x30, large.getFlags());
+    assertTrue(large.getData().length < 256);
+    assertEquals(smallValue, transcoder.decode(small));
+    assertEquals(LARGE_VALUE, transcoder.decode(large));
+  }
+
+  @Test
+  void shouldDecodeValuesWrittenWithAnotherCodecOrSerializer() {
+    CachedData gzipped = new SerializerTranscoder(new JdkSerializer(), CompressionCodec.GZIP, 9, 0)
+        .encode(LARGE_VALUE);
+
+    assertEquals(LARGE_VALUE,
+        new SerializerTranscoder(new BinarySerializer(), CompressionCodec.DEFLATE, -1, 0).decode(gzipped));
+  }
+
+  @Test
+  void shouldDecodeGzipStreamsWithOptionalHeaderFields() throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(baos))) {
+      oos.writeObject(LARGE_VALUE);
+    }
+    byte[] plain = baos.toByteArray();
+    // insert a file name, as written by the gzip command
+    byte[] named = new byte[plain.length + 4];
+    System.arraycopy(plain, 0, named, 0, 10);
+    named[3] = 8;
+    named[10] = 'a';
+    named[11] = '.';
+    named[12] = 'z';
+    System.arraycopy(plain, 10, named, 14, plain.length - 10);
+
+    SerializerTranscoder transcoder = new SerializerTranscoder(new JdkSerializer(), CompressionCodec.GZIP, -1, 0);
+
+    assertEquals(LARGE_VALUE, transcoder.decode(new CachedData(3, plain, CachedData.MAX_SIZE)));
+    assertEquals(LARGE_VALUE, transcoder.decode(new CachedData(3, named, CachedData.MAX_SIZE)));
+  }
+
+  @Test
+  void shouldRejectCorruptedCompressedValues() {
+    SerializerTranscoder transcoder = new SerializerTranscoder(new JdkSerializer(), CompressionCodec.GZIP, -1, 0);
+    byte[] data = transcoder.encode(LARGE_VALUE).getData();
+    data[data.length - 6]++;
+
+    assertThrows(CacheException.class, () -> transcoder.decode(new CachedData(3, data, CachedData.MAX_SIZE)));
+  }
+
+  @Test
+  void shouldReportRuntimeEncodingFailuresAsCacheExceptions() {
+    Serializer failing = new Serializer() {
+      @Override
+      public void serialize(Object object, OutputStream output) {
+        throw new IllegalStateException("boom");
+      }
+
+      @Override
+      public Object deserialize(InputStream input) {
+        return null;
+      }
+    };
+
+    assertThrows(CacheException.class, () -> new SerializerTranscoder(failing, null, -1, 0).encode(LARGE_VALUE));
+    assertThrows(CacheException.class,
+        () -> new SerializerTranscoder(new JdkSerializer(), CompressionCodec.DEFLATE, 10, 0).encode(LARGE_VALUE));
+  }
+
+  @Test
+  void shouldReuseBuffersAcrossValuesOfDifferentSizes() {
+    SerializerTranscoder transcoder = new SerializerTranscoder(new BinarySerializer(), CompressionCodec.DEFLATE, -1,
+        0);
+    List<String> huge = new ArrayList<String>(Collections.nCopies(100000, "mybatis"));
+
+    for (List<String> value : List.of(LARGE_VALUE, huge, List.of("x"), LARGE_VALUE)) {
+      assertEquals(value, transcoder.decode(transcoder.encode(new ArrayList<String>(value))));
+    }
+  }
+
+}
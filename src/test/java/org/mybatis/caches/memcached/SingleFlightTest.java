@@ -0,0 +1,188 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  @Test
+  void shouldShareOneReadAmongConcurrentCallers() throws Exception {
+    SingleFlight singleFlight = new SingleFlight(0, value -> value);
+    AtomicInteger retrievals = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    try {
+      List<Future<Object>> results = new ArrayList<Future<Object>>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> singleFlight.get("k", keyString -> {
+          retrievals.incrementAndGet();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return "v";
+        })));
+      }
+
+      Thread.sleep(200);
+      release.countDown();
+
+      for (Future<Object> result : results) {
+        assertEquals("v", result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, retrievals.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldPropagateReadFailures() {
+    SingleFlight singleFlight = new SingleFlight(0, value -> value);
+
+    assertThrows(IllegalStateException.class, () -> singleFlight.get("k", keyString -> {
+      throw new IllegalStateException("boom");
+    }));
+    assertEquals("v", singleFlight.get("k", keyString -> "v"));
+  }
+
+  @Test
+  void shouldLetMissingCallersWaitForTheLoader() throws Exception {
+    SingleFlight singleFlight = new SingleFlight(5000, value -> value);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      assertNull(singleFlight.get("k", keyString -> null));
+
+      Future<Object> waiting = executor.submit(() -> singleFlight.get("k", keyString -> null));
+      Thread.sleep(200);
+      singleFlight.loaded("k", "v");
+
+      assertEquals("v", waiting.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldTakeOverLoadsNotCompletedInTime() {
+    SingleFlight singleFlight = new SingleFlight(50, value -> value);
+
+    assertNull(singleFlight.get("k", keyString -> null));
+    // waits for the first loader, which never puts the value
+    assertNull(singleFlight.get("k", keyString -> null));
+  }
+
+  @Test
+  void shouldGiveTheWaitersTheirOwnCopy() throws Exception {
+    SingleFlight singleFlight = new SingleFlight(5000, value -> new ArrayList<Object>((List<?>) value));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      assertNull(singleFlight.get("k", keyString -> null));
+
+      Future<Object> waiting = executor.submit(() -> singleFlight.get("k", keyString -> null));
+      Thread.sleep(200);
+      List<String> loaded = new ArrayList<String>(List.of("v"));
+      singleFlight.loaded("k", loaded);
+      loaded.add("changed by the loader");
+
+      assertEquals(List.of("v"), waiting.get(5, TimeUnit.SECONDS));
+      assertNotSame(loaded, waiting.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldCopyTheSharedReadFromAValueTheReaderNeverGets() throws Exception {
+    SingleFlight singleFlight = new SingleFlight(0, value -> {
+      try {
+        // lets the reader change its value while the joiners are still copying
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return new ArrayList<Object>((List<?>) value);
+    });
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(5);
+
+    try {
+      Future<Object> reader = executor.submit(() -> {
+        @SuppressWarnings("unchecked")
+        List<Object> read = (List<Object>) singleFlight.get("k", keyString -> {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return new ArrayList<Object>(List.of("v"));
+        });
+        for (int i = 0; i < 1000; i++) {
+          read.add("changed by the reader");
+        }
+        return read;
+      });
+      Thread.sleep(100);
+      List<Future<Object>> joiners = new ArrayList<Future<Object>>();
+      for (int i = 0; i < 4; i++) {
+        joiners.add(executor.submit(() -> singleFlight.get("k", keyString -> List.of("read again"))));
+      }
+      Thread.sleep(200);
+      release.countDown();
+
+      assertEquals(1001, ((List<?>) reader.get(5, TimeUnit.SECONDS)).size());
+      for (Future<Object> joiner : joiners) {
+        assertEquals(List.of("v"), joiner.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldForgetTheLoadsNeverPut() throws Exception {
+    SingleFlight singleFlight = new SingleFlight(50, value -> value);
+
+    assertNull(singleFlight.get("k", keyString -> null));
+    assertEquals(1, singleFlight.loadsInProgress());
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (singleFlight.loadsInProgress() > 0 && System.nanoTime() - deadline < 0) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, singleFlight.loadsInProgress());
+  }
+
+}
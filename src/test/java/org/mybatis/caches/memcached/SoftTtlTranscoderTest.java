@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.spy.memcached.CachedData;
+
+import org.junit.jupiter.api.Test;
+
+class SoftTtlTranscoderTest {
+
+  private static final List<String> VALUE = new ArrayList<String>(Collections.nCopies(500, "mybatis"));
+
+  private final SoftTtlTranscoder transcoder = new SoftTtlTranscoder(
+      new SerializerTranscoder(new BinarySerializer(), CompressionCodec.DEFLATE, -1, 256));
+
+  @Test
+  void shouldStoreTheSoftExpirationInFrontOfTheEncodedValue() {
+    CachedData cachedData = transcoder.encode(new SoftTtlTranscoder.Envelope(VALUE, 1234567890123L));
+
+    assertEquals(0x30 | SoftTtlTranscoder.SOFT_EXPIRATION, cachedData.getFlags());
+
+    SoftTtlTranscoder.Envelope envelope = assertInstanceOf(SoftTtlTranscoder.Envelope.class,
+        transcoder.decode(cachedData));
+    assertEquals(VALUE, envelope.getValue());
+    assertEquals(1234567890123L, envelope.getSoftExpiration());
+  }
+
+  @Test
+  void shouldLeaveTheOtherValuesToTheWrappedTranscoder() {
+    CachedData cachedData = transcoder.encode(VALUE);
+
+    assertEquals(0x30, cachedData.getFlags());
+    assertEquals(VALUE, transcoder.decode(cachedData));
+  }
+
+  @Test
+  void shouldTellStaleValues() {
+    SoftTtlTranscoder.Envelope envelope = new SoftTtlTranscoder.Envelope(VALUE, 1000);
+
+    assertFalse(envelope.isStale(999));
+    assertTrue(envelope.isStale(1000));
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import net.spy.memcached.MemcachedClient;
+
+import org.junit.jupiter.api.Test;
+
+class StripedClientsTest {
+
+  @Test
+  void shouldSendEveryKeyToTheSingleClient() {
+    StripedClients clients = new StripedClients(new MemcachedClient[1]);
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(0, clients.indexOf("key" + i));
+    }
+  }
+
+  @Test
+  void shouldAlwaysSendAKeyToTheSameClient() {
+    StripedClients clients = new StripedClients(new MemcachedClient[4]);
+
+    for (int i = 0; i < 100; i++) {
+      int index = clients.indexOf("key" + i);
+      assertTrue(index >= 0 && index < 4);
+      assertEquals(index, clients.indexOf("key" + i));
+    }
+  }
+
+  @Test
+  void shouldSpreadTheKeysOverTheClients() {
+    StripedClients clients = new StripedClients(new MemcachedClient[4]);
+
+    int[] counts = new int[4];
+    for (int i = 0; i < 4000; i++) {
+      counts[clients.indexOf("_mybatis_" + Integer.toHexString(i * 0x9e3779b1))]++;
+    }
+    for (int count : counts) {
+      assertTrue(count > 500, "unbalanced stripes: " + count);
+    }
+  }
+
+}
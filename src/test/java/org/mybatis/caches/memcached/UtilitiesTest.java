@@ -18,6 +18,7 @@ package org.mybatis.caches.memcached;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
@@ -41,6 +42,16 @@ class UtilitiesTest {
     assertEquals("data must not be null", exception.getMessage());
   }
 
+  @Test
+  void shouldEncodeKeyDigestsInConfiguredFormat() {
+    byte[] digest = KeyDigester.digest("abc");
+
+    assertEquals(StringUtils.toHexString(digest), KeyFormat.HEX.encode(digest));
+    assertEquals(64, KeyFormat.HEX.encode(digest).length());
+    assertEquals(22, KeyFormat.BASE64.encode(digest).length());
+    assertTrue(KeyFormat.BASE64.encode(digest).matches("[A-Za-z0-9_-]+"));
+  }
+
   @Test
   void shouldEncodeAndDecodeCompressedPayload() {
     CompressorTranscoder transcoder = new CompressorTranscoder();
@@ -0,0 +1,159 @@
+/*
+ *    Copyright 2012-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.caches.memcached;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.spy.memcached.CachedData;
+
+import org.junit.jupiter.api.Test;
+
+class WriteBehindTest {
+
+  private static final CachedData VALUE = new CachedData(0, new byte[] { 1 }, CachedData.MAX_SIZE);
+
+  @Test
+  void shouldWriteEnqueuedObjectsInBatches() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(5);
+    List<List<String>> batches = new ArrayList<List<String>>();
+    WriteBehind writeBehind = new WriteBehind(10, 1, 3, writes -> {
+      awaitQuietly(release);
+      List<String> keys = new ArrayList<String>();
+      for (WriteBehind.PendingWrite write : writes) {
+        keys.add(write.keyString);
+      }
+      synchronized (batches) {
+        batches.add(keys);
+      }
+      for (int i = 0; i < keys.size(); i++) {
+        done.countDown();
+      }
+    }, write -> {
+    });
+
+    try {
+      // the first write blocks the worker until the others are queued
+      assertTrue(writeBehind.enqueue("id", "k0", VALUE));
+      Thread.sleep(100);
+      for (int i = 1; i < 5; i++) {
+        assertTrue(writeBehind.enqueue("id", "k" + i, VALUE));
+      }
+      assertEquals(4, writeBehind.getQueueDepth());
+      release.countDown();
+
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      synchronized (batches) {
+        assertEquals(List.of(List.of("k0"), List.of("k1", "k2", "k3"), List.of("k4")), batches);
+      }
+    } finally {
+      writeBehind.shutdown();
+    }
+  }
+
+  @Test
+  void shouldDropWritesWhenTheQueueIsFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    WriteBehind writeBehind = new WriteBehind(2, 1, 10, writes -> awaitQuietly(release), write -> {
+    });
+
+    try {
+      assertTrue(writeBehind.enqueue("id", "k0", VALUE));
+      Thread.sleep(100);
+      assertTrue(writeBehind.enqueue("id", "k1", VALUE));
+      assertTrue(writeBehind.enqueue("id", "k2", VALUE));
+      assertFalse(writeBehind.enqueue("id", "k3", VALUE));
+
+      assertEquals(2, writeBehind.getQueueDepth());
+      assertEquals(1, writeBehind.getDroppedCount());
+    } finally {
+      release.countDown();
+      writeBehind.shutdown();
+    }
+  }
+
+  @Test
+  void shouldDiscardPendingWritesOfRemovedKeysAndClearedGroups() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    WriteBehind writeBehind = new WriteBehind(10, 1, 10, writes -> awaitQuietly(release), write -> {
+    });
+
+    try {
+      writeBehind.enqueue("a", "k0", VALUE);
+      Thread.sleep(100);
+      writeBehind.enqueue("a", "k1", VALUE);
+      writeBehind.enqueue("a", "k2", VALUE);
+      writeBehind.enqueue("b", "k3", VALUE);
+
+      writeBehind.discard("k1");
+      assertEquals(2, writeBehind.getQueueDepth());
+      writeBehind.discardGroup("a");
+      assertEquals(1, writeBehind.getQueueDepth());
+    } finally {
+      release.countDown();
+      writeBehind.shutdown();
+    }
+  }
+
+  @Test
+  void shouldEraseTheWritesDiscardedWhileBeingSent() throws Exception {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> erased = new CopyOnWriteArrayList<String>();
+    CountDownLatch done = new CountDownLatch(1);
+    WriteBehind writeBehind = new WriteBehind(10, 1, 10, writes -> {
+      sending.countDown();
+      awaitQuietly(release);
+    }, write -> {
+      erased.add(write.keyString);
+      done.countDown();
+    });
+
+    try {
+      writeBehind.enqueue("a", "k0", VALUE);
+      assertTrue(sending.await(5, TimeUnit.SECONDS));
+      writeBehind.enqueue("a", "k1", VALUE);
+
+      // k0 is being sent, k1 is still queued
+      writeBehind.discardGroup("a");
+      assertEquals(0, writeBehind.getQueueDepth());
+      release.countDown();
+
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals(List.of("k0"), erased);
+    } finally {
+      release.countDown();
+      writeBehind.shutdown();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}